@@ -0,0 +1,410 @@
+package org.nolab.util.context;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sampling profiler of key access. Collects number of reads and writes,
+ * approximate top of the most read and the most written keys and keys,
+ * that are written and never read since.
+ * <p>Every access is sampled with probability {@code 1 / samplingInterval}.
+ * Frequencies of sampled keys are estimated by count-min sketch, so
+ * memory does not depend on number of keys; estimates never underrate
+ * and overrate by a small fraction of total number of samples. Keys with
+ * the greatest estimates are kept in heavy hitters table of fixed capacity.
+ * All counts are scaled by sampling interval.
+ * <p>Unread keys are tracked for not more than {@code maxTrackedKeys} keys,
+ * other written keys are ignored. Only writes are sampled for tracking:
+ * every read and removal of tracked key updates tracking, so sampling
+ * does not make read keys unread.
+ * Thread-safe.
+ */
+public class ContextAccessProfiler implements Serializable {
+
+    private static final long serialVersionUID = 8630158424127741025L;
+
+    public static final int DEFAULT_TOP_SIZE = 16;
+    public static final int DEFAULT_SKETCH_WIDTH = 1 << 12;
+    public static final int DEFAULT_MAX_TRACKED_KEYS = 1 << 12;
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int topSize;
+    private final int samplingInterval;
+    private final int maxTrackedKeys;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final Sketch readSketch;
+    private final Sketch writeSketch;
+    private final HeavyHitters hotReads;
+    private final HeavyHitters hotWrites;
+
+    /**
+     * Written keys: {@code true} if key was read since last write.
+     */
+    private final ConcurrentHashMap<String, Boolean> written = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor with full parameters set.
+     *
+     * @param topSize number of reported hot keys
+     * @param sketchWidth number of counters per row of sketch, rounded up to power of two
+     * @param maxTrackedKeys maximal number of keys, tracked for reads after write
+     * @param samplingInterval average number of accesses per sampled access
+     * @throws IllegalArgumentException if any parameter is not positive
+     */
+    public ContextAccessProfiler(int topSize, int sketchWidth, int maxTrackedKeys, int samplingInterval) {
+        if (topSize <= 0) {
+            throw new IllegalArgumentException("Invalid top size: " + topSize);
+        }
+        if (sketchWidth <= 0 || sketchWidth > 1 << 24) {
+            throw new IllegalArgumentException("Invalid sketch width: " + sketchWidth);
+        }
+        if (maxTrackedKeys <= 0) {
+            throw new IllegalArgumentException("Invalid number of tracked keys: " + maxTrackedKeys);
+        }
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Invalid sampling interval: " + samplingInterval);
+        }
+        this.topSize = topSize;
+        this.samplingInterval = samplingInterval;
+        this.maxTrackedKeys = maxTrackedKeys;
+        int width = Integer.highestOneBit(sketchWidth);
+        if (width < sketchWidth) {
+            width <<= 1;
+        }
+        this.readSketch = new Sketch(width);
+        this.writeSketch = new Sketch(width);
+        this.hotReads = new HeavyHitters(readSketch, topSize * 2);
+        this.hotWrites = new HeavyHitters(writeSketch, topSize * 2);
+    }
+
+    /**
+     * Profiler with default parameters, that samples every access.
+     */
+    public ContextAccessProfiler() {
+        this(DEFAULT_TOP_SIZE, DEFAULT_SKETCH_WIDTH, DEFAULT_MAX_TRACKED_KEYS, 1);
+    }
+
+    /**
+     * Get sampling interval.
+     *
+     * @return average number of accesses per sampled access
+     */
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Record read of key.
+     *
+     * @param key key
+     */
+    public void recordRead(String key) {
+        if (key == null) {
+            return;
+        }
+        // lock-free check first: replace locks bin even if value differs
+        if (written.get(key) == Boolean.FALSE) {
+            written.replace(key, Boolean.FALSE, Boolean.TRUE);
+        }
+        if (!sampled()) {
+            return;
+        }
+        reads.increment();
+        hotReads.offer(key, readSketch.increment(key));
+    }
+
+    /**
+     * Record write of key.
+     *
+     * @param key key
+     */
+    public void recordWrite(String key) {
+        if (key == null || !sampled()) {
+            return;
+        }
+        writes.increment();
+        hotWrites.offer(key, writeSketch.increment(key));
+        if (written.size() < maxTrackedKeys) {
+            written.put(key, Boolean.FALSE);
+        } else {
+            written.replace(key, Boolean.FALSE);
+        }
+    }
+
+    /**
+     * Record removal of key. Removal is counted as write,
+     * but removed key is no more tracked for reads.
+     *
+     * @param key key
+     */
+    public void recordRemove(String key) {
+        if (key == null) {
+            return;
+        }
+        if (written.containsKey(key)) {
+            written.remove(key);
+        }
+        if (!sampled()) {
+            return;
+        }
+        writes.increment();
+        hotWrites.offer(key, writeSketch.increment(key));
+    }
+
+    /**
+     * Stop tracking key for reads without recording access,
+     * for example, when key is removed by bulk operation.
+     *
+     * @param key key
+     */
+    public void forget(String key) {
+        if (key != null && written.containsKey(key)) {
+            written.remove(key);
+        }
+    }
+
+    /**
+     * Forget all recorded accesses.
+     * Accesses, recorded concurrently with reset, may be partially kept.
+     */
+    public void reset() {
+        reads.reset();
+        writes.reset();
+        readSketch.reset();
+        writeSketch.reset();
+        hotReads.reset();
+        hotWrites.reset();
+        written.clear();
+    }
+
+    /**
+     * Take snapshot of collected statistics.
+     *
+     * @return snapshot
+     */
+    public Snapshot snapshot() {
+        Set<String> unread = new TreeSet<>();
+        for (Map.Entry<String, Boolean> entry : written.entrySet()) {
+            if (!entry.getValue()) {
+                unread.add(entry.getKey());
+            }
+        }
+        return new Snapshot(reads.sum() * samplingInterval, writes.sum() * samplingInterval,
+                hotReads.top(), hotWrites.top(), unread);
+    }
+
+    private boolean sampled() {
+        return samplingInterval == 1 || ThreadLocalRandom.current().nextInt(samplingInterval) == 0;
+    }
+
+    /**
+     * Immutable snapshot of profiler statistics.
+     */
+    public static final class Snapshot implements Serializable {
+
+        private static final long serialVersionUID = -2879534861097237450L;
+
+        private final long reads;
+        private final long writes;
+        private final Map<String, Long> hotReadKeys;
+        private final Map<String, Long> hotWriteKeys;
+        private final Set<String> unreadKeys;
+
+        private Snapshot(long reads, long writes, Map<String, Long> hotReadKeys,
+                         Map<String, Long> hotWriteKeys, Set<String> unreadKeys) {
+            this.reads = reads;
+            this.writes = writes;
+            this.hotReadKeys = Collections.unmodifiableMap(hotReadKeys);
+            this.hotWriteKeys = Collections.unmodifiableMap(hotWriteKeys);
+            this.unreadKeys = Collections.unmodifiableSet(unreadKeys);
+        }
+
+        /**
+         * Get estimated number of reads.
+         *
+         * @return reads
+         */
+        public long getReads() {
+            return reads;
+        }
+
+        /**
+         * Get estimated number of writes, including removals.
+         *
+         * @return writes
+         */
+        public long getWrites() {
+            return writes;
+        }
+
+        /**
+         * Get ratio of reads to writes.
+         *
+         * @return ratio, {@link Double#POSITIVE_INFINITY} if there are reads only
+         * or {@link Double#NaN} if there are no accesses
+         */
+        public double getReadWriteRatio() {
+            return (double) reads / writes;
+        }
+
+        /**
+         * Get the most read keys with estimated numbers of reads.
+         *
+         * @return keys in descending order of estimates
+         */
+        public Map<String, Long> getHotReadKeys() {
+            return hotReadKeys;
+        }
+
+        /**
+         * Get the most written keys with estimated numbers of writes.
+         *
+         * @return keys in descending order of estimates
+         */
+        public Map<String, Long> getHotWriteKeys() {
+            return hotWriteKeys;
+        }
+
+        /**
+         * Get tracked keys, that are not read since their last sampled write.
+         *
+         * @return keys in natural order
+         */
+        public Set<String> getUnreadKeys() {
+            return unreadKeys;
+        }
+
+        @Override
+        public String toString() {
+            return "reads=" + reads + ", writes=" + writes
+                    + ", hotReadKeys=" + hotReadKeys + ", hotWriteKeys=" + hotWriteKeys
+                    + ", unreadKeys=" + unreadKeys;
+        }
+    }
+
+    /**
+     * Count-min sketch with {@value #SKETCH_DEPTH} rows.
+     */
+    private static final class Sketch implements Serializable {
+
+        private static final long serialVersionUID = -1437306694912875634L;
+
+        private final AtomicLongArray counters;
+        private final int mask;
+
+        Sketch(int width) {
+            this.counters = new AtomicLongArray(width * SKETCH_DEPTH);
+            this.mask = width - 1;
+        }
+
+        /**
+         * Increment counters of key.
+         *
+         * @param key key
+         * @return estimate after increment
+         */
+        long increment(String key) {
+            long hash = key.hashCode();
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                estimate = Math.min(estimate, counters.incrementAndGet(index(hash, row)));
+            }
+            return estimate;
+        }
+
+        long estimate(String key) {
+            long hash = key.hashCode();
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < SKETCH_DEPTH; row++) {
+                estimate = Math.min(estimate, counters.get(index(hash, row)));
+            }
+            return estimate;
+        }
+
+        private int index(long hash, int row) {
+            long h = (hash + (row + 1) * GOLDEN_GAMMA) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+            return row * (mask + 1) + ((int) (h ^ (h >>> 32)) & mask);
+        }
+
+        void reset() {
+            for (int i = 0; i < counters.length(); i++) {
+                counters.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Table of keys with the greatest estimates. Keys, that are already
+     * in table or which estimates do not exceed the minimum of full table,
+     * are handled without locking. Estimates are read from sketch.
+     */
+    private final class HeavyHitters implements Serializable {
+
+        private static final long serialVersionUID = 4171826533020994383L;
+
+        private final Sketch sketch;
+        private final int capacity;
+        private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+        private volatile long threshold;
+
+        HeavyHitters(Sketch sketch, int capacity) {
+            this.sketch = sketch;
+            this.capacity = capacity;
+        }
+
+        void offer(String key, long estimate) {
+            if (estimate <= threshold || candidates.contains(key)) {
+                return;
+            }
+            synchronized (this) {
+                if (candidates.size() < capacity) {
+                    candidates.add(key);
+                    return;
+                }
+                String minKey = null;
+                long min = Long.MAX_VALUE;
+                for (String candidate : candidates) {
+                    long candidateEstimate = sketch.estimate(candidate);
+                    if (candidateEstimate < min) {
+                        minKey = candidate;
+                        min = candidateEstimate;
+                    }
+                }
+                threshold = min;
+                if (estimate > min && candidates.add(key)) {
+                    candidates.remove(minKey);
+                }
+            }
+        }
+
+        synchronized Map<String, Long> top() {
+            List<Map.Entry<String, Long>> entries = new ArrayList<>();
+            for (String key : candidates) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key, sketch.estimate(key)));
+            }
+            entries.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (Map.Entry<String, Long> entry : entries) {
+                if (result.size() == topSize || entry.getValue() == 0) {
+                    break;
+                }
+                result.put(entry.getKey(), entry.getValue() * samplingInterval);
+            }
+            return result;
+        }
+
+        synchronized void reset() {
+            candidates.clear();
+            threshold = 0;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.nolab.util.context;
+
+/**
+ * Object, that reports estimated amount of heap memory, retained by it.
+ * Estimations are maintained incrementally, so all methods
+ * are cheap and do not walk over contents.
+ */
+public interface MemoryFootprint {
+
+    /**
+     * Get estimated number of bytes, retained by structure:
+     * object itself, tables, nodes and entries.
+     *
+     * @return estimated number of bytes
+     */
+    long getStructureFootprint();
+
+    /**
+     * Get estimated number of bytes, retained by keys and values,
+     * as estimated by {@link ValueSizer} of this object.
+     *
+     * @return estimated number of bytes
+     */
+    long getPayloadFootprint();
+
+    /**
+     * Get estimated number of retained bytes.
+     *
+     * @return sum of structure and payload footprints
+     */
+    default long getFootprint() {
+        return getStructureFootprint() + getPayloadFootprint();
+    }
+
+    /**
+     * Get sizer, that estimates keys and values.
+     *
+     * @return value sizer
+     */
+    ValueSizer getValueSizer();
+
+    /**
+     * Set sizer, that estimates keys and values. Payload footprint
+     * is recomputed with new sizer.
+     *
+     * @param valueSizer new value sizer
+     * @throws NullPointerException if {@code valueSizer} is {@code null}
+     */
+    void setValueSizer(ValueSizer valueSizer);
+}
@@ -0,0 +1,20 @@
+package org.nolab.util.context;
+
+/**
+ * Estimator of heap memory, retained by single key or value.
+ * Estimation must be cheap and must return the same result
+ * for the same unchanged object.
+ *
+ * @see ValueSizers
+ */
+@FunctionalInterface
+public interface ValueSizer {
+
+    /**
+     * Estimate number of bytes, retained by object.
+     *
+     * @param value estimated object, may be {@code null}
+     * @return estimated number of bytes, {@code 0} for {@code null}
+     */
+    long sizeOf(Object value);
+}
@@ -0,0 +1,127 @@
+package org.nolab.util.context;
+
+import java.lang.reflect.Array;
+
+/**
+ * Serializable implementations of {@link ValueSizer}.
+ * Estimations suppose 64-bit JVM with compressed references:
+ * 12 bytes of object header, 4 bytes of reference and 8 bytes alignment.
+ */
+public enum ValueSizers implements ValueSizer {
+
+    /**
+     * Estimate only shallow size of object header.
+     */
+    SHALLOW {
+        @Override
+        public long sizeOf(Object value) {
+            return value == null ? 0 : align(OBJECT_HEADER);
+        }
+    },
+
+    /**
+     * Estimate strings, boxed primitives and arrays by their contents,
+     * other objects shallowly. String is estimated in constant time
+     * as object with UTF-16 char array. Mutable objects, such as nested contexts,
+     * are estimated shallowly, because their estimation must not change
+     * while they are retained.
+     */
+    ESTIMATING {
+        @Override
+        public long sizeOf(Object value) {
+            if (value == null) {
+                return 0;
+            }
+            if (value instanceof String) {
+                return STRING + arrayFootprint(((String) value).length(), CHAR);
+            }
+            if (value instanceof Long || value instanceof Double) {
+                return align(OBJECT_HEADER + LONG);
+            }
+            if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+                return align(OBJECT_HEADER + INT);
+            }
+            Class<?> type = value.getClass();
+            if (type.isArray() && type.getComponentType().isPrimitive()) {
+                return arrayFootprint(Array.getLength(value), primitiveSize(type.getComponentType()));
+            }
+            if (value instanceof Object[]) {
+                return arrayFootprint(((Object[]) value).length, REFERENCE);
+            }
+            return align(OBJECT_HEADER);
+        }
+    };
+
+    /**
+     * Estimated size of object header.
+     */
+    public static final int OBJECT_HEADER = 12;
+
+    /**
+     * Estimated size of reference.
+     */
+    public static final int REFERENCE = 4;
+
+    /**
+     * Estimated size of array header.
+     */
+    public static final int ARRAY_HEADER = 16;
+
+    /**
+     * Size of boolean field.
+     */
+    public static final int BOOLEAN = 1;
+
+    /**
+     * Size of char field.
+     */
+    public static final int CHAR = 2;
+
+    /**
+     * Size of int or float field.
+     */
+    public static final int INT = 4;
+
+    /**
+     * Size of long or double field.
+     */
+    public static final int LONG = 8;
+
+    /**
+     * Estimated size of string without its char array: array reference and hash.
+     */
+    private static final long STRING = align(OBJECT_HEADER + REFERENCE + INT);
+
+    /**
+     * Align size to 8 bytes.
+     *
+     * @param size unaligned size
+     * @return aligned size
+     */
+    public static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+
+    /**
+     * Estimate size of array.
+     *
+     * @param length array length
+     * @param elementSize size of single element
+     * @return estimated number of bytes
+     */
+    public static long arrayFootprint(int length, int elementSize) {
+        return align(ARRAY_HEADER + (long) length * elementSize);
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return LONG;
+        } else if (type == int.class || type == float.class) {
+            return INT;
+        } else if (type == short.class || type == char.class) {
+            return CHAR;
+        } else {
+            return BOOLEAN;
+        }
+    }
+}
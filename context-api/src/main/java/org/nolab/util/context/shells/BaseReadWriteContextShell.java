@@ -0,0 +1,322 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.*;
+
+/**
+ * Thread-safe shell for encapsulating any {@link Context} instance,
+ * guarded by {@link ReentrantReadWriteLock}: read operations of different
+ * threads are run in parallel, modifying operations are exclusive.
+ * Only abstract methods and, {@link #equals(Object)} and {@link #toString()}
+ * are delegated to encapsulated implementation.
+ * Others are implemented by default.
+ * <p>Read lock cannot be upgraded, so functions and criteria, passed
+ * to read operations, must not modify this shell.
+ */
+public class BaseReadWriteContextShell implements Context, Serializable {
+
+    private static final long serialVersionUID = 5263174895310296718L;
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    /**
+     * Lock, guarding encapsulated instance.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * If this flag is {@code true}, copy methods
+     * will return copy of encapsulated instance in shell.
+     * Otherwise, return copy of encapsulated instance
+     * without shell.
+     */
+    private volatile boolean copyInShell = true;
+
+    /**
+     * Construct shell with encapsulated instance.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public BaseReadWriteContextShell(Context encapsulated) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+    }
+
+    /**
+     * Construct shell with encapsulated instance
+     * and {@code copyInShell} flag.
+     *
+     * @param encapsulated encapsulated instance
+     * @param copyInShell flag
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public BaseReadWriteContextShell(Context encapsulated, boolean copyInShell) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.copyInShell = copyInShell;
+    }
+
+    /**
+     * Get {@code copyInShell} flag.
+     *
+     * @return flag
+     */
+    public boolean isCopyInShell() {
+        return copyInShell;
+    }
+
+    /**
+     * Set {@code copyInShell} flag
+     *
+     * @param copyInShell flag
+     */
+    public void setCopyInShell(boolean copyInShell) {
+        this.copyInShell = copyInShell;
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.put(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.putIfAbsent(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.putIfKeyAbsent(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.getOrDefault(key, defaultValue);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.getOrCompute(key, function);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.getOrComputeAndPut(key, function);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.getOrComputeAndPut(key, valueType, function);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object remove(String key) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.remove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeExactly(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeOrCompute(key, function);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.containsValue(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.equals(obj);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context clear() {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Keys keys() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.keys();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Values values() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Entries entries() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.entries();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copy() {
+        lock.readLock().lock();
+        try {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy())
+                    : encapsulated.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copy(BiPredicate<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy(criteria))
+                    : encapsulated.copy(criteria);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.filter(criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -29,6 +29,36 @@ public class BaseSyncContextShell implements Context, Serializable {
      */
     private volatile boolean copyInShell = true;
 
+    /**
+     * If this flag is {@code true}, compute methods call functions
+     * without holding shell monitor. Concurrent callers of compute-and-put
+     * methods for the same key wait for single running computation,
+     * callers for other keys are not blocked.
+     * Otherwise, functions are called under monitor.
+     */
+    private volatile boolean computeOutsideLock = false;
+
+    /**
+     * Running computations, guarded by shell monitor.
+     */
+    private transient SingleFlight flights;
+
+    /**
+     * If this flag is {@code true}, iteration and transfer methods capture
+     * snapshot of encapsulated instance under monitor and iterate it
+     * without holding monitor. Snapshot is reused until next modification.
+     * Otherwise, these methods are run under monitor.
+     * <p>Encapsulated instance must be modified only through this shell,
+     * otherwise reused snapshot may be stale.
+     */
+    private volatile boolean snapshotIteration = false;
+
+    /**
+     * Last captured snapshot, guarded by shell monitor.
+     * Dropped by every modification, so removed values are not retained.
+     */
+    private transient Object[] snapshot;
+
     /**
      * Construct shell with encapsulated instance.
      *
@@ -70,6 +100,67 @@ public class BaseSyncContextShell implements Context, Serializable {
         this.copyInShell = copyInShell;
     }
 
+    /**
+     * Get {@code computeOutsideLock} flag.
+     *
+     * @return flag
+     */
+    public boolean isComputeOutsideLock() {
+        return computeOutsideLock;
+    }
+
+    /**
+     * Set {@code computeOutsideLock} flag
+     *
+     * @param computeOutsideLock flag
+     */
+    public void setComputeOutsideLock(boolean computeOutsideLock) {
+        this.computeOutsideLock = computeOutsideLock;
+    }
+
+    /**
+     * Get {@code snapshotIteration} flag.
+     *
+     * @return flag
+     */
+    public boolean isSnapshotIteration() {
+        return snapshotIteration;
+    }
+
+    /**
+     * Set {@code snapshotIteration} flag
+     *
+     * @param snapshotIteration flag
+     */
+    public void setSnapshotIteration(boolean snapshotIteration) {
+        this.snapshotIteration = snapshotIteration;
+    }
+
+    /**
+     * Get registry of running computations.
+     *
+     * @return registry
+     */
+    private synchronized SingleFlight flights() {
+        if (flights == null) {
+            flights = new SingleFlight();
+        }
+        return flights;
+    }
+
+    /**
+     * Get snapshot of encapsulated instance. Snapshot is captured
+     * only if instance was modified since previous capture.
+     *
+     * @return snapshot
+     */
+    private synchronized Object[] snapshot() {
+        if (snapshot == null) {
+            snapshot = ContextSnapshot.capture(encapsulated);
+        }
+        return snapshot;
+    }
+
     @Override
     public String toString() {
         return encapsulated.toString();
@@ -77,6 +168,7 @@ public class BaseSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Object put(String key, Object value) {
+        snapshot = null;
         return encapsulated.put(key, value);
     }
 
@@ -87,11 +179,13 @@ public class BaseSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Object putIfAbsent(String key, Object value) {
+        snapshot = null;
         return encapsulated.putIfAbsent(key, value);
     }
 
     @Override
     public synchronized Object putIfKeyAbsent(String key, Object value) {
+        snapshot = null;
         return encapsulated.putIfKeyAbsent(key, value);
     }
 
@@ -101,33 +195,83 @@ public class BaseSyncContextShell implements Context, Serializable {
     }
 
     @Override
-    public synchronized Object getOrCompute(String key, Function<String, Object> function) {
-        return encapsulated.getOrCompute(key, function);
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                return encapsulated.getOrCompute(key, function);
+            }
+        }
+        Objects.requireNonNull(function);
+        return flights().compute(this, key,
+                () -> encapsulated.getOrDefault(key, SingleFlight.ABSENT), function, null);
     }
 
     @Override
-    public synchronized Object getOrComputeAndPut(String key, Function<String, Object> function) {
-        return encapsulated.getOrComputeAndPut(key, function);
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                snapshot = null;
+                return encapsulated.getOrComputeAndPut(key, function);
+            }
+        }
+        Objects.requireNonNull(function);
+        return flights().compute(this, key,
+                () -> encapsulated.getOrDefault(key, SingleFlight.ABSENT), function,
+                value -> {
+                    snapshot = null;
+                    return encapsulated.getOrComputeAndPut(key, k -> value);
+                });
     }
 
     @Override
-    public synchronized <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
-        return encapsulated.getOrComputeAndPut(key, valueType, function);
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                snapshot = null;
+                return encapsulated.getOrComputeAndPut(key, valueType, function);
+            }
+        }
+        Objects.requireNonNull(valueType);
+        Objects.requireNonNull(function);
+        return flights().compute(this, key, () -> {
+            Object value = encapsulated.get(key);
+            return valueType.isInstance(value) ? value : SingleFlight.ABSENT;
+        }, function, value -> {
+            snapshot = null;
+            return encapsulated.getOrComputeAndPut(key, valueType, k -> value);
+        });
     }
 
     @Override
     public synchronized Object remove(String key) {
+        snapshot = null;
         return encapsulated.remove(key);
     }
 
     @Override
     public synchronized boolean removeExactly(String key, Object value) {
+        snapshot = null;
         return encapsulated.removeExactly(key, value);
     }
 
     @Override
-    public synchronized Object removeOrCompute(String key, Function<String, Object> function) {
-        return encapsulated.removeOrCompute(key, function);
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                snapshot = null;
+                return encapsulated.removeOrCompute(key, function);
+            }
+        }
+        Objects.requireNonNull(function);
+        synchronized (this) {
+            Object value = encapsulated.getOrDefault(key, SingleFlight.ABSENT);
+            if (value != SingleFlight.ABSENT) {
+                snapshot = null;
+                encapsulated.remove(key);
+                return value;
+            }
+        }
+        return function.apply(key);
     }
 
     @Override
@@ -157,22 +301,38 @@ public class BaseSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Context clear() {
+        snapshot = null;
         return encapsulated.clear();
     }
 
     @Override
-    public synchronized Keys keys() {
-        return encapsulated.keys();
+    public Keys keys() {
+        if (snapshotIteration) {
+            return ContextSnapshot.keys(snapshot());
+        }
+        synchronized (this) {
+            return encapsulated.keys();
+        }
     }
 
     @Override
-    public synchronized Values values() {
-        return encapsulated.values();
+    public Values values() {
+        if (snapshotIteration) {
+            return ContextSnapshot.values(snapshot());
+        }
+        synchronized (this) {
+            return encapsulated.values();
+        }
     }
 
     @Override
-    public synchronized Entries entries() {
-        return encapsulated.entries();
+    public Entries entries() {
+        if (snapshotIteration) {
+            return ContextSnapshot.entries(snapshot());
+        }
+        synchronized (this) {
+            return encapsulated.entries();
+        }
     }
 
     @Override
@@ -191,6 +351,7 @@ public class BaseSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Context filter(BiPredicate<String, Object> criteria) {
+        snapshot = null;
         encapsulated.filter(criteria);
         return this;
     }
@@ -0,0 +1,559 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.*;
+
+/**
+ * Thread-safe shell for encapsulating any {@link Context} instance,
+ * biased to single owner thread. Owner is the first thread, that uses shell.
+ * While shell is used by owner only, operations are run without locking:
+ * owner only announces running operation by volatile write.
+ * When other thread uses shell for the first time, shell is inflated:
+ * that thread waits, until running operation of owner is finished,
+ * and since then all operations of all threads are synchronized.
+ * Inflation is never reverted.
+ * Only abstract methods and, {@link #equals(Object)} and {@link #toString()}
+ * are delegated to encapsulated implementation.
+ * Others are implemented by default.
+ */
+public class BiasedSyncContextShell implements Context, Serializable {
+
+    private static final long serialVersionUID = 3308517094622871645L;
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    /**
+     * If this flag is {@code true}, copy methods
+     * will return copy of encapsulated instance in shell.
+     * Otherwise, return copy of encapsulated instance
+     * without shell.
+     */
+    private volatile boolean copyInShell = true;
+
+    private static final AtomicReferenceFieldUpdater<BiasedSyncContextShell, Thread> OWNER =
+            AtomicReferenceFieldUpdater.newUpdater(BiasedSyncContextShell.class, Thread.class, "owner");
+    private static final AtomicIntegerFieldUpdater<BiasedSyncContextShell> INFLATED =
+            AtomicIntegerFieldUpdater.newUpdater(BiasedSyncContextShell.class, "inflated");
+    private static final AtomicIntegerFieldUpdater<BiasedSyncContextShell> OWNER_DEPTH =
+            AtomicIntegerFieldUpdater.newUpdater(BiasedSyncContextShell.class, "ownerDepth");
+
+    /**
+     * Number of yields of inflating thread before parking.
+     */
+    private static final int OWNER_SPINS = 64;
+    private static final long MIN_PARK_NANOS = 10_000L;
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+
+    private static final LongAdder CREATED = new LongAdder();
+    private static final LongAdder INFLATIONS = new LongAdder();
+
+    /**
+     * Owner thread, {@code null} until first use.
+     * Not serialized, so deserialized shell is biased again.
+     */
+    private transient volatile Thread owner;
+
+    /**
+     * {@code 1} if shell is inflated, {@code 0} otherwise.
+     */
+    private transient volatile int inflated;
+
+    /**
+     * Depth of operations, that are run by owner without locking.
+     * Written by owner only.
+     */
+    private transient volatile int ownerDepth;
+
+    /**
+     * Construct shell with encapsulated instance.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public BiasedSyncContextShell(Context encapsulated) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        CREATED.increment();
+    }
+
+    /**
+     * Construct shell with encapsulated instance
+     * and {@code copyInShell} flag.
+     *
+     * @param encapsulated encapsulated instance
+     * @param copyInShell flag
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public BiasedSyncContextShell(Context encapsulated, boolean copyInShell) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.copyInShell = copyInShell;
+        CREATED.increment();
+    }
+
+    /**
+     * Get {@code copyInShell} flag.
+     *
+     * @return flag
+     */
+    public boolean isCopyInShell() {
+        return copyInShell;
+    }
+
+    /**
+     * Set {@code copyInShell} flag
+     *
+     * @param copyInShell flag
+     */
+    public void setCopyInShell(boolean copyInShell) {
+        this.copyInShell = copyInShell;
+    }
+
+    /**
+     * Get owner thread.
+     *
+     * @return owner or {@code null}, if shell was not used yet
+     */
+    public Thread getOwner() {
+        return owner;
+    }
+
+    /**
+     * Check, if shell is inflated, so all operations are synchronized.
+     *
+     * @return {@code true} if shell is inflated
+     */
+    public boolean isInflated() {
+        return inflated != 0;
+    }
+
+    /**
+     * Get number of biased shells, created in this JVM.
+     *
+     * @return number of created shells
+     */
+    public static long getCreatedCount() {
+        return CREATED.sum();
+    }
+
+    /**
+     * Get number of inflations of biased shells in this JVM.
+     *
+     * @return number of inflations
+     */
+    public static long getInflationCount() {
+        return INFLATIONS.sum();
+    }
+
+    /**
+     * Try to start operation without locking.
+     * Owner announces operation by volatile write of depth and then checks,
+     * that shell is not inflated. Inflating thread sets flag and then waits
+     * for zero depth, so they never run operations concurrently.
+     *
+     * @return {@code true} if operation may be run without locking
+     * and {@link #exitBiased()} must be called after it
+     */
+    private boolean enterBiased() {
+        if (inflated != 0) {
+            awaitOwner();
+            return false;
+        }
+        Thread current = Thread.currentThread();
+        Thread owner = this.owner;
+        if (owner == null && OWNER.compareAndSet(this, null, current)) {
+            owner = current;
+        } else if (owner == null) {
+            owner = this.owner;
+        }
+        if (owner != current) {
+            if (INFLATED.compareAndSet(this, 0, 1)) {
+                INFLATIONS.increment();
+            }
+            awaitOwner();
+            return false;
+        }
+        int depth = ownerDepth;
+        ownerDepth = depth + 1;
+        if (inflated != 0) {
+            OWNER_DEPTH.lazySet(this, depth);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finish operation, run without locking.
+     */
+    private void exitBiased() {
+        OWNER_DEPTH.lazySet(this, ownerDepth - 1);
+    }
+
+    /**
+     * Wait until owner finishes operations, started before inflation.
+     * Owner itself does not wait. Waiting thread yields {@link #OWNER_SPINS}
+     * times and then parks with growing timeout, so long operation of owner,
+     * such as computing function, does not occupy processor.
+     */
+    private void awaitOwner() {
+        if (owner == Thread.currentThread()) {
+            return;
+        }
+        int spins = 0;
+        long parkNanos = MIN_PARK_NANOS;
+        while (ownerDepth != 0) {
+            if (spins < OWNER_SPINS) {
+                spins++;
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(this, parkNanos);
+                parkNanos = Math.min(parkNanos << 1, MAX_PARK_NANOS);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.put(key, value);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.put(key, value);
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.get(key);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.get(key);
+        }
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.putIfAbsent(key, value);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.putIfAbsent(key, value);
+        }
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.putIfKeyAbsent(key, value);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.putIfKeyAbsent(key, value);
+        }
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.getOrDefault(key, defaultValue);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.getOrDefault(key, defaultValue);
+        }
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.getOrCompute(key, function);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.getOrCompute(key, function);
+        }
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.getOrComputeAndPut(key, function);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.getOrComputeAndPut(key, function);
+        }
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.getOrComputeAndPut(key, valueType, function);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.getOrComputeAndPut(key, valueType, function);
+        }
+    }
+
+    @Override
+    public Object remove(String key) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.remove(key);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.remove(key);
+        }
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.removeExactly(key, value);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.removeExactly(key, value);
+        }
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.removeOrCompute(key, function);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.removeOrCompute(key, function);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.containsKey(key);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.containsKey(key);
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.containsValue(value);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.containsValue(value);
+        }
+    }
+
+    @Override
+    public int size() {
+        if (enterBiased()) {
+            try {
+                return encapsulated.size();
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.size();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (enterBiased()) {
+            try {
+                return encapsulated.isEmpty();
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.isEmpty();
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (enterBiased()) {
+            try {
+                return encapsulated.equals(obj);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.equals(obj);
+        }
+    }
+
+    @Override
+    public Context clear() {
+        if (enterBiased()) {
+            try {
+                return encapsulated.clear();
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.clear();
+        }
+    }
+
+    @Override
+    public Keys keys() {
+        if (enterBiased()) {
+            try {
+                return encapsulated.keys();
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.keys();
+        }
+    }
+
+    @Override
+    public Values values() {
+        if (enterBiased()) {
+            try {
+                return encapsulated.values();
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.values();
+        }
+    }
+
+    @Override
+    public Entries entries() {
+        if (enterBiased()) {
+            try {
+                return encapsulated.entries();
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return encapsulated.entries();
+        }
+    }
+
+    @Override
+    public Context copy() {
+        if (enterBiased()) {
+            try {
+                return copyInShell
+                        ? new BaseContextShell(encapsulated.copy())
+                        : encapsulated.copy();
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy())
+                    : encapsulated.copy();
+        }
+    }
+
+    @Override
+    public Context copy(BiPredicate<String, Object> criteria) {
+        if (enterBiased()) {
+            try {
+                return copyInShell
+                        ? new BaseContextShell(encapsulated.copy(criteria))
+                        : encapsulated.copy(criteria);
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy(criteria))
+                    : encapsulated.copy(criteria);
+        }
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        if (enterBiased()) {
+            try {
+                encapsulated.filter(criteria);
+                return this;
+            } finally {
+                exitBiased();
+            }
+        }
+        synchronized (this) {
+            encapsulated.filter(criteria);
+            return this;
+        }
+    }
+}
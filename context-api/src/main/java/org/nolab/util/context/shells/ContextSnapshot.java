@@ -0,0 +1,112 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Flat array snapshot of context mappings: keys at even indices,
+ * values at odd ones. Snapshot is captured by shell under its lock,
+ * views are iterated outside of lock. Snapshot is never modified
+ * after capture, so it may be shared by any number of views.
+ */
+final class ContextSnapshot {
+
+    private ContextSnapshot() {
+    }
+
+    /**
+     * Copy mappings of context to new array.
+     *
+     * @param context context, locked by caller
+     * @return snapshot
+     */
+    static Object[] capture(Context context) {
+        Object[] data = new Object[context.size() * 2];
+        int i = 0;
+        for (Context.Entry entry : context.entries()) {
+            if (i == data.length) {
+                data = Arrays.copyOf(data, Math.max(2, data.length * 2));
+            }
+            data[i++] = entry.getKey();
+            data[i++] = entry.getValue();
+        }
+        return i == data.length ? data : Arrays.copyOf(data, i);
+    }
+
+    static Context.Keys keys(Object[] data) {
+        return () -> new SnapshotIterator<>(data, 0);
+    }
+
+    static Context.Values values(Object[] data) {
+        return () -> new SnapshotIterator<>(data, 1);
+    }
+
+    static Context.Entries entries(Object[] data) {
+        return () -> new SnapshotIterator<Context.Entry>(data, -1);
+    }
+
+    /**
+     * Iterator over snapshot, that returns keys, values or entries.
+     * Removal is not supported.
+     */
+    private static final class SnapshotIterator<T> implements Iterator<T> {
+
+        private final Object[] data;
+        private final int shift;
+        private int index;
+
+        /**
+         * @param data snapshot
+         * @param shift {@code 0} for keys, {@code 1} for values, {@code -1} for entries
+         */
+        SnapshotIterator(Object[] data, int shift) {
+            this.data = data;
+            this.shift = shift;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < data.length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+            if (index >= data.length) {
+                throw new NoSuchElementException();
+            }
+            int i = index;
+            index += 2;
+            return (T) (shift < 0 ? new SnapshotEntry((String) data[i], data[i + 1]) : data[i + shift]);
+        }
+    }
+
+    private static final class SnapshotEntry implements Context.Entry {
+
+        private final String key;
+        private final Object value;
+
+        SnapshotEntry(String key, Object value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+}
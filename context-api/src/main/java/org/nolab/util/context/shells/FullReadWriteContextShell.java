@@ -0,0 +1,820 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.*;
+
+/**
+ * Thread-safe shell for encapsulating any {@link Context} instance,
+ * guarded by {@link ReentrantReadWriteLock}: read operations of different
+ * threads are run in parallel, modifying operations are exclusive.
+ * All methods are delegated to encapsulated implementation.
+ * <p>Read lock cannot be upgraded, so functions, criteria and actions,
+ * passed to read operations, must not modify this shell.
+ */
+public class FullReadWriteContextShell implements Context, Serializable {
+
+    private static final long serialVersionUID = -1187325409623480571L;
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    /**
+     * Lock, guarding encapsulated instance.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * If this flag is {@code true}, copy methods
+     * will return copy of encapsulated instance in shell.
+     * Otherwise, return copy of encapsulated instance
+     * without shell.
+     */
+    private volatile boolean copyInShell = true;
+
+    /**
+     * Construct shell with encapsulated instance.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public FullReadWriteContextShell(Context encapsulated) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+    }
+
+    /**
+     * Construct shell with encapsulated instance
+     * and {@code copyInShell} flag.
+     *
+     * @param encapsulated encapsulated instance
+     * @param copyInShell flag
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public FullReadWriteContextShell(Context encapsulated, boolean copyInShell) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.copyInShell = copyInShell;
+    }
+
+    /**
+     * Get {@code copyInShell} flag.
+     *
+     * @return flag
+     */
+    public boolean isCopyInShell() {
+        lock.readLock().lock();
+        try {
+            return copyInShell;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Set {@code copyInShell} flag
+     *
+     * @param copyInShell flag
+     */
+    public void setCopyInShell(boolean copyInShell) {
+        lock.writeLock().lock();
+        try {
+            this.copyInShell = copyInShell;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Check given object != this.
+     *
+     * @param obj object to check
+     * @throws IllegalArgumentException if given object == this
+     */
+    private void checkNotThis(Object obj) {
+        if (obj == this) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.put(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> valueType) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.get(key, valueType);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.putIfAbsent(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.putIfKeyAbsent(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.getOrDefault(key, defaultValue);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T getOrDefault(String key, Class<T> valueType, T defaultValue) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.getOrDefault(key, valueType, defaultValue);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.getOrCompute(key, function);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T getOrCompute(String key, Class<T> valueType, Function<String, T> function) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.getOrCompute(key, valueType, function);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.getOrComputeAndPut(key, function);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.getOrComputeAndPut(key, valueType, function);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object remove(String key) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.remove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeExactly(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean remove(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.remove(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T removeOfType(String key, Class<T> valueType) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeOfType(key, valueType);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object removeOrGetDefault(String key, Object defaultValue) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeOrGetDefault(key, defaultValue);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T removeOrGetDefault(String key, Class<T> valueType, T defaultValue) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeOrGetDefault(key, valueType, defaultValue);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeOrCompute(key, function);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T removeOrCompute(String key, Class<T> valueType, Function<String, T> function) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeOrCompute(key, valueType, function);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.containsValue(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.equals(obj);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context clear() {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Keys keys() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.keys();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Values values() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Entries entries() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.entries();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copy() {
+        lock.readLock().lock();
+        try {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy())
+                    : encapsulated.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copy(BiPredicate<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy(criteria))
+                    : encapsulated.copy(criteria);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.filter(criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor) {
+        lock.readLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor, ReplaceRule replaceRule) {
+        lock.readLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor, replaceRule);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor, BiPredicate<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor, ReplaceRule replaceRule,
+                          BiPredicate<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor, ReplaceRule replaceRule) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor, replaceRule);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor, BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor, ReplaceRule replaceRule,
+                           BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source, ReplaceRule replaceRule) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source, BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source, ReplaceRule replaceRule,
+                            BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source, ReplaceRule replaceRule) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source, BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source, ReplaceRule replaceRule,
+                             BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor) {
+        lock.readLock().lock();
+        try {
+            encapsulated.copyTo(acceptor);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor, boolean replace) {
+        lock.readLock().lock();
+        try {
+            encapsulated.copyTo(acceptor, replace);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            encapsulated.copyTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor, boolean replace,
+                          BiPredicate<String, Object> criteria) {
+        lock.readLock().lock();
+        try {
+            encapsulated.copyTo(acceptor, replace, criteria);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainTo(acceptor);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor, boolean replace) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainTo(acceptor, replace);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor, boolean replace,
+                           BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainTo(acceptor, replace, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.copyFrom(source);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source, ReplaceRule replaceRule) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.copyFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source, BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.copyFrom(source, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source, ReplaceRule replaceRule,
+                            BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.copyFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainFrom(source);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source, ReplaceRule replaceRule) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source, BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainFrom(source, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source, ReplaceRule replaceRule,
+                             BiPredicate<String, Object> criteria) {
+        lock.writeLock().lock();
+        try {
+            encapsulated.drainFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Context forEach(BiConsumer<String, Object> action) {
+        lock.readLock().lock();
+        try {
+            encapsulated.forEach(action);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Context forEach(BiPredicate<String, Object> criteria, BiConsumer<String, Object> action) {
+        lock.readLock().lock();
+        try {
+            encapsulated.forEach(criteria, action);
+            return this;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
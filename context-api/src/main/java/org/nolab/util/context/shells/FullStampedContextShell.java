@@ -0,0 +1,820 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.*;
+
+/**
+ * Thread-safe shell for encapsulating any {@link Context} instance,
+ * guarded by {@link StampedLock}. Lookups and size queries are tried
+ * as optimistic reads without locking and are repeated under read lock,
+ * if concurrent modification happened. Other read operations are run
+ * under read lock, modifying operations are exclusive.
+ * All methods are delegated to encapsulated implementation.
+ * <p>Optimistic reads require, that lookups of encapsulated instance
+ * terminate, when they are run concurrently with modification;
+ * runtime exceptions of such lookups are discarded.
+ * {@link StampedLock} is not reentrant, so functions, criteria and actions,
+ * passed to operations, must not use this shell.
+ */
+public class FullStampedContextShell implements Context, Serializable {
+
+    private static final long serialVersionUID = 2409175534861923062L;
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    /**
+     * Lock, guarding encapsulated instance.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * If this flag is {@code true}, copy methods
+     * will return copy of encapsulated instance in shell.
+     * Otherwise, return copy of encapsulated instance
+     * without shell.
+     */
+    private volatile boolean copyInShell = true;
+
+    /**
+     * Construct shell with encapsulated instance.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public FullStampedContextShell(Context encapsulated) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+    }
+
+    /**
+     * Construct shell with encapsulated instance
+     * and {@code copyInShell} flag.
+     *
+     * @param encapsulated encapsulated instance
+     * @param copyInShell flag
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public FullStampedContextShell(Context encapsulated, boolean copyInShell) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.copyInShell = copyInShell;
+    }
+
+    /**
+     * Get {@code copyInShell} flag.
+     *
+     * @return flag
+     */
+    public boolean isCopyInShell() {
+        long stamp = lock.readLock();
+        try {
+            return copyInShell;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Set {@code copyInShell} flag
+     *
+     * @param copyInShell flag
+     */
+    public void setCopyInShell(boolean copyInShell) {
+        long stamp = lock.writeLock();
+        try {
+            this.copyInShell = copyInShell;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Check given object != this.
+     *
+     * @param obj object to check
+     * @throws IllegalArgumentException if given object == this
+     */
+    private void checkNotThis(Object obj) {
+        if (obj == this) {
+            throw new IllegalArgumentException();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.put(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        return optimisticRead(() -> encapsulated.get(key));
+    }
+
+    @Override
+    public <T> T get(String key, Class<T> valueType) {
+        return optimisticRead(() -> encapsulated.get(key, valueType));
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.putIfAbsent(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.putIfKeyAbsent(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        return optimisticRead(() -> encapsulated.getOrDefault(key, defaultValue));
+    }
+
+    @Override
+    public <T> T getOrDefault(String key, Class<T> valueType, T defaultValue) {
+        return optimisticRead(() -> encapsulated.getOrDefault(key, valueType, defaultValue));
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.getOrCompute(key, function);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public <T> T getOrCompute(String key, Class<T> valueType, Function<String, T> function) {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.getOrCompute(key, valueType, function);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.getOrComputeAndPut(key, function);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.getOrComputeAndPut(key, valueType, function);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object remove(String key) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.remove(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.removeExactly(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean remove(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.remove(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public <T> T removeOfType(String key, Class<T> valueType) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.removeOfType(key, valueType);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object removeOrGetDefault(String key, Object defaultValue) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.removeOrGetDefault(key, defaultValue);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public <T> T removeOrGetDefault(String key, Class<T> valueType, T defaultValue) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.removeOrGetDefault(key, valueType, defaultValue);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.removeOrCompute(key, function);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public <T> T removeOrCompute(String key, Class<T> valueType, Function<String, T> function) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.removeOrCompute(key, valueType, function);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return optimisticRead(() -> encapsulated.containsKey(key));
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.containsValue(value);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public int size() {
+        return optimisticRead(() -> encapsulated.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return optimisticRead(() -> encapsulated.isEmpty());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.equals(obj);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context clear() {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Keys keys() {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.keys();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Values values() {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.values();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Entries entries() {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.entries();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copy() {
+        long stamp = lock.readLock();
+        try {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy())
+                    : encapsulated.copy();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copy(BiPredicate<String, Object> criteria) {
+        long stamp = lock.readLock();
+        try {
+            return copyInShell
+                    ? new BaseContextShell(encapsulated.copy(criteria))
+                    : encapsulated.copy(criteria);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.filter(criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor) {
+        long stamp = lock.readLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor, ReplaceRule replaceRule) {
+        long stamp = lock.readLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor, replaceRule);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor, BiPredicate<String, Object> criteria) {
+        long stamp = lock.readLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Context acceptor, ReplaceRule replaceRule,
+                          BiPredicate<String, Object> criteria) {
+        long stamp = lock.readLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.copyTo(acceptor, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor, ReplaceRule replaceRule) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor, replaceRule);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor, BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Context acceptor, ReplaceRule replaceRule,
+                           BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(acceptor);
+            encapsulated.drainTo(acceptor, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source, ReplaceRule replaceRule) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source, BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Context source, ReplaceRule replaceRule,
+                            BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.copyFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source, ReplaceRule replaceRule) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source, BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Context source, ReplaceRule replaceRule,
+                             BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            checkNotThis(source);
+            encapsulated.drainFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor) {
+        long stamp = lock.readLock();
+        try {
+            encapsulated.copyTo(acceptor);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor, boolean replace) {
+        long stamp = lock.readLock();
+        try {
+            encapsulated.copyTo(acceptor, replace);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
+        long stamp = lock.readLock();
+        try {
+            encapsulated.copyTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context copyTo(Map<String, Object> acceptor, boolean replace,
+                          BiPredicate<String, Object> criteria) {
+        long stamp = lock.readLock();
+        try {
+            encapsulated.copyTo(acceptor, replace, criteria);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainTo(acceptor);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor, boolean replace) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainTo(acceptor, replace);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainTo(acceptor, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainTo(Map<String, Object> acceptor, boolean replace,
+                           BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainTo(acceptor, replace, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.copyFrom(source);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source, ReplaceRule replaceRule) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.copyFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source, BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.copyFrom(source, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context copyFrom(Map<String, Object> source, ReplaceRule replaceRule,
+                            BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.copyFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainFrom(source);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source, ReplaceRule replaceRule) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainFrom(source, replaceRule);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source, BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainFrom(source, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context drainFrom(Map<String, Object> source, ReplaceRule replaceRule,
+                             BiPredicate<String, Object> criteria) {
+        long stamp = lock.writeLock();
+        try {
+            encapsulated.drainFrom(source, replaceRule, criteria);
+            return this;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Context forEach(BiConsumer<String, Object> action) {
+        long stamp = lock.readLock();
+        try {
+            encapsulated.forEach(action);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Context forEach(BiPredicate<String, Object> criteria, BiConsumer<String, Object> action) {
+        long stamp = lock.readLock();
+        try {
+            encapsulated.forEach(criteria, action);
+            return this;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Run read operation as optimistic read without locking and repeat it
+     * under read lock, if concurrent modification happened. Runtime exception
+     * of optimistic read is thrown only if no modification happened.
+     *
+     * @param read read operation
+     * @return result of operation
+     */
+    private <T> T optimisticRead(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T result = read.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
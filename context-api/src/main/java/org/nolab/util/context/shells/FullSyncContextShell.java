@@ -27,6 +27,36 @@ public class FullSyncContextShell implements Context, Serializable {
      */
     private volatile boolean copyInShell = true;
 
+    /**
+     * If this flag is {@code true}, compute methods call functions
+     * without holding shell monitor. Concurrent callers of compute-and-put
+     * methods for the same key wait for single running computation,
+     * callers for other keys are not blocked.
+     * Otherwise, functions are called under monitor.
+     */
+    private volatile boolean computeOutsideLock = false;
+
+    /**
+     * Running computations, guarded by shell monitor.
+     */
+    private transient SingleFlight flights;
+
+    /**
+     * If this flag is {@code true}, iteration and transfer methods capture
+     * snapshot of encapsulated instance under monitor and iterate it
+     * without holding monitor. Snapshot is reused until next modification.
+     * Otherwise, these methods are run under monitor.
+     * <p>Encapsulated instance must be modified only through this shell,
+     * otherwise reused snapshot may be stale.
+     */
+    private volatile boolean snapshotIteration = false;
+
+    /**
+     * Last captured snapshot, guarded by shell monitor.
+     * Dropped by every modification, so removed values are not retained.
+     */
+    private transient Object[] snapshot;
+
     /**
      * Construct shell with encapsulated instance.
      *
@@ -68,6 +98,67 @@ public class FullSyncContextShell implements Context, Serializable {
         this.copyInShell = copyInShell;
     }
 
+    /**
+     * Get {@code computeOutsideLock} flag.
+     *
+     * @return flag
+     */
+    public boolean isComputeOutsideLock() {
+        return computeOutsideLock;
+    }
+
+    /**
+     * Set {@code computeOutsideLock} flag
+     *
+     * @param computeOutsideLock flag
+     */
+    public void setComputeOutsideLock(boolean computeOutsideLock) {
+        this.computeOutsideLock = computeOutsideLock;
+    }
+
+    /**
+     * Get {@code snapshotIteration} flag.
+     *
+     * @return flag
+     */
+    public boolean isSnapshotIteration() {
+        return snapshotIteration;
+    }
+
+    /**
+     * Set {@code snapshotIteration} flag
+     *
+     * @param snapshotIteration flag
+     */
+    public void setSnapshotIteration(boolean snapshotIteration) {
+        this.snapshotIteration = snapshotIteration;
+    }
+
+    /**
+     * Get registry of running computations.
+     *
+     * @return registry
+     */
+    private synchronized SingleFlight flights() {
+        if (flights == null) {
+            flights = new SingleFlight();
+        }
+        return flights;
+    }
+
+    /**
+     * Get snapshot of encapsulated instance. Snapshot is captured
+     * only if instance was modified since previous capture.
+     *
+     * @return snapshot
+     */
+    private synchronized Object[] snapshot() {
+        if (snapshot == null) {
+            snapshot = ContextSnapshot.capture(encapsulated);
+        }
+        return snapshot;
+    }
+
     /**
      * Check given object != this.
      *
@@ -87,6 +178,7 @@ public class FullSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Object put(String key, Object value) {
+        snapshot = null;
         return encapsulated.put(key, value);
     }
 
@@ -102,11 +194,13 @@ public class FullSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Object putIfAbsent(String key, Object value) {
+        snapshot = null;
         return encapsulated.putIfAbsent(key, value);
     }
 
     @Override
     public synchronized Object putIfKeyAbsent(String key, Object value) {
+        snapshot = null;
         return encapsulated.putIfKeyAbsent(key, value);
     }
 
@@ -121,63 +215,144 @@ public class FullSyncContextShell implements Context, Serializable {
     }
 
     @Override
-    public synchronized Object getOrCompute(String key, Function<String, Object> function) {
-        return encapsulated.getOrCompute(key, function);
-    }
-
-    @Override
-    public synchronized <T> T getOrCompute(String key, Class<T> valueType, Function<String, T> function) {
-        return encapsulated.getOrCompute(key, valueType, function);
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                return encapsulated.getOrCompute(key, function);
+            }
+        }
+        Objects.requireNonNull(function);
+        return flights().compute(this, key,
+                () -> encapsulated.getOrDefault(key, SingleFlight.ABSENT), function, null);
     }
 
     @Override
-    public synchronized Object getOrComputeAndPut(String key, Function<String, Object> function) {
-        return encapsulated.getOrComputeAndPut(key, function);
+    public <T> T getOrCompute(String key, Class<T> valueType, Function<String, T> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                return encapsulated.getOrCompute(key, valueType, function);
+            }
+        }
+        Objects.requireNonNull(valueType);
+        Objects.requireNonNull(function);
+        return flights().compute(this, key, () -> {
+            Object value = encapsulated.get(key);
+            return valueType.isInstance(value) ? value : SingleFlight.ABSENT;
+        }, function, null);
     }
 
     @Override
-    public synchronized <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
-        return encapsulated.getOrComputeAndPut(key, valueType, function);
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                snapshot = null;
+                return encapsulated.getOrComputeAndPut(key, function);
+            }
+        }
+        Objects.requireNonNull(function);
+        return flights().compute(this, key,
+                () -> encapsulated.getOrDefault(key, SingleFlight.ABSENT), function,
+                value -> {
+                    snapshot = null;
+                    return encapsulated.getOrComputeAndPut(key, k -> value);
+                });
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                snapshot = null;
+                return encapsulated.getOrComputeAndPut(key, valueType, function);
+            }
+        }
+        Objects.requireNonNull(valueType);
+        Objects.requireNonNull(function);
+        return flights().compute(this, key, () -> {
+            Object value = encapsulated.get(key);
+            return valueType.isInstance(value) ? value : SingleFlight.ABSENT;
+        }, function, value -> {
+            snapshot = null;
+            return encapsulated.getOrComputeAndPut(key, valueType, k -> value);
+        });
     }
 
     @Override
     public synchronized Object remove(String key) {
+        snapshot = null;
         return encapsulated.remove(key);
     }
 
     @Override
     public synchronized boolean removeExactly(String key, Object value) {
+        snapshot = null;
         return encapsulated.removeExactly(key, value);
     }
 
     @Override
     public synchronized boolean remove(String key, Object value) {
+        snapshot = null;
         return encapsulated.remove(key, value);
     }
 
     @Override
     public synchronized <T> T removeOfType(String key, Class<T> valueType) {
+        snapshot = null;
         return encapsulated.removeOfType(key, valueType);
     }
 
     @Override
     public synchronized Object removeOrGetDefault(String key, Object defaultValue) {
+        snapshot = null;
         return encapsulated.removeOrGetDefault(key, defaultValue);
     }
 
     @Override
     public synchronized <T> T removeOrGetDefault(String key, Class<T> valueType, T defaultValue) {
+        snapshot = null;
         return encapsulated.removeOrGetDefault(key, valueType, defaultValue);
     }
 
     @Override
-    public synchronized Object removeOrCompute(String key, Function<String, Object> function) {
-        return encapsulated.removeOrCompute(key, function);
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                snapshot = null;
+                return encapsulated.removeOrCompute(key, function);
+            }
+        }
+        Objects.requireNonNull(function);
+        synchronized (this) {
+            Object value = encapsulated.getOrDefault(key, SingleFlight.ABSENT);
+            if (value != SingleFlight.ABSENT) {
+                snapshot = null;
+                encapsulated.remove(key);
+                return value;
+            }
+        }
+        return function.apply(key);
     }
 
     @Override
-    public synchronized <T> T removeOrCompute(String key, Class<T> valueType, Function<String, T> function) {
-        return encapsulated.removeOrCompute(key, valueType, function);
+    @SuppressWarnings("unchecked")
+    public <T> T removeOrCompute(String key, Class<T> valueType, Function<String, T> function) {
+        if (!computeOutsideLock) {
+            synchronized (this) {
+                snapshot = null;
+                return encapsulated.removeOrCompute(key, valueType, function);
+            }
+        }
+        Objects.requireNonNull(valueType);
+        Objects.requireNonNull(function);
+        synchronized (this) {
+            Object value = encapsulated.get(key);
+            if (valueType.isInstance(value)) {
+                snapshot = null;
+                encapsulated.removeExactly(key, value);
+                return (T) value;
+            }
+        }
+        return function.apply(key);
     }
 
     @Override
@@ -207,22 +382,38 @@ public class FullSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Context clear() {
+        snapshot = null;
         return encapsulated.clear();
     }
 
     @Override
-    public synchronized Keys keys() {
-        return encapsulated.keys();
+    public Keys keys() {
+        if (snapshotIteration) {
+            return ContextSnapshot.keys(snapshot());
+        }
+        synchronized (this) {
+            return encapsulated.keys();
+        }
     }
 
     @Override
-    public synchronized Values values() {
-        return encapsulated.values();
+    public Values values() {
+        if (snapshotIteration) {
+            return ContextSnapshot.values(snapshot());
+        }
+        synchronized (this) {
+            return encapsulated.values();
+        }
     }
 
     @Override
-    public synchronized Entries entries() {
-        return encapsulated.entries();
+    public Entries entries() {
+        if (snapshotIteration) {
+            return ContextSnapshot.entries(snapshot());
+        }
+        synchronized (this) {
+            return encapsulated.entries();
+        }
     }
 
     @Override
@@ -241,71 +432,117 @@ public class FullSyncContextShell implements Context, Serializable {
 
     @Override
     public synchronized Context filter(BiPredicate<String, Object> criteria) {
+        snapshot = null;
         encapsulated.filter(criteria);
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Context acceptor) {
+    public Context copyTo(Context acceptor) {
         checkNotThis(acceptor);
-        encapsulated.copyTo(acceptor);
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Context acceptor, ReplaceRule replaceRule) {
+    public Context copyTo(Context acceptor, ReplaceRule replaceRule) {
         checkNotThis(acceptor);
-        encapsulated.copyTo(acceptor, replaceRule);
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor, replaceRule);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor, replaceRule);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Context acceptor, BiPredicate<String, Object> criteria) {
+    public Context copyTo(Context acceptor, BiPredicate<String, Object> criteria) {
         checkNotThis(acceptor);
-        encapsulated.copyTo(acceptor, criteria);
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor, criteria);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor, criteria);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Context acceptor, ReplaceRule replaceRule,
+    public Context copyTo(Context acceptor, ReplaceRule replaceRule,
                           BiPredicate<String, Object> criteria) {
         checkNotThis(acceptor);
-        encapsulated.copyTo(acceptor, replaceRule, criteria);
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor, replaceRule, criteria);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor, replaceRule, criteria);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Context acceptor) {
+    public Context drainTo(Context acceptor) {
         checkNotThis(acceptor);
-        encapsulated.drainTo(acceptor);
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Context acceptor, ReplaceRule replaceRule) {
+    public Context drainTo(Context acceptor, ReplaceRule replaceRule) {
         checkNotThis(acceptor);
-        encapsulated.drainTo(acceptor, replaceRule);
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor, replaceRule);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor, replaceRule);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Context acceptor, BiPredicate<String, Object> criteria) {
+    public Context drainTo(Context acceptor, BiPredicate<String, Object> criteria) {
         checkNotThis(acceptor);
-        encapsulated.drainTo(acceptor, criteria);
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor, criteria);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor, criteria);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Context acceptor, ReplaceRule replaceRule,
+    public Context drainTo(Context acceptor, ReplaceRule replaceRule,
                            BiPredicate<String, Object> criteria) {
         checkNotThis(acceptor);
-        encapsulated.drainTo(acceptor, replaceRule, criteria);
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor, replaceRule, criteria);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor, replaceRule, criteria);
+        }
         return this;
     }
 
     @Override
     public synchronized Context copyFrom(Context source) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.copyFrom(source);
         return this;
     }
@@ -313,6 +550,7 @@ public class FullSyncContextShell implements Context, Serializable {
     @Override
     public synchronized Context copyFrom(Context source, ReplaceRule replaceRule) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.copyFrom(source, replaceRule);
         return this;
     }
@@ -320,6 +558,7 @@ public class FullSyncContextShell implements Context, Serializable {
     @Override
     public synchronized Context copyFrom(Context source, BiPredicate<String, Object> criteria) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.copyFrom(source, criteria);
         return this;
     }
@@ -328,6 +567,7 @@ public class FullSyncContextShell implements Context, Serializable {
     public synchronized Context copyFrom(Context source, ReplaceRule replaceRule,
                             BiPredicate<String, Object> criteria) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.copyFrom(source, replaceRule, criteria);
         return this;
     }
@@ -335,6 +575,7 @@ public class FullSyncContextShell implements Context, Serializable {
     @Override
     public synchronized Context drainFrom(Context source) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.drainFrom(source);
         return this;
     }
@@ -342,6 +583,7 @@ public class FullSyncContextShell implements Context, Serializable {
     @Override
     public synchronized Context drainFrom(Context source, ReplaceRule replaceRule) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.drainFrom(source, replaceRule);
         return this;
     }
@@ -349,6 +591,7 @@ public class FullSyncContextShell implements Context, Serializable {
     @Override
     public synchronized Context drainFrom(Context source, BiPredicate<String, Object> criteria) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.drainFrom(source, criteria);
         return this;
     }
@@ -357,74 +600,122 @@ public class FullSyncContextShell implements Context, Serializable {
     public synchronized Context drainFrom(Context source, ReplaceRule replaceRule,
                              BiPredicate<String, Object> criteria) {
         checkNotThis(source);
+        snapshot = null;
         encapsulated.drainFrom(source, replaceRule, criteria);
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Map<String, Object> acceptor) {
-        encapsulated.copyTo(acceptor);
+    public Context copyTo(Map<String, Object> acceptor) {
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Map<String, Object> acceptor, boolean replace) {
-        encapsulated.copyTo(acceptor, replace);
+    public Context copyTo(Map<String, Object> acceptor, boolean replace) {
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor, replace);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor, replace);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
-        encapsulated.copyTo(acceptor, criteria);
+    public Context copyTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor, criteria);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor, criteria);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context copyTo(Map<String, Object> acceptor, boolean replace,
+    public Context copyTo(Map<String, Object> acceptor, boolean replace,
                           BiPredicate<String, Object> criteria) {
-        encapsulated.copyTo(acceptor, replace, criteria);
+        if (snapshotIteration) {
+            return Context.super.copyTo(acceptor, replace, criteria);
+        }
+        synchronized (this) {
+            encapsulated.copyTo(acceptor, replace, criteria);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Map<String, Object> acceptor) {
-        encapsulated.drainTo(acceptor);
+    public Context drainTo(Map<String, Object> acceptor) {
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Map<String, Object> acceptor, boolean replace) {
-        encapsulated.drainTo(acceptor, replace);
+    public Context drainTo(Map<String, Object> acceptor, boolean replace) {
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor, replace);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor, replace);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
-        encapsulated.drainTo(acceptor, criteria);
+    public Context drainTo(Map<String, Object> acceptor, BiPredicate<String, Object> criteria) {
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor, criteria);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor, criteria);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context drainTo(Map<String, Object> acceptor, boolean replace,
+    public Context drainTo(Map<String, Object> acceptor, boolean replace,
                            BiPredicate<String, Object> criteria) {
-        encapsulated.drainTo(acceptor, replace, criteria);
+        if (snapshotIteration) {
+            return Context.super.drainTo(acceptor, replace, criteria);
+        }
+        synchronized (this) {
+            snapshot = null;
+            encapsulated.drainTo(acceptor, replace, criteria);
+        }
         return this;
     }
 
     @Override
     public synchronized Context copyFrom(Map<String, Object> source) {
+        snapshot = null;
         encapsulated.copyFrom(source);
         return this;
     }
 
     @Override
     public synchronized Context copyFrom(Map<String, Object> source, ReplaceRule replaceRule) {
+        snapshot = null;
         encapsulated.copyFrom(source, replaceRule);
         return this;
     }
 
     @Override
     public synchronized Context copyFrom(Map<String, Object> source, BiPredicate<String, Object> criteria) {
+        snapshot = null;
         encapsulated.copyFrom(source, criteria);
         return this;
     }
@@ -432,24 +723,28 @@ public class FullSyncContextShell implements Context, Serializable {
     @Override
     public synchronized Context copyFrom(Map<String, Object> source, ReplaceRule replaceRule,
                             BiPredicate<String, Object> criteria) {
+        snapshot = null;
         encapsulated.copyFrom(source, replaceRule, criteria);
         return this;
     }
 
     @Override
     public synchronized Context drainFrom(Map<String, Object> source) {
+        snapshot = null;
         encapsulated.drainFrom(source);
         return this;
     }
 
     @Override
     public synchronized Context drainFrom(Map<String, Object> source, ReplaceRule replaceRule) {
+        snapshot = null;
         encapsulated.drainFrom(source, replaceRule);
         return this;
     }
 
     @Override
     public synchronized Context drainFrom(Map<String, Object> source, BiPredicate<String, Object> criteria) {
+        snapshot = null;
         encapsulated.drainFrom(source, criteria);
         return this;
     }
@@ -457,19 +752,30 @@ public class FullSyncContextShell implements Context, Serializable {
     @Override
     public synchronized Context drainFrom(Map<String, Object> source, ReplaceRule replaceRule,
                              BiPredicate<String, Object> criteria) {
+        snapshot = null;
         encapsulated.drainFrom(source, replaceRule, criteria);
         return this;
     }
 
     @Override
-    public synchronized Context forEach(BiConsumer<String, Object> action) {
-        encapsulated.forEach(action);
+    public Context forEach(BiConsumer<String, Object> action) {
+        if (snapshotIteration) {
+            return Context.super.forEach(action);
+        }
+        synchronized (this) {
+            encapsulated.forEach(action);
+        }
         return this;
     }
 
     @Override
-    public synchronized Context forEach(BiPredicate<String, Object> criteria, BiConsumer<String, Object> action) {
-        encapsulated.forEach(criteria, action);
+    public Context forEach(BiPredicate<String, Object> criteria, BiConsumer<String, Object> action) {
+        if (snapshotIteration) {
+            return Context.super.forEach(criteria, action);
+        }
+        synchronized (this) {
+            encapsulated.forEach(criteria, action);
+        }
         return this;
     }
 }
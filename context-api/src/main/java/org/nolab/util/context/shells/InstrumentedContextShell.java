@@ -0,0 +1,513 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.context.LatencyHistogram;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.*;
+
+/**
+ * Shell, that records metrics of operations on encapsulated instance:
+ * number of calls and latency histogram per operation, time of compute
+ * functions and, if shell is monitored, wait and hold time of monitor.
+ * Only abstract methods, {@link #equals(Object)} and {@link #toString()}
+ * are delegated to encapsulated implementation.
+ * Others are implemented by default.
+ * <p>Calls are always counted. Latencies are recorded for sampled calls
+ * only: every call is sampled with probability {@code 1 / samplingInterval}.
+ * Calls, that are not sampled, are delegated without any other overhead.
+ * <p>Monitored shell is intended for synchronized shells, such as
+ * {@link BaseSyncContextShell}, that lock on themselves. Sampled calls
+ * are run under monitor of encapsulated instance, so the time of waiting
+ * for monitor and the time of holding it are measured. Compute functions
+ * of sampled calls are run under monitor too.
+ * <p>Thread-safe if encapsulated instance is thread-safe.
+ */
+public class InstrumentedContextShell implements Context, Serializable {
+
+    private static final long serialVersionUID = 5403387265841190727L;
+
+    /**
+     * Instrumented operations.
+     */
+    public enum Operation {
+        /**
+         * {@code get}, {@code getOrDefault}
+         */
+        GET,
+        /**
+         * {@code put}, {@code putIfAbsent}, {@code putIfKeyAbsent}
+         */
+        PUT,
+        /**
+         * {@code getOrCompute}
+         */
+        GET_OR_COMPUTE,
+        /**
+         * {@code getOrComputeAndPut}
+         */
+        GET_OR_COMPUTE_AND_PUT,
+        /**
+         * {@code remove}, {@code removeExactly}, {@code removeOrCompute}
+         */
+        REMOVE,
+        /**
+         * {@code containsKey}, {@code containsValue}
+         */
+        CONTAINS,
+        /**
+         * {@code size}, {@code isEmpty}
+         */
+        SIZE,
+        /**
+         * {@code clear}, {@code filter}
+         */
+        FILTER,
+        /**
+         * {@code copy}
+         */
+        COPY,
+        /**
+         * Iteration over {@code keys}, {@code values} or {@code entries},
+         * measured from creation of view to exhaustion of iterator.
+         */
+        ITERATION
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    /**
+     * If this flag is {@code true}, sampled calls are run
+     * under monitor of encapsulated instance.
+     */
+    private final boolean monitored;
+
+    private volatile int samplingInterval;
+
+    private final LongAdder[] counts = new LongAdder[OPERATIONS.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[OPERATIONS.length];
+    private final LatencyHistogram monitorWait = new LatencyHistogram();
+    private final LatencyHistogram monitorHold = new LatencyHistogram();
+    private final LatencyHistogram computeTime = new LatencyHistogram();
+
+    /**
+     * Construct shell with encapsulated instance, that samples every call
+     * and is not monitored.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public InstrumentedContextShell(Context encapsulated) {
+        this(encapsulated, false, 1);
+    }
+
+    /**
+     * Construct shell with encapsulated instance,
+     * {@code monitored} flag and sampling interval.
+     *
+     * @param encapsulated encapsulated instance
+     * @param monitored flag
+     * @param samplingInterval average number of calls per sampled call
+     * @throws NullPointerException if {@code encapsulated} is null
+     * @throws IllegalArgumentException if {@code samplingInterval} is not positive
+     */
+    public InstrumentedContextShell(Context encapsulated, boolean monitored, int samplingInterval) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.monitored = monitored;
+        setSamplingInterval(samplingInterval);
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            counts[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Get {@code monitored} flag.
+     *
+     * @return flag
+     */
+    public boolean isMonitored() {
+        return monitored;
+    }
+
+    /**
+     * Get sampling interval.
+     *
+     * @return average number of calls per sampled call
+     */
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Set sampling interval.
+     *
+     * @param samplingInterval average number of calls per sampled call
+     * @throws IllegalArgumentException if {@code samplingInterval} is not positive
+     */
+    public void setSamplingInterval(int samplingInterval) {
+        if (samplingInterval <= 0) {
+            throw new IllegalArgumentException("Invalid sampling interval: " + samplingInterval);
+        }
+        this.samplingInterval = samplingInterval;
+    }
+
+    /**
+     * Get number of calls of operation.
+     *
+     * @param operation operation
+     * @return number of calls, sampled or not
+     */
+    public long getCount(Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    /**
+     * Get latency histogram of operation.
+     *
+     * @param operation operation
+     * @return histogram of sampled calls
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return latencies[operation.ordinal()];
+    }
+
+    /**
+     * Get histogram of time of waiting for monitor.
+     * Empty if shell is not monitored.
+     *
+     * @return histogram of sampled calls
+     */
+    public LatencyHistogram getMonitorWait() {
+        return monitorWait;
+    }
+
+    /**
+     * Get histogram of time of holding monitor.
+     * Empty if shell is not monitored.
+     *
+     * @return histogram of sampled calls
+     */
+    public LatencyHistogram getMonitorHold() {
+        return monitorHold;
+    }
+
+    /**
+     * Get histogram of time of compute functions.
+     *
+     * @return histogram of sampled calls
+     */
+    public LatencyHistogram getComputeTime() {
+        return computeTime;
+    }
+
+    /**
+     * Forget all recorded metrics.
+     */
+    public void resetMetrics() {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            counts[i].reset();
+            latencies[i].reset();
+        }
+        monitorWait.reset();
+        monitorHold.reset();
+        computeTime.reset();
+    }
+
+    /**
+     * Count call and decide, if it is sampled.
+     *
+     * @param operation operation
+     * @return {@code true} if call is sampled
+     */
+    private boolean sampled(Operation operation) {
+        counts[operation.ordinal()].increment();
+        int interval = samplingInterval;
+        return interval == 1 || ThreadLocalRandom.current().nextInt(interval) == 0;
+    }
+
+    /**
+     * Run sampled call and record its metrics.
+     *
+     * @param operation operation
+     * @param action call to encapsulated instance
+     * @param <R> result type
+     * @return result of call
+     */
+    private <R> R measure(Operation operation, Supplier<R> action) {
+        long start = System.nanoTime();
+        try {
+            if (!monitored) {
+                return action.get();
+            }
+            synchronized (encapsulated) {
+                long acquired = System.nanoTime();
+                monitorWait.record(acquired - start);
+                try {
+                    return action.get();
+                } finally {
+                    monitorHold.record(System.nanoTime() - acquired);
+                }
+            }
+        } finally {
+            latencies[operation.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Wrap compute function of sampled call.
+     *
+     * @param function function
+     * @param <T> result type
+     * @return function, that records its time
+     */
+    private <T> Function<String, T> timed(Function<String, T> function) {
+        Objects.requireNonNull(function);
+        return key -> {
+            long start = System.nanoTime();
+            try {
+                return function.apply(key);
+            } finally {
+                computeTime.record(System.nanoTime() - start);
+            }
+        };
+    }
+
+    /**
+     * Iterator, that records time of iteration, when it is exhausted.
+     */
+    private final class TimedIterator<T> implements Iterator<T> {
+
+        private final Iterator<T> iterator;
+        private final long start;
+        private boolean recorded;
+
+        /**
+         * @param iterator iterator of encapsulated view
+         * @param viewTime time of creation of view
+         */
+        TimedIterator(Iterator<T> iterator, long viewTime) {
+            this.start = System.nanoTime() - viewTime;
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = iterator.hasNext();
+            if (!hasNext && !recorded) {
+                recorded = true;
+                latencies[Operation.ITERATION.ordinal()].record(System.nanoTime() - start);
+            }
+            return hasNext;
+        }
+
+        @Override
+        public T next() {
+            return iterator.next();
+        }
+
+        @Override
+        public void remove() {
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return sampled(Operation.PUT)
+                ? measure(Operation.PUT, () -> encapsulated.put(key, value))
+                : encapsulated.put(key, value);
+    }
+
+    @Override
+    public Object get(String key) {
+        return sampled(Operation.GET)
+                ? measure(Operation.GET, () -> encapsulated.get(key))
+                : encapsulated.get(key);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        return sampled(Operation.PUT)
+                ? measure(Operation.PUT, () -> encapsulated.putIfAbsent(key, value))
+                : encapsulated.putIfAbsent(key, value);
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        return sampled(Operation.PUT)
+                ? measure(Operation.PUT, () -> encapsulated.putIfKeyAbsent(key, value))
+                : encapsulated.putIfKeyAbsent(key, value);
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        return sampled(Operation.GET)
+                ? measure(Operation.GET, () -> encapsulated.getOrDefault(key, defaultValue))
+                : encapsulated.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        return sampled(Operation.GET_OR_COMPUTE)
+                ? measure(Operation.GET_OR_COMPUTE, () -> encapsulated.getOrCompute(key, timed(function)))
+                : encapsulated.getOrCompute(key, function);
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        return sampled(Operation.GET_OR_COMPUTE_AND_PUT)
+                ? measure(Operation.GET_OR_COMPUTE_AND_PUT,
+                        () -> encapsulated.getOrComputeAndPut(key, timed(function)))
+                : encapsulated.getOrComputeAndPut(key, function);
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        return sampled(Operation.GET_OR_COMPUTE_AND_PUT)
+                ? measure(Operation.GET_OR_COMPUTE_AND_PUT,
+                        () -> encapsulated.getOrComputeAndPut(key, valueType, timed(function)))
+                : encapsulated.getOrComputeAndPut(key, valueType, function);
+    }
+
+    @Override
+    public Object remove(String key) {
+        return sampled(Operation.REMOVE)
+                ? measure(Operation.REMOVE, () -> encapsulated.remove(key))
+                : encapsulated.remove(key);
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        return sampled(Operation.REMOVE)
+                ? measure(Operation.REMOVE, () -> encapsulated.removeExactly(key, value))
+                : encapsulated.removeExactly(key, value);
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        return sampled(Operation.REMOVE)
+                ? measure(Operation.REMOVE, () -> encapsulated.removeOrCompute(key, timed(function)))
+                : encapsulated.removeOrCompute(key, function);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return sampled(Operation.CONTAINS)
+                ? measure(Operation.CONTAINS, () -> encapsulated.containsKey(key))
+                : encapsulated.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return sampled(Operation.CONTAINS)
+                ? measure(Operation.CONTAINS, () -> encapsulated.containsValue(value))
+                : encapsulated.containsValue(value);
+    }
+
+    @Override
+    public int size() {
+        return sampled(Operation.SIZE)
+                ? measure(Operation.SIZE, encapsulated::size)
+                : encapsulated.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return sampled(Operation.SIZE)
+                ? measure(Operation.SIZE, encapsulated::isEmpty)
+                : encapsulated.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return encapsulated.equals(obj);
+    }
+
+    @Override
+    public Context clear() {
+        if (sampled(Operation.FILTER)) {
+            measure(Operation.FILTER, encapsulated::clear);
+        } else {
+            encapsulated.clear();
+        }
+        return this;
+    }
+
+    @Override
+    public Keys keys() {
+        if (!sampled(Operation.ITERATION)) {
+            return encapsulated.keys();
+        }
+        long start = System.nanoTime();
+        Keys keys = encapsulated.keys();
+        long viewTime = System.nanoTime() - start;
+        return () -> new TimedIterator<>(keys.iterator(), viewTime);
+    }
+
+    @Override
+    public Values values() {
+        if (!sampled(Operation.ITERATION)) {
+            return encapsulated.values();
+        }
+        long start = System.nanoTime();
+        Values values = encapsulated.values();
+        long viewTime = System.nanoTime() - start;
+        return () -> new TimedIterator<>(values.iterator(), viewTime);
+    }
+
+    @Override
+    public Entries entries() {
+        if (!sampled(Operation.ITERATION)) {
+            return encapsulated.entries();
+        }
+        long start = System.nanoTime();
+        Entries entries = encapsulated.entries();
+        long viewTime = System.nanoTime() - start;
+        return () -> new TimedIterator<>(entries.iterator(), viewTime);
+    }
+
+    /**
+     * Copy of encapsulated instance is not instrumented.
+     */
+    @Override
+    public Context copy() {
+        return sampled(Operation.COPY)
+                ? measure(Operation.COPY, encapsulated::copy)
+                : encapsulated.copy();
+    }
+
+    /**
+     * Copy of encapsulated instance is not instrumented.
+     */
+    @Override
+    public Context copy(BiPredicate<String, Object> criteria) {
+        return sampled(Operation.COPY)
+                ? measure(Operation.COPY, () -> encapsulated.copy(criteria))
+                : encapsulated.copy(criteria);
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        if (sampled(Operation.FILTER)) {
+            measure(Operation.FILTER, () -> encapsulated.filter(criteria));
+        } else {
+            encapsulated.filter(criteria);
+        }
+        return this;
+    }
+}
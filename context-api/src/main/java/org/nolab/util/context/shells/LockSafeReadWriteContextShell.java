@@ -0,0 +1,261 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.context.LockSafeContext;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe, lock-safe shell for encapsulating any {@link Context} instance,
+ * guarded by {@link ReentrantReadWriteLock}: read operations of different
+ * threads are run in parallel, modifying operations are exclusive.
+ * Only abstract methods, {@link #equals(Object)} and {@link #toString()}
+ * are delegated to encapsulated implementation.
+ * Others are implemented by default.
+ */
+public class LockSafeReadWriteContextShell implements LockSafeContext, Serializable {
+
+    private static final long serialVersionUID = 8372519068845731290L;
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    /**
+     * Lock, guarding encapsulated instance.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * If this flag is {@code true}, copy methods
+     * will return copy of encapsulated instance in shell.
+     * Otherwise, return copy of encapsulated instance
+     * without shell.
+     * Flag is always reset to {@code true}, if
+     * encapsulated instance is not {@link LockSafeContext}.
+     */
+    private volatile boolean copyInShell = true;
+
+    /**
+     * Construct shell with encapsulated instance.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public LockSafeReadWriteContextShell(Context encapsulated) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+    }
+
+    /**
+     * Construct shell with encapsulated instance
+     * and {@code copyInShell} flag.
+     *
+     * @param encapsulated encapsulated instance
+     * @param copyInShell flag
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public LockSafeReadWriteContextShell(Context encapsulated, boolean copyInShell) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.copyInShell = copyInShell || !(encapsulated instanceof LockSafeContext);
+    }
+
+    /**
+     * Get {@code copyInShell} flag.
+     *
+     * @return flag
+     */
+    public boolean isCopyInShell() {
+        return copyInShell;
+    }
+
+    /**
+     * Set {@code copyInShell} flag, if encapsulated
+     * context is {@link LockSafeContext}.
+     * Otherwise flag is resets to {@code true}.
+     *
+     * @param copyInShell flag
+     */
+    public void setCopyInShell(boolean copyInShell) {
+        this.copyInShell = copyInShell || !(encapsulated instanceof LockSafeContext);
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.put(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.putIfAbsent(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.putIfKeyAbsent(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.getOrDefault(key, defaultValue);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object remove(String key) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.remove(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.removeExactly(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        lock.readLock().lock();
+        try {
+            return encapsulated.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof Context)) {
+            return false;
+        }
+        Context cobj = (Context) obj;
+        if (encapsulated.size() != cobj.size()) {
+            return false;
+        }
+        for (Entry entry : encapsulated.entries()) {
+            if (!Objects.equals(entry.getValue(), cobj.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Context clear() {
+        lock.writeLock().lock();
+        try {
+            return encapsulated.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Keys keys() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.keys();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Values values() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.values();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Entries entries() {
+        lock.readLock().lock();
+        try {
+            return encapsulated.entries();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public LockSafeContext copy() {
+        lock.readLock().lock();
+        try {
+            return copyInShell
+                    ? new LockSafeReadWriteContextShell(encapsulated.copy())
+                    : (LockSafeContext) encapsulated.copy();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.context.LockSafeContext;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe, lock-safe shell for encapsulating any {@link Context} instance,
+ * guarded by {@link StampedLock}. Lookups and size queries are tried
+ * as optimistic reads without locking and are repeated under read lock,
+ * if concurrent modification happened. Other read operations are run
+ * under read lock, modifying operations are exclusive.
+ * Only abstract methods, {@link #equals(Object)} and {@link #toString()}
+ * are delegated to encapsulated implementation.
+ * Others are implemented by default.
+ * <p>Optimistic reads require, that lookups of encapsulated instance
+ * terminate, when they are run concurrently with modification;
+ * runtime exceptions of such lookups are discarded.
+ */
+public class LockSafeStampedContextShell implements LockSafeContext, Serializable {
+
+    private static final long serialVersionUID = -4390856207413359117L;
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    /**
+     * Lock, guarding encapsulated instance.
+     */
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * If this flag is {@code true}, copy methods
+     * will return copy of encapsulated instance in shell.
+     * Otherwise, return copy of encapsulated instance
+     * without shell.
+     * Flag is always reset to {@code true}, if
+     * encapsulated instance is not {@link LockSafeContext}.
+     */
+    private volatile boolean copyInShell = true;
+
+    /**
+     * Construct shell with encapsulated instance.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public LockSafeStampedContextShell(Context encapsulated) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+    }
+
+    /**
+     * Construct shell with encapsulated instance
+     * and {@code copyInShell} flag.
+     *
+     * @param encapsulated encapsulated instance
+     * @param copyInShell flag
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public LockSafeStampedContextShell(Context encapsulated, boolean copyInShell) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.copyInShell = copyInShell || !(encapsulated instanceof LockSafeContext);
+    }
+
+    /**
+     * Get {@code copyInShell} flag.
+     *
+     * @return flag
+     */
+    public boolean isCopyInShell() {
+        return copyInShell;
+    }
+
+    /**
+     * Set {@code copyInShell} flag, if encapsulated
+     * context is {@link LockSafeContext}.
+     * Otherwise flag is resets to {@code true}.
+     *
+     * @param copyInShell flag
+     */
+    public void setCopyInShell(boolean copyInShell) {
+        this.copyInShell = copyInShell || !(encapsulated instanceof LockSafeContext);
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.put(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        return optimisticRead(() -> encapsulated.get(key));
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.putIfAbsent(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.putIfKeyAbsent(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        return optimisticRead(() -> encapsulated.getOrDefault(key, defaultValue));
+    }
+
+    @Override
+    public Object remove(String key) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.remove(key);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.removeExactly(key, value);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        return optimisticRead(() -> encapsulated.containsKey(key));
+    }
+
+    @Override
+    public int size() {
+        return optimisticRead(() -> encapsulated.size());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return optimisticRead(() -> encapsulated.isEmpty());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof Context)) {
+            return false;
+        }
+        Context cobj = (Context) obj;
+        if (encapsulated.size() != cobj.size()) {
+            return false;
+        }
+        for (Entry entry : encapsulated.entries()) {
+            if (!Objects.equals(entry.getValue(), cobj.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Context clear() {
+        long stamp = lock.writeLock();
+        try {
+            return encapsulated.clear();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Keys keys() {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.keys();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Values values() {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.values();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public Entries entries() {
+        long stamp = lock.readLock();
+        try {
+            return encapsulated.entries();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    @Override
+    public LockSafeContext copy() {
+        long stamp = lock.readLock();
+        try {
+            return copyInShell
+                    ? new LockSafeStampedContextShell(encapsulated.copy())
+                    : (LockSafeContext) encapsulated.copy();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Run read operation as optimistic read without locking and repeat it
+     * under read lock, if concurrent modification happened. Runtime exception
+     * of optimistic read is thrown only if no modification happened.
+     *
+     * @param read read operation
+     * @return result of operation
+     */
+    private <T> T optimisticRead(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0L) {
+            try {
+                T result = read.get();
+                if (lock.validate(stamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) {
+                    throw e;
+                }
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+}
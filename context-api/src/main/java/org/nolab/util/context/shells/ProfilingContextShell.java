@@ -0,0 +1,225 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.context.ContextAccessProfiler;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.function.*;
+
+/**
+ * Shell, that reports key access on encapsulated instance
+ * to {@link ContextAccessProfiler}. Profiler may be shared by
+ * several shells to profile group of contexts.
+ * Only abstract methods, {@link #equals(Object)} and {@link #toString()}
+ * are delegated to encapsulated implementation.
+ * Others are implemented by default.
+ * <p>Lookups are reported as reads, puts as writes and removals
+ * as removals. Compute-and-put methods are reported as reads
+ * and, if function is called, as writes too. Bulk operations
+ * and iteration are not reported; keys, removed by {@link #clear()},
+ * are no more tracked for reads.
+ * <p>Thread-safe if encapsulated instance is thread-safe.
+ */
+public class ProfilingContextShell implements Context, Serializable {
+
+    private static final long serialVersionUID = 1906384279853370621L;
+
+    /**
+     * Encapsulated instance.
+     */
+    private final Context encapsulated;
+
+    private final ContextAccessProfiler profiler;
+
+    /**
+     * Construct shell with encapsulated instance
+     * and new profiler with default parameters.
+     *
+     * @param encapsulated encapsulated instance
+     * @throws NullPointerException if {@code encapsulated} is null
+     */
+    public ProfilingContextShell(Context encapsulated) {
+        this(encapsulated, new ContextAccessProfiler());
+    }
+
+    /**
+     * Construct shell with encapsulated instance and profiler.
+     *
+     * @param encapsulated encapsulated instance
+     * @param profiler profiler
+     * @throws NullPointerException if any argument is null
+     */
+    public ProfilingContextShell(Context encapsulated, ContextAccessProfiler profiler) {
+        this.encapsulated = Objects.requireNonNull(encapsulated);
+        this.profiler = Objects.requireNonNull(profiler);
+    }
+
+    /**
+     * Get profiler.
+     *
+     * @return profiler
+     */
+    public ContextAccessProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * Wrap compute function, so that its call is reported as write.
+     *
+     * @param function function
+     * @param <T> result type
+     * @return reporting function
+     */
+    private <T> Function<String, T> reporting(Function<String, T> function) {
+        Objects.requireNonNull(function);
+        return key -> {
+            T value = function.apply(key);
+            profiler.recordWrite(key);
+            return value;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return encapsulated.toString();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        profiler.recordWrite(key);
+        return encapsulated.put(key, value);
+    }
+
+    @Override
+    public Object get(String key) {
+        profiler.recordRead(key);
+        return encapsulated.get(key);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        profiler.recordWrite(key);
+        return encapsulated.putIfAbsent(key, value);
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        profiler.recordWrite(key);
+        return encapsulated.putIfKeyAbsent(key, value);
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        profiler.recordRead(key);
+        return encapsulated.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        profiler.recordRead(key);
+        return encapsulated.getOrCompute(key, function);
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        profiler.recordRead(key);
+        return encapsulated.getOrComputeAndPut(key, reporting(function));
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        profiler.recordRead(key);
+        return encapsulated.getOrComputeAndPut(key, valueType, reporting(function));
+    }
+
+    @Override
+    public Object remove(String key) {
+        profiler.recordRemove(key);
+        return encapsulated.remove(key);
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        profiler.recordRemove(key);
+        return encapsulated.removeExactly(key, value);
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        profiler.recordRemove(key);
+        return encapsulated.removeOrCompute(key, function);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        profiler.recordRead(key);
+        return encapsulated.containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return encapsulated.containsValue(value);
+    }
+
+    @Override
+    public int size() {
+        return encapsulated.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return encapsulated.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return encapsulated.equals(obj);
+    }
+
+    @Override
+    public Context clear() {
+        for (String key : encapsulated.keys()) {
+            profiler.forget(key);
+        }
+        encapsulated.clear();
+        return this;
+    }
+
+    @Override
+    public Keys keys() {
+        return encapsulated.keys();
+    }
+
+    @Override
+    public Values values() {
+        return encapsulated.values();
+    }
+
+    @Override
+    public Entries entries() {
+        return encapsulated.entries();
+    }
+
+    /**
+     * Copy of encapsulated instance is not profiled.
+     */
+    @Override
+    public Context copy() {
+        return encapsulated.copy();
+    }
+
+    /**
+     * Copy of encapsulated instance is not profiled.
+     */
+    @Override
+    public Context copy(BiPredicate<String, Object> criteria) {
+        return encapsulated.copy(criteria);
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        encapsulated.filter(criteria);
+        return this;
+    }
+}
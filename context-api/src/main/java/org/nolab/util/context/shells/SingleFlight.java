@@ -0,0 +1,108 @@
+package org.nolab.util.context.shells;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Registry of per-key computations, that are run outside of shell lock.
+ * While key is computed, other callers for the same key wait for
+ * the computation instead of running the function again.
+ * Registry itself is guarded by shell lock.
+ */
+final class SingleFlight {
+
+    /**
+     * Result of lookup, when value must be computed.
+     */
+    static final Object ABSENT = new Object();
+
+    /**
+     * Placeholder of running computation.
+     */
+    private static final class Flight {
+
+        private final Thread owner = Thread.currentThread();
+        private boolean finished = false;
+
+        synchronized void finish() {
+            finished = true;
+            notifyAll();
+        }
+
+        synchronized void await() {
+            boolean interrupted = false;
+            while (!finished) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private final Map<String, Flight> flights = new HashMap<>();
+
+    /**
+     * Get value or compute it outside of lock.
+     *
+     * @param lock shell lock
+     * @param key key
+     * @param lookup lookup, run under lock, returns {@link #ABSENT} if value must be computed
+     * @param function function to compute value, run outside of lock
+     * @param store action, run under lock with computed value, returns result;
+     *              {@code null} if computed value is not stored and other callers
+     *              must not wait for it
+     * @param <T> value type
+     * @return found, stored or computed value
+     * @throws IllegalStateException if function computes the same key recursively
+     */
+    @SuppressWarnings("unchecked")
+    <T> T compute(Object lock, String key, Supplier<Object> lookup,
+                  Function<String, T> function, UnaryOperator<T> store) {
+        while (true) {
+            Flight flight;
+            boolean own = false;
+            synchronized (lock) {
+                Object current = lookup.get();
+                if (current != ABSENT) {
+                    return (T) current;
+                }
+                flight = flights.get(key);
+                if (flight == null && store != null) {
+                    flight = new Flight();
+                    flights.put(key, flight);
+                    own = true;
+                } else if (flight == null) {
+                    own = true;
+                } else if (flight.owner == Thread.currentThread()) {
+                    throw new IllegalStateException("Recursive computation of key " + key);
+                }
+            }
+            if (!own) {
+                flight.await();
+                continue;
+            }
+            if (flight == null) {
+                return function.apply(key);
+            }
+            try {
+                T value = function.apply(key);
+                synchronized (lock) {
+                    return store.apply(value);
+                }
+            } finally {
+                synchronized (lock) {
+                    flights.remove(key, flight);
+                }
+                flight.finish();
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package org.nolab.util.context.impl;
 
 import org.nolab.util.context.Context;
+import org.nolab.util.context.ValueSizer;
+import org.nolab.util.context.ValueSizers;
 
 import java.io.Serializable;
 import java.util.*;
@@ -457,6 +459,78 @@ public abstract class AbstractContext implements Context, Serializable {
         }
     }
 
+    /**
+     * Sizer of keys and values, {@code null} means {@link ValueSizers#ESTIMATING}.
+     * Not serialized.
+     */
+    private transient volatile ValueSizer valueSizer;
+
+    /**
+     * Estimated size of fields of this class: null support flags,
+     * value sizer and payload footprint.
+     */
+    protected static final int CONTEXT_FIELDS =
+            2 * ValueSizers.BOOLEAN + ValueSizers.REFERENCE + ValueSizers.LONG;
+
+    /**
+     * Estimated size of {@link java.util.HashMap} without its table:
+     * table, entry set, key set and values references, size, modification
+     * count, threshold and load factor.
+     */
+    protected static final long HASH_MAP_FOOTPRINT =
+            ValueSizers.align(ValueSizers.OBJECT_HEADER + 4 * ValueSizers.REFERENCE + 4 * ValueSizers.INT);
+
+    /**
+     * Estimated size of entry of {@link java.util.HashMap}, including slot of its table:
+     * hash, key, value and next references.
+     */
+    protected static final long MAP_ENTRY_FOOTPRINT =
+            ValueSizers.align(ValueSizers.OBJECT_HEADER + ValueSizers.INT + 3 * ValueSizers.REFERENCE)
+                    + ValueSizers.REFERENCE;
+
+    /**
+     * Estimated number of bytes, retained by keys and values.
+     * Maintained by implementations, that support footprint estimation.
+     */
+    protected transient long payloadFootprint;
+
+    /**
+     * Get sizer of keys and values.
+     *
+     * @return value sizer, never {@code null}
+     */
+    protected ValueSizer valueSizer() {
+        ValueSizer sizer = valueSizer;
+        return sizer == null ? ValueSizers.ESTIMATING : sizer;
+    }
+
+    /**
+     * Set sizer of keys and values and recompute payload footprint.
+     *
+     * @param valueSizer new value sizer
+     * @throws NullPointerException if {@code valueSizer} is {@code null}
+     */
+    protected void changeValueSizer(ValueSizer valueSizer) {
+        this.valueSizer = Objects.requireNonNull(valueSizer);
+        long footprint = 0;
+        for (Entry entry : entries()) {
+            footprint += sizeOf(entry.getKey(), entry.getValue());
+        }
+        payloadFootprint = footprint;
+    }
+
+    /**
+     * Estimate size of mapping payload.
+     *
+     * @param key key
+     * @param value value
+     * @return estimated number of bytes, retained by key and value
+     */
+    protected long sizeOf(String key, Object value) {
+        ValueSizer sizer = valueSizer();
+        return sizer.sizeOf(key) + sizer.sizeOf(value);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == this) {
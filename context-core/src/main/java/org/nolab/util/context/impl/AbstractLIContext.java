@@ -1,6 +1,11 @@
 package org.nolab.util.context.impl;
 
 import org.nolab.util.context.Context;
+import org.nolab.util.context.MemoryFootprint;
+import org.nolab.util.context.ValueSizer;
+import org.nolab.util.context.ValueSizers;
+import org.nolab.util.context.impl.io.CompactContextReader;
+import org.nolab.util.context.impl.io.CompactContextWriter;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -30,13 +35,26 @@ public abstract class AbstractLIContext extends AbstractContext {
     /**
      * Anchor for new entries and iteration.
      */
-    protected IterNode head = new IterNode(null, null);
+    protected transient IterNode head = new IterNode(null, null);
 
     /**
      * Number of key-value mappings.
      */
     protected transient volatile int size = 0;
 
+    /**
+     * Estimated size of fields of this class and {@link AbstractContext}:
+     * head node and size.
+     */
+    protected static final int LI_CONTEXT_FIELDS =
+            CONTEXT_FIELDS + ValueSizers.REFERENCE + ValueSizers.INT;
+
+    /**
+     * Estimated size of node.
+     */
+    protected static final long NODE_FOOTPRINT =
+            ValueSizers.align(ValueSizers.OBJECT_HEADER + 5 * ValueSizers.REFERENCE);
+
     /**
      * Put given node into node set.
      *
@@ -96,34 +114,88 @@ public abstract class AbstractLIContext extends AbstractContext {
         putNode(node);
         addNodeToHead(node);
         size++;
+        payloadFootprint += sizeOf(key, value);
+    }
+
+    /**
+     * Remove node from node set and account it.
+     *
+     * @param node node to be removed
+     */
+    protected void deleteNode(IterNode node) {
+        removeNode(node);
+        size--;
+        payloadFootprint -= sizeOf(node.key, node.value);
     }
 
     /**
-     * Common serialization.
+     * Replace value of node and account it.
+     *
+     * @param node node
+     * @param value new value
+     */
+    protected void replaceValue(IterNode node, Object value) {
+        ValueSizer sizer = valueSizer();
+        payloadFootprint += sizer.sizeOf(value) - sizer.sizeOf(node.value);
+        node.value = value;
+    }
+
+    /**
+     * @see MemoryFootprint#getPayloadFootprint()
+     */
+    public long getPayloadFootprint() {
+        return payloadFootprint;
+    }
+
+    /**
+     * @see MemoryFootprint#getValueSizer()
+     */
+    public ValueSizer getValueSizer() {
+        return valueSizer();
+    }
+
+    /**
+     * @see MemoryFootprint#setValueSizer(ValueSizer)
+     */
+    public void setValueSizer(ValueSizer valueSizer) {
+        changeValueSizer(valueSizer);
+    }
+
+    /**
+     * Common serialization. Mappings are written
+     * with {@link CompactContextWriter}.
      */
     protected void write(ObjectOutputStream s) throws IOException {
         s.defaultWriteObject();
-        s.writeInt(size);
+        CompactContextWriter writer = new CompactContextWriter(s);
+        writer.writeSize(size);
         IterNode node = head.next;
         while (node != null) {
-            s.writeObject(node);
+            writer.writeEntry(node.key, node.value);
             node = node.next;
         }
     }
 
     /**
-     * Common deserialization.
+     * Common deserialization. Mappings are read
+     * with {@link CompactContextReader}.
      */
     protected void read(ObjectInputStream s) throws IOException, ClassNotFoundException {
         s.defaultReadObject();
+        readNodes(new CompactContextReader(s));
+    }
+
+    /**
+     * Read mappings, written by {@link #write(ObjectOutputStream)},
+     * into empty node set.
+     *
+     * @param reader mappings reader
+     */
+    protected void readNodes(CompactContextReader reader) throws IOException, ClassNotFoundException {
+        head = new IterNode(null, null);
         size = 0;
-        int sz = s.readInt();
-        for (int i = 0; i < sz; i++) {
-            IterNode node = (IterNode) s.readObject();
-            putNode(node);
-            addNodeToHead(node);
-            size++;
-        }
+        payloadFootprint = 0;
+        reader.readEntries(this::addNewNode);
     }
 
     @Override
@@ -154,7 +226,7 @@ public abstract class AbstractLIContext extends AbstractContext {
             return null;
         } else {
             Object oldVal = node.value;
-            node.value = value;
+            replaceValue(node, value);
             return oldVal;
         }
     }
@@ -178,7 +250,7 @@ public abstract class AbstractLIContext extends AbstractContext {
             addNewNode(key, value);
             return null;
         } else if (node.value == null) {
-            node.value = value;
+            replaceValue(node, value);
             return null;
         } else {
             return node.value;
@@ -250,7 +322,7 @@ public abstract class AbstractLIContext extends AbstractContext {
         } else if (!(valueType.isInstance(node.value))) {
             T value = function.apply(key);
             checkNullValue(value);
-            node.value = value;
+            replaceValue(node, value);
             return value;
         } else {
             return (T) node.value;
@@ -264,8 +336,7 @@ public abstract class AbstractLIContext extends AbstractContext {
         if (node == null) {
             return null;
         } else {
-            removeNode(node);
-            size--;
+            deleteNode(node);
             return node.value;
         }
     }
@@ -277,8 +348,7 @@ public abstract class AbstractLIContext extends AbstractContext {
         if (node == null) {
             return false;
         } else if (node.value == value) {
-            removeNode(node);
-            size--;
+            deleteNode(node);
             return true;
         } else {
             return false;
@@ -293,8 +363,7 @@ public abstract class AbstractLIContext extends AbstractContext {
         if (node == null) {
             return function.apply(key);
         } else {
-            removeNode(node);
-            size--;
+            deleteNode(node);
             return node.value;
         }
     }
@@ -354,6 +423,7 @@ public abstract class AbstractLIContext extends AbstractContext {
     public Context clear() {
         head.next = null;
         size = 0;
+        payloadFootprint = 0;
         return this;
     }
 
@@ -378,8 +448,7 @@ public abstract class AbstractLIContext extends AbstractContext {
         IterNode node = head.next;
         while (node != null) {
             if (!criteria.test(node.key, node.value)) {
-                removeNode(node);
-                size--;
+                deleteNode(node);
             }
             node = node.next;
         }
@@ -476,24 +545,21 @@ public abstract class AbstractLIContext extends AbstractContext {
             case PUT:
                 while (node != null) {
                     acceptor.put(node.key, node.value);
-                    removeNode(node);
-                    size--;
+                    deleteNode(node);
                     node = node.next;
                 }
                 break;
             case PUT_IF_ABSENT:
                 while (node != null) {
                     acceptor.putIfAbsent(node.key, node.value);
-                    removeNode(node);
-                    size--;
+                    deleteNode(node);
                     node = node.next;
                 }
                 break;
             case PUT_IF_KEY_ABSENT:
                 while (node != null) {
                     acceptor.putIfKeyAbsent(node.key, node.value);
-                    removeNode(node);
-                    size--;
+                    deleteNode(node);
                     node = node.next;
                 }
                 break;
@@ -520,8 +586,7 @@ public abstract class AbstractLIContext extends AbstractContext {
                     value = node.value;
                     if (criteria.test(key, value)) {
                         acceptor.put(key, value);
-                        removeNode(node);
-                        size--;
+                        deleteNode(node);
                     }
                     node = node.next;
                 }
@@ -532,8 +597,7 @@ public abstract class AbstractLIContext extends AbstractContext {
                     value = node.value;
                     if (criteria.test(key, value)) {
                         acceptor.putIfAbsent(key, value);
-                        removeNode(node);
-                        size--;
+                        deleteNode(node);
                     }
                     node = node.next;
                 }
@@ -544,8 +608,7 @@ public abstract class AbstractLIContext extends AbstractContext {
                     value = node.value;
                     if (criteria.test(key, value)) {
                         acceptor.putIfKeyAbsent(key, value);
-                        removeNode(node);
-                        size--;
+                        deleteNode(node);
                     }
                     node = node.next;
                 }
@@ -609,15 +672,13 @@ public abstract class AbstractLIContext extends AbstractContext {
         if (replace) {
             while (node != null) {
                 acceptor.put(node.key, node.value);
-                removeNode(node);
-                size--;
+                deleteNode(node);
                 node = node.next;
             }
         } else {
             while (node != null) {
                 acceptor.putIfAbsent(node.key, node.value);
-                removeNode(node);
-                size--;
+                deleteNode(node);
                 node = node.next;
             }
         }
@@ -638,8 +699,7 @@ public abstract class AbstractLIContext extends AbstractContext {
                 value = node.value;
                 if (criteria.test(key, value)) {
                     acceptor.put(key, value);
-                    removeNode(node);
-                    size--;
+                    deleteNode(node);
                 }
                 node = node.next;
             }
@@ -649,8 +709,7 @@ public abstract class AbstractLIContext extends AbstractContext {
                 value = node.value;
                 if (criteria.test(key, value)) {
                     acceptor.putIfAbsent(key, value);
-                    removeNode(node);
-                    size--;
+                    deleteNode(node);
                 }
                 node = node.next;
             }
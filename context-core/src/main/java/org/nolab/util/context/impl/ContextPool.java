@@ -0,0 +1,157 @@
+package org.nolab.util.context.impl;
+
+import org.nolab.util.context.Context;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Pool of reusable contexts. Contexts are reset when they are released,
+ * so acquired context is always empty.
+ * <p>Pool is striped: every thread uses stripe, chosen by its id, and takes
+ * slots of stripe by single atomic operation, so threads do not contend
+ * unless they share stripe. When stripe is empty, new context is created;
+ * when stripe is full, released context is dropped.
+ * Thread-safe, contexts themselves are not.
+ *
+ * @param <C> type of pooled contexts
+ */
+public class ContextPool<C extends Context> {
+
+    public static final int DEFAULT_STRIPE_CAPACITY = 4;
+
+    private final Supplier<? extends C> factory;
+    private final Consumer<? super C> resetter;
+    private final AtomicReferenceArray<C> slots;
+    private final int stripeMask;
+    private final int stripeCapacity;
+
+    /**
+     * Constructor with full parameters set.
+     *
+     * @param factory supplier of new contexts
+     * @param resetter action, that empties released context
+     * @param stripes number of stripes, rounded up to power of two
+     * @param stripeCapacity maximal number of pooled contexts per stripe
+     * @throws NullPointerException if {@code factory} or {@code resetter} is {@code null}
+     * @throws IllegalArgumentException if {@code stripes} or {@code stripeCapacity} is not positive
+     */
+    public ContextPool(Supplier<? extends C> factory, Consumer<? super C> resetter,
+                       int stripes, int stripeCapacity) {
+        this.factory = Objects.requireNonNull(factory);
+        this.resetter = Objects.requireNonNull(resetter);
+        if (stripes <= 0 || stripes > 1 << 16) {
+            throw new IllegalArgumentException("Invalid number of stripes: " + stripes);
+        }
+        if (stripeCapacity <= 0) {
+            throw new IllegalArgumentException("Invalid stripe capacity: " + stripeCapacity);
+        }
+        int n = Integer.highestOneBit(stripes);
+        if (n < stripes) {
+            n <<= 1;
+        }
+        this.stripeMask = n - 1;
+        this.stripeCapacity = stripeCapacity;
+        this.slots = new AtomicReferenceArray<>(n * stripeCapacity);
+    }
+
+    /**
+     * Pool with one stripe per available processor
+     * and {@link #DEFAULT_STRIPE_CAPACITY} contexts per stripe.
+     *
+     * @see #ContextPool(Supplier, Consumer, int, int)
+     */
+    public ContextPool(Supplier<? extends C> factory, Consumer<? super C> resetter) {
+        this(factory, resetter, Runtime.getRuntime().availableProcessors(), DEFAULT_STRIPE_CAPACITY);
+    }
+
+    /**
+     * Pool of hash contexts with specified capacity, which are reset
+     * in O(1) by {@link HashContext#reset()}.
+     *
+     * @param capacity capacity of hash table of every context
+     * @return new pool
+     */
+    public static ContextPool<HashContext> ofHashContexts(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid capacity: " + capacity);
+        }
+        return new ContextPool<>(() -> new HashContext(capacity), HashContext::reset);
+    }
+
+    /**
+     * Take empty context from pool or create new one.
+     *
+     * @return empty context
+     */
+    public C acquire() {
+        int base = stripe() * stripeCapacity;
+        for (int i = base; i < base + stripeCapacity; i++) {
+            if (slots.get(i) != null) {
+                C context = slots.getAndSet(i, null);
+                if (context != null) {
+                    return context;
+                }
+            }
+        }
+        return factory.get();
+    }
+
+    /**
+     * Reset context and return it to pool.
+     * Context must not be used after release.
+     *
+     * @param context context, acquired from this pool
+     * @throws NullPointerException if {@code context} is {@code null}
+     */
+    public void release(C context) {
+        Objects.requireNonNull(context);
+        resetter.accept(context);
+        int base = stripe() * stripeCapacity;
+        for (int i = base; i < base + stripeCapacity; i++) {
+            if (slots.get(i) == null && slots.compareAndSet(i, null, context)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply function to pooled context and release context afterwards.
+     *
+     * @param function function, that must not retain context
+     * @param <R> result type
+     * @return result of function
+     */
+    public <R> R apply(Function<? super C, ? extends R> function) {
+        Objects.requireNonNull(function);
+        C context = acquire();
+        try {
+            return function.apply(context);
+        } finally {
+            release(context);
+        }
+    }
+
+    /**
+     * Get number of contexts, currently stored in pool.
+     *
+     * @return number of pooled contexts
+     */
+    public int getPooledCount() {
+        int count = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & stripeMask;
+    }
+}
@@ -0,0 +1,375 @@
+package org.nolab.util.context.impl;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.context.ImmutableContext;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Immutable context, indexed by minimal perfect hash function.
+ * Created by {@link #freeze(Context)}.
+ * <p>Keys and values are stored in flat arrays of the same length as number
+ * of mappings. Perfect hash function is built by hash and displace algorithm:
+ * keys are distributed into small buckets by one hash, then every bucket
+ * gets a displacement, that maps its keys into free slots without collisions.
+ * Lookup is a single probe: one hash computation, one displacement read
+ * and one key comparison. Lookups do not allocate.
+ * <p>Keys are hashed by {@link String#hashCode()}, which is cached by strings,
+ * unless some keys have equal hash codes: then keys are hashed by contents.
+ * <p>Construction takes expected linear time. Iteration order is unspecified.
+ * Null keys not allowed.
+ * Thread-safe.
+ */
+public class FrozenContext extends AbstractContext implements ImmutableContext {
+
+    private static final long serialVersionUID = 2937145508623871659L;
+
+    /**
+     * Average number of keys per bucket.
+     */
+    private static final int BUCKET_SIZE = 4;
+
+    private static final int MAX_DISPLACEMENT = 1 << 20;
+    private static final int MAX_ATTEMPTS = 32;
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final String[] keys;
+    private final Object[] values;
+
+    /**
+     * Displacements of buckets: non-negative value is a seed of slot hash,
+     * negative value {@code -(slot + 1)} is a slot of the only key of bucket.
+     */
+    private final int[] displacements;
+    private final long seed;
+    private final boolean contentHash;
+
+    private FrozenContext(String[] keys, Object[] values, int[] displacements,
+                          long seed, boolean contentHash) {
+        super(false, true);
+        this.keys = keys;
+        this.values = values;
+        this.displacements = displacements;
+        this.seed = seed;
+        this.contentHash = contentHash;
+    }
+
+    /**
+     * Create frozen copy of context.
+     *
+     * @param source source context
+     * @return frozen context with the same mappings
+     * @throws NullPointerException if {@code source} is {@code null}
+     * @throws IllegalArgumentException if {@code source} contains {@code null} key
+     */
+    public static FrozenContext freeze(Context source) {
+        Objects.requireNonNull(source);
+        List<String> keyList = new ArrayList<>(source.size());
+        List<Object> valueList = new ArrayList<>(source.size());
+        for (Entry entry : source.entries()) {
+            if (entry.getKey() == null) {
+                throw new IllegalArgumentException(NULL_KEYS_NOT_SUPPORTED);
+            }
+            keyList.add(entry.getKey());
+            valueList.add(entry.getValue());
+        }
+        return build(keyList.toArray(new String[0]), valueList.toArray());
+    }
+
+    private static FrozenContext build(String[] sourceKeys, Object[] sourceValues) {
+        int n = sourceKeys.length;
+        boolean contentHash = hasEqualHashCodes(sourceKeys);
+        Random random = new Random(n * GOLDEN_GAMMA);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            long seed = random.nextLong();
+            long[] hashes = new long[n];
+            for (int i = 0; i < n; i++) {
+                hashes[i] = hash(sourceKeys[i], seed, contentHash);
+            }
+            int[] slots = new int[n];
+            int[] displacements = place(hashes, slots);
+            if (displacements == null) {
+                continue;
+            }
+            String[] keys = new String[n];
+            Object[] values = new Object[n];
+            for (int i = 0; i < n; i++) {
+                keys[slots[i]] = sourceKeys[i];
+                values[slots[i]] = sourceValues[i];
+            }
+            return new FrozenContext(keys, values, displacements, seed, contentHash);
+        }
+        throw new IllegalStateException("Cannot build perfect hash function for " + n + " keys");
+    }
+
+    private static boolean hasEqualHashCodes(String[] keys) {
+        int[] hashCodes = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            hashCodes[i] = keys[i].hashCode();
+        }
+        Arrays.sort(hashCodes);
+        for (int i = 1; i < hashCodes.length; i++) {
+            if (hashCodes[i] == hashCodes[i - 1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Find displacements of buckets, so that all keys get distinct slots.
+     *
+     * @param hashes hashes of keys
+     * @param slots output slots of keys
+     * @return displacements of buckets or {@code null} if some bucket cannot be placed
+     */
+    private static int[] place(long[] hashes, int[] slots) {
+        int n = hashes.length;
+        int bucketCount = Math.max(1, (n + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        int[] bucketStarts = new int[bucketCount + 1];
+        for (long hash : hashes) {
+            bucketStarts[bucket(hash, bucketCount) + 1]++;
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            bucketStarts[b + 1] += bucketStarts[b];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(bucketStarts, bucketCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[bucket(hashes[i], bucketCount)]++] = i;
+        }
+
+        Integer[] order = new Integer[bucketCount];
+        for (int b = 0; b < bucketCount; b++) {
+            order[b] = b;
+        }
+        Arrays.sort(order, (b1, b2) -> (bucketStarts[b2 + 1] - bucketStarts[b2])
+                - (bucketStarts[b1 + 1] - bucketStarts[b1]));
+
+        int[] displacements = new int[bucketCount];
+        boolean[] taken = new boolean[n];
+        int[] candidate = new int[n == 0 ? 0 : BUCKET_SIZE * 8];
+        int freeSlot = 0;
+        for (int b : order) {
+            int start = bucketStarts[b];
+            int length = bucketStarts[b + 1] - start;
+            if (length == 0) {
+                break;
+            }
+            if (length == 1) {
+                while (taken[freeSlot]) {
+                    freeSlot++;
+                }
+                taken[freeSlot] = true;
+                slots[members[start]] = freeSlot;
+                displacements[b] = -(freeSlot + 1);
+                continue;
+            }
+            if (length > candidate.length) {
+                candidate = new int[length];
+            }
+            boolean placed = false;
+            for (int d = 0; d < MAX_DISPLACEMENT && !placed; d++) {
+                placed = true;
+                for (int j = 0; j < length && placed; j++) {
+                    int slot = slot(hashes[members[start + j]], d, n);
+                    if (taken[slot]) {
+                        placed = false;
+                    }
+                    for (int k = 0; k < j && placed; k++) {
+                        if (candidate[k] == slot) {
+                            placed = false;
+                        }
+                    }
+                    candidate[j] = slot;
+                }
+                if (placed) {
+                    for (int j = 0; j < length; j++) {
+                        taken[candidate[j]] = true;
+                        slots[members[start + j]] = candidate[j];
+                    }
+                    displacements[b] = d;
+                }
+            }
+            if (!placed) {
+                return null;
+            }
+        }
+        return displacements;
+    }
+
+    private static long hash(String key, long seed, boolean contentHash) {
+        long h = seed;
+        if (contentHash) {
+            for (int i = 0; i < key.length(); i++) {
+                h = (h ^ key.charAt(i)) * 0x100000001B3L;
+            }
+            h ^= key.length();
+        } else {
+            h ^= key.hashCode();
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    private static int reduce(int hash, int range) {
+        return (int) (((hash & 0xFFFFFFFFL) * range) >>> 32);
+    }
+
+    private static int bucket(long hash, int bucketCount) {
+        return reduce((int) (hash >>> 32), bucketCount);
+    }
+
+    private static int slot(long hash, int displacement, int n) {
+        return reduce((int) mix(hash + displacement * GOLDEN_GAMMA), n);
+    }
+
+    /**
+     * Find slot of key.
+     *
+     * @param key key for lookup
+     * @return slot or {@code -1} if there is no such key
+     */
+    private int findSlot(String key) {
+        int n = keys.length;
+        if (n == 0) {
+            return -1;
+        }
+        long hash = hash(key, seed, contentHash);
+        int displacement = displacements[bucket(hash, displacements.length)];
+        int slot = displacement < 0 ? -displacement - 1 : slot(hash, displacement, n);
+        return key.equals(keys[slot]) ? slot : -1;
+    }
+
+    @Override
+    public Object get(String key) {
+        checkNullKey(key);
+        int slot = findSlot(key);
+        return slot < 0 ? null : values[slot];
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        checkNullKey(key);
+        int slot = findSlot(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(function);
+        int slot = findSlot(key);
+        return slot < 0 ? function.apply(key) : values[slot];
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        checkNullKey(key);
+        return findSlot(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        checkNullValue(value);
+        for (Object v : values) {
+            if (Objects.equals(value, v)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    @Override
+    public Context.Keys keys() {
+        SeparatedKeys result = new SeparatedKeys(keys.length);
+        for (String key : keys) {
+            result.add(key);
+        }
+        return result;
+    }
+
+    @Override
+    public Context.Values values() {
+        SeparatedValues result = new SeparatedValues(values.length);
+        for (Object value : values) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    @Override
+    public Context.Entries entries() {
+        SeparatedEntries result = new SeparatedEntries(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            result.add(new SeparatedEntry(keys[i], values[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Copy shares arrays with this instance.
+     */
+    @Override
+    public ImmutableContext copy() {
+        return new FrozenContext(keys, values, displacements, seed, contentHash);
+    }
+
+    @Override
+    public ImmutableContext copy(BiPredicate<String, Object> criteria) {
+        Objects.requireNonNull(criteria);
+        List<String> keyList = new ArrayList<>();
+        List<Object> valueList = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (criteria.test(keys[i], values[i])) {
+                keyList.add(keys[i]);
+                valueList.add(values[i]);
+            }
+        }
+        return build(keyList.toArray(new String[0]), valueList.toArray());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Context {");
+        for (int i = 0; i < keys.length; i++) {
+            sb.append(keys[i]).append("=").append(values[i]).append("; ");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (keys == null || values == null || displacements == null
+                || keys.length != values.length || displacements.length == 0) {
+            throw new StreamCorruptedException("Invalid frozen context");
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || findSlot(keys[i]) != i) {
+                throw new StreamCorruptedException("Invalid frozen context");
+            }
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package org.nolab.util.context.impl;
 
 import org.nolab.util.context.Context;
+import org.nolab.util.context.MemoryFootprint;
+import org.nolab.util.context.ValueSizers;
+import org.nolab.util.context.impl.io.CompactContextReader;
 
 import java.io.*;
 import java.util.*;
@@ -15,12 +18,20 @@ import java.util.function.BiPredicate;
  * Extension and compression are defined by extend and compress multiplicators
  * respectively. New extend and compress thresholds are defined by
  * extend and compress factors respectively.
+ * Capacity of hash table is always a power of two, hash codes of keys
+ * are spread before masking. When bucket collects more than
+ * {@link #TREEIFY_THRESHOLD} nodes, it is additionally indexed by balanced tree,
+ * ordered by hash and then by key, so lookups stay logarithmic even when
+ * many keys have the same hash code.
+ * Every bucket of hash table is stamped with generation, in which it was
+ * filled. Buckets with stale stamps are considered empty, so {@link #reset()}
+ * invalidates all mappings in O(1) by starting new generation.
  * Null keys not allowed.
  * Not thread-safe.
  */
-public class HashContext extends AbstractLIContext {
+public class HashContext extends AbstractLIContext implements MemoryFootprint {
 
-    private static final long serialVersionUID = 3159305992984666851L;
+    private static final long serialVersionUID = -6518730926845106317L;
 
     /**
      * An {@link IterNode} with additional next and previous for hash table.
@@ -29,11 +40,13 @@ public class HashContext extends AbstractLIContext {
 
         private static final long serialVersionUID = -174433486268052073L;
 
+        final transient int hash;
         transient volatile HashTableIterNode prevHT;
         transient volatile HashTableIterNode nextHT;
 
         public HashTableIterNode(String key, Object value) {
             super(key, value);
+            hash = spread(key.hashCode());
         }
     }
 
@@ -43,7 +56,39 @@ public class HashContext extends AbstractLIContext {
     public static final float DEFAULT_EXTEND_MULTIPLICATOR = 2;
     public static final float DEFAULT_COMPRESS_MULTIPLICATOR = 0.5f;
 
+    /**
+     * Number of nodes in bucket, that causes indexing of bucket by tree.
+     */
+    public static final int TREEIFY_THRESHOLD = 8;
+
+    /**
+     * Number of nodes in bucket, that causes removal of tree index.
+     */
+    public static final int UNTREEIFY_THRESHOLD = 6;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * Order of nodes in treeified bucket: by spread hash, then by key.
+     */
+    private static final Comparator<String> BIN_ORDER = (key1, key2) -> {
+        int c = Integer.compare(spread(key1.hashCode()), spread(key2.hashCode()));
+        return c != 0 ? c : key1.compareTo(key2);
+    };
+
+    /**
+     * Estimated size of context with table, generations and trees references,
+     * generation, capacity and three fields of each of extend and compress.
+     */
+    private static final long FOOTPRINT = ValueSizers.align(ValueSizers.OBJECT_HEADER + LI_CONTEXT_FIELDS
+            + 3 * ValueSizers.REFERENCE + 8 * ValueSizers.INT);
+    private static final long HT_NODE_FOOTPRINT =
+            ValueSizers.align(ValueSizers.OBJECT_HEADER + 7 * ValueSizers.REFERENCE);
+
     private transient HashTableIterNode[] hashTable;
+    private transient int[] bucketGenerations;
+    private transient TreeMap<String, HashTableIterNode>[] bucketTrees;
+    private transient int generation;
     private int capacity;
 
     private float extendFactor;
@@ -72,9 +117,10 @@ public class HashContext extends AbstractLIContext {
         if (capacity <= 0) {
             throw new IllegalArgumentException("Invalid capacity: " + capacity);
         }
-        this.capacity = capacity;
+        this.capacity = tableSizeFor(capacity);
         size = 0;
-        hashTable = new HashTableIterNode[capacity];
+        hashTable = new HashTableIterNode[this.capacity];
+        bucketGenerations = new int[this.capacity];
         resize(extendFactor, compressFactor, extendMul, compressMul);
     }
 
@@ -181,25 +227,104 @@ public class HashContext extends AbstractLIContext {
         if (!resizing && size + 1 > extendThreshold) {
             resize(extendMul, extendFactor, compressFactor);
         }
-        int pos = node.key.hashCode() % hashTable.length;
-        HashTableIterNode cur = hashTable[pos];
+        int pos = node.hash & (hashTable.length - 1);
+        HashTableIterNode cur = bucket(pos);
+        if (cur == null && bucketTrees != null) {
+            bucketTrees[pos] = null;
+        }
         hashTable[pos] = node;
+        bucketGenerations[pos] = generation;
         node.prevHT = null;
         node.nextHT = cur;
         if (cur != null) {
             cur.prevHT = node;
+            TreeMap<String, HashTableIterNode> tree = bucketTree(pos);
+            if (tree != null) {
+                tree.put(node.key, node);
+            } else {
+                treeifyIfLong(pos);
+            }
         }
     }
 
-    private void resize(int capacity) {
-        if (capacity == 0) {
-            capacity = 1;
+    /**
+     * Index bucket by tree, if it has more than {@link #TREEIFY_THRESHOLD} nodes.
+     */
+    private void treeifyIfLong(int pos) {
+        HashTableIterNode node = hashTable[pos];
+        int count = 0;
+        while (node != null && count <= TREEIFY_THRESHOLD) {
+            count++;
+            node = node.nextHT;
+        }
+        if (count <= TREEIFY_THRESHOLD) {
+            return;
         }
+        if (bucketTrees == null) {
+            bucketTrees = newBucketTrees(hashTable.length);
+        }
+        TreeMap<String, HashTableIterNode> tree = new TreeMap<>(BIN_ORDER);
+        for (node = hashTable[pos]; node != null; node = node.nextHT) {
+            tree.put(node.key, node);
+        }
+        bucketTrees[pos] = tree;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TreeMap<String, HashTableIterNode>[] newBucketTrees(int length) {
+        return (TreeMap<String, HashTableIterNode>[]) new TreeMap<?, ?>[length];
+    }
+
+    /**
+     * Return {@code true} if bucket of specified key is indexed by tree.
+     *
+     * @param key key
+     * @return {@code true} if bucket is treeified
+     */
+    boolean isTreeified(String key) {
+        return bucketTree(spread(key.hashCode()) & (hashTable.length - 1)) != null;
+    }
+
+    /**
+     * Get tree index of bucket, if bucket is treeified in current generation.
+     */
+    private TreeMap<String, HashTableIterNode> bucketTree(int pos) {
+        return bucketTrees == null || bucketGenerations[pos] != generation ? null : bucketTrees[pos];
+    }
+
+    /**
+     * Spread higher bits of hash code to lower, because table is masked
+     * by power of two.
+     */
+    static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Get the least power of two, that is not less than capacity.
+     */
+    private static int tableSizeFor(int capacity) {
+        if (capacity >= MAXIMUM_CAPACITY) {
+            return MAXIMUM_CAPACITY;
+        }
+        if (capacity <= 1) {
+            return 1;
+        }
+        return Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private void resize(int capacity) {
+        capacity = tableSizeFor(capacity);
         HashTableIterNode[] oldHT = hashTable;
+        int[] oldGenerations = bucketGenerations;
+        TreeMap<String, HashTableIterNode>[] oldTrees = bucketTrees;
         int oldCap = this.capacity;
         boolean error = true;
         try {
             this.hashTable = new HashTableIterNode[capacity];
+            this.bucketGenerations = new int[capacity];
+            this.bucketTrees = null;
+            Arrays.fill(bucketGenerations, generation);
             this.capacity = capacity;
             HashTableIterNode node = (HashTableIterNode) head.next;
             while (node != null) {
@@ -210,17 +335,76 @@ public class HashContext extends AbstractLIContext {
         } finally {
             if (error) {
                 this.hashTable = oldHT;
+                this.bucketGenerations = oldGenerations;
+                this.bucketTrees = oldTrees;
                 this.capacity = oldCap;
             }
         }
     }
 
+    /**
+     * Get first node of bucket, if bucket is filled in current generation.
+     */
+    private HashTableIterNode bucket(int pos) {
+        return bucketGenerations[pos] == generation ? hashTable[pos] : null;
+    }
+
+    /**
+     * Invalidate all buckets by starting new generation.
+     * When generation counter overflows, buckets are cleared explicitly.
+     */
+    private void nextGeneration() {
+        if (++generation == 0) {
+            Arrays.fill(hashTable, null);
+            Arrays.fill(bucketGenerations, 0);
+            bucketTrees = null;
+        }
+    }
+
     private void resize(float multiplicator, float extendFactor, float compressFactor) {
         resize(Math.round(capacity * multiplicator));
         extendThreshold = Math.round(capacity * extendFactor);
         compressThreshold = (int) (capacity * compressFactor);
     }
 
+    /**
+     * Extend hash table, so that specified number of mappings
+     * can be put without further extensions.
+     * Useful before bulk loading.
+     *
+     * @param expectedSize expected number of mappings
+     */
+    public void ensureCapacity(int expectedSize) {
+        if (expectedSize <= extendThreshold) {
+            return;
+        }
+        long capacity = (long) Math.ceil(expectedSize / (double) extendFactor);
+        resize((int) Math.min(capacity, MAXIMUM_CAPACITY));
+        extendThreshold = Math.max(Math.round(this.capacity * extendFactor), expectedSize);
+        compressThreshold = (int) (this.capacity * compressFactor);
+    }
+
+    /**
+     * Compress hash table to the least capacity, sufficient for current mappings
+     * with current extend factor.
+     */
+    public void trimToSize() {
+        int capacity = tableSizeFor((int) Math.ceil(size / (double) extendFactor));
+        if (capacity < this.capacity) {
+            resize(capacity);
+            extendThreshold = Math.max(Math.round(this.capacity * extendFactor), size);
+            compressThreshold = (int) (this.capacity * compressFactor);
+        }
+    }
+
+    @Override
+    public long getStructureFootprint() {
+        return FOOTPRINT + ValueSizers.arrayFootprint(hashTable.length, ValueSizers.REFERENCE)
+                + ValueSizers.arrayFootprint(bucketGenerations.length, ValueSizers.INT)
+                + (bucketTrees == null ? 0 : ValueSizers.arrayFootprint(bucketTrees.length, ValueSizers.REFERENCE))
+                + (size + 1) * HT_NODE_FOOTPRINT;
+    }
+
     /**
      * Resize hash table with new size-management parameters.
      *
@@ -278,15 +462,10 @@ public class HashContext extends AbstractLIContext {
     private void readObject(ObjectInputStream s)
             throws java.io.IOException, ClassNotFoundException {
         s.defaultReadObject();
+        capacity = tableSizeFor(capacity);
         hashTable = new HashTableIterNode[capacity];
-        size = 0;
-        int sz = s.readInt();
-        for (int i = 0; i < sz; i++) {
-            HashTableIterNode node = (HashTableIterNode) s.readObject();
-            putNode(node);
-            addNodeToHead(node);
-            size++;
-        }
+        bucketGenerations = new int[capacity];
+        readNodes(new CompactContextReader(s));
     }
 
     @Override
@@ -301,7 +480,12 @@ public class HashContext extends AbstractLIContext {
 
     @Override
     protected IterNode findNode(String key) {
-        HashTableIterNode node = hashTable[key.hashCode() % hashTable.length];
+        int pos = spread(key.hashCode()) & (hashTable.length - 1);
+        TreeMap<String, HashTableIterNode> tree = bucketTree(pos);
+        if (tree != null) {
+            return tree.get(key);
+        }
+        HashTableIterNode node = bucket(pos);
         while (node != null) {
             if (key.equals(node.key)) {
                 break;
@@ -317,7 +501,14 @@ public class HashContext extends AbstractLIContext {
             resize(compressMul, extendFactor, compressFactor);
         }
         HashTableIterNode nodeHT = (HashTableIterNode) node;
-        int pos = node.key.hashCode() % hashTable.length;
+        int pos = nodeHT.hash & (hashTable.length - 1);
+        TreeMap<String, HashTableIterNode> tree = bucketTree(pos);
+        if (tree != null) {
+            tree.remove(node.key);
+            if (tree.size() <= UNTREEIFY_THRESHOLD) {
+                bucketTrees[pos] = null;
+            }
+        }
         if (hashTable[pos] == nodeHT) {
             hashTable[pos] = nodeHT.nextHT;
         } else {
@@ -329,11 +520,32 @@ public class HashContext extends AbstractLIContext {
         nodeHT.remove();
     }
 
+    /**
+     * Remove all mappings in O(1), keeping current capacity of hash table.
+     * Removed nodes remain referenced by stale buckets until these buckets
+     * are filled again or hash table is resized.
+     * Useful for contexts, that are reused many times, see {@link ContextPool}.
+     */
+    public void reset() {
+        nextGeneration();
+        head.next = null;
+        size = 0;
+        payloadFootprint = 0;
+    }
+
+    /**
+     * Remove all mappings and release references to them.
+     * Hash table may be compressed.
+     *
+     * @see #reset()
+     */
     @Override
     public Context clear() {
         Arrays.fill(hashTable, null);
+        bucketTrees = null;
         head.next = null;
         size = 0;
+        payloadFootprint = 0;
         if (size < compressThreshold) {
             resize(compressMul, extendFactor, compressFactor);
         }
@@ -0,0 +1,746 @@
+package org.nolab.util.context.impl;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.context.MemoryFootprint;
+import org.nolab.util.context.ValueSizer;
+import org.nolab.util.context.impl.io.CompactContextReader;
+import org.nolab.util.context.impl.io.CompactContextWriter;
+import org.nolab.util.context.impl.mapb.CapacityMapSuppliers;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.*;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Durable context. Every mutation is appended to write-ahead journal
+ * before it is applied to in-memory mappings. When journal size exceeds
+ * compaction threshold, all mappings are written into snapshot file and
+ * journal is truncated. On opening, snapshot is read and journal is
+ * replayed; torn or corrupted tail of journal is discarded.
+ * <p>Journal record is length, CRC32 and payload: operation code, key and value,
+ * encoded by {@link CompactContextWriter}. Records are idempotent with respect
+ * to snapshot, so crash between snapshot replacement and journal truncation
+ * is harmless; directory is forced between them, so truncation never
+ * becomes durable without replacement.
+ * <p>Moment, when mutation becomes durable, is defined by {@link Durability}.
+ * <p>All operations are serialized by monitor of this instance; journal
+ * synchronization of {@link Durability#GROUP} is done outside of it.
+ * After {@link #close()}, mappings remain readable, but mutations throw
+ * {@link IllegalStateException}.
+ * <p>Serialized form is a detached in-memory copy of mappings.
+ * Null keys not allowed.
+ * Thread-safe.
+ */
+public class JournaledContext extends AbstractContext implements Closeable, MemoryFootprint {
+
+    private static final long serialVersionUID = 8312507765416227104L;
+
+    /**
+     * Name of journal file in context directory.
+     */
+    public static final String JOURNAL_FILE = "context.journal";
+
+    /**
+     * Name of snapshot file in context directory.
+     */
+    public static final String SNAPSHOT_FILE = "context.snapshot";
+
+    /**
+     * Default journal size, that triggers compaction.
+     */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+
+    private static final String SNAPSHOT_TMP_FILE = SNAPSHOT_FILE + ".tmp";
+    private static final String CLOSED = "Context is closed";
+
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+
+    /**
+     * Moment, when mutation becomes durable.
+     */
+    public enum Durability {
+
+        /**
+         * Journal is forced to storage by every mutation.
+         */
+        SYNC,
+
+        /**
+         * Mutating thread waits until journal is forced to storage,
+         * but single force covers all records, appended by concurrent
+         * threads before it.
+         */
+        GROUP,
+
+        /**
+         * Journal is forced to storage only by {@link #sync()},
+         * compaction and closing. Mutations, made after last force,
+         * may be lost by operating system crash, but not by process crash.
+         */
+        ASYNC
+    }
+
+    private final transient Path directory;
+    private final transient Durability durability;
+    private final transient long compactionThreshold;
+    private final transient MapBasedLIContext memory;
+    private final transient FileChannel journal;
+    private final transient FileLock journalLock;
+
+    private final transient ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    private final transient DataOutputStream payloadOut = new DataOutputStream(payload);
+    private final transient CompactContextWriter payloadWriter = new CompactContextWriter(payloadOut, false);
+    private final transient CRC32 crc = new CRC32();
+
+    private final transient Object syncMonitor = new Object();
+
+    /**
+     * Number of appended records. Changed under monitor of this instance.
+     */
+    private transient volatile long appendedLsn;
+
+    /**
+     * Number of records, forced to storage. Changed under sync monitor.
+     */
+    private transient volatile long durableLsn;
+
+    private transient volatile boolean closed;
+
+    JournaledContext(Path directory, Durability durability, long compactionThreshold)
+            throws IOException {
+        super(false, true);
+        this.directory = directory;
+        this.durability = durability;
+        this.compactionThreshold = compactionThreshold;
+        this.memory = new MapBasedLIContext(false, true, null, CapacityMapSuppliers.HASH_MAP, 16);
+        Files.createDirectories(directory);
+        journal = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            journalLock = lockJournal();
+            Files.deleteIfExists(directory.resolve(SNAPSHOT_TMP_FILE));
+            readSnapshot();
+            replayJournal();
+        } catch (IOException | RuntimeException e) {
+            journal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Open context in specified directory with {@link Durability#GROUP}
+     * durability and default compaction threshold.
+     *
+     * @see #open(Path, Durability, long)
+     */
+    public static JournaledContext open(Path directory) throws IOException {
+        return open(directory, Durability.GROUP, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Open context in specified directory with specified durability
+     * and default compaction threshold.
+     *
+     * @see #open(Path, Durability, long)
+     */
+    public static JournaledContext open(Path directory, Durability durability) throws IOException {
+        return open(directory, durability, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Open context in specified directory. Directory is created, if it
+     * does not exist. Existing mappings are recovered from snapshot and journal.
+     *
+     * @param directory context directory
+     * @param durability durability of mutations
+     * @param compactionThreshold journal size in bytes, that triggers compaction
+     * @return opened context
+     * @throws IOException if an I/O error occurs, snapshot is corrupted
+     *         or directory is used by another opened context
+     * @throws NullPointerException if {@code directory} or {@code durability} is {@code null}
+     * @throws IllegalArgumentException if {@code compactionThreshold} is not positive
+     */
+    public static JournaledContext open(Path directory, Durability durability,
+                                        long compactionThreshold) throws IOException {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(durability);
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Invalid compaction threshold " + compactionThreshold);
+        }
+        return new JournaledContext(directory, durability, compactionThreshold);
+    }
+
+    private FileLock lockJournal() throws IOException {
+        FileLock lock;
+        try {
+            lock = journal.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IOException("Context directory is in use: " + directory);
+        }
+        return lock;
+    }
+
+    private void readSnapshot() throws IOException {
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            new CompactContextReader(in).readEntries(memory::put);
+        } catch (ClassNotFoundException e) {
+            throw new InvalidObjectException("Unknown value class in snapshot: " + e.getMessage());
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        long valid = 0;
+        long records = 0;
+        long journalSize = journal.size();
+        journal.position(0);
+        // stream is not closed, because it would close journal channel
+        DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(journal)));
+        byte[] bytes = new byte[0];
+        while (true) {
+            int length;
+            int checksum;
+            try {
+                length = in.readInt();
+                checksum = in.readInt();
+                if (length <= 0 || length > journalSize - valid - 8) {
+                    break;
+                }
+                if (bytes.length < length) {
+                    bytes = new byte[length];
+                }
+                in.readFully(bytes, 0, length);
+            } catch (EOFException e) {
+                break;
+            }
+            crc.reset();
+            crc.update(bytes, 0, length);
+            if ((int) crc.getValue() != checksum || !applyRecord(bytes, length)) {
+                break;
+            }
+            valid += 8 + length;
+            records++;
+        }
+        journal.truncate(valid);
+        journal.position(valid);
+        appendedLsn = records;
+        durableLsn = records;
+    }
+
+    private boolean applyRecord(byte[] bytes, int length) throws IOException {
+        CompactContextReader reader = new CompactContextReader(
+                new DataInputStream(new ByteArrayInputStream(bytes, 1, length - 1)));
+        try {
+            switch (bytes[0]) {
+                case PUT:
+                    String key = reader.readKey();
+                    memory.put(key, reader.readValue());
+                    return true;
+                case REMOVE:
+                    memory.remove(reader.readKey());
+                    return true;
+                case CLEAR:
+                    memory.clear();
+                    return true;
+                default:
+                    return false;
+            }
+        } catch (ClassNotFoundException e) {
+            throw new InvalidObjectException("Unknown value class in journal: " + e.getMessage());
+        } catch (EOFException | StreamCorruptedException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Append record to journal. Must be called under monitor.
+     * On failure journal is rolled back to previous record.
+     *
+     * @return sequence number of appended record
+     */
+    private long append(byte op, String key, Object value) {
+        if (closed) {
+            throw new IllegalStateException(CLOSED);
+        }
+        long position = -1;
+        try {
+            payload.reset();
+            payloadOut.writeByte(op);
+            if (op != CLEAR) {
+                payloadWriter.writeKey(key);
+            }
+            if (op == PUT) {
+                payloadWriter.writeValue(value);
+            }
+            byte[] bytes = payload.toByteArray();
+            crc.reset();
+            crc.update(bytes, 0, bytes.length);
+            ByteBuffer record = ByteBuffer.allocate(8 + bytes.length);
+            record.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes);
+            record.flip();
+            position = journal.position();
+            while (record.hasRemaining()) {
+                journal.write(record);
+            }
+            long lsn = ++appendedLsn;
+            if (durability == Durability.SYNC) {
+                journal.force(false);
+                durableLsn = lsn;
+            }
+            return lsn;
+        } catch (IOException e) {
+            if (position >= 0) {
+                rollback(position);
+            }
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void rollback(long position) {
+        try {
+            journal.truncate(position);
+            journal.position(position);
+        } catch (IOException e) {
+            closed = true;
+        }
+    }
+
+    /**
+     * Finish mutation: compact journal if needed. Must be called under monitor.
+     */
+    private void afterAppend() {
+        try {
+            if (journal.position() >= compactionThreshold) {
+                compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Wait for record durability. Must be called without monitor.
+     */
+    private void awaitDurable(long lsn) {
+        if (durability == Durability.GROUP && durableLsn < lsn) {
+            force(lsn);
+        }
+    }
+
+    private void force(long lsn) {
+        synchronized (syncMonitor) {
+            if (durableLsn >= lsn) {
+                return;
+            }
+            long target = appendedLsn;
+            try {
+                journal.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            durableLsn = target;
+        }
+    }
+
+    /**
+     * Force all appended records to storage.
+     *
+     * @throws UncheckedIOException if an I/O error occurs
+     */
+    public void sync() {
+        force(appendedLsn);
+    }
+
+    /**
+     * Write all mappings into snapshot and truncate journal.
+     *
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if context is closed
+     */
+    public synchronized void compact() throws IOException {
+        if (closed) {
+            throw new IllegalStateException(CLOSED);
+        }
+        Path tmp = directory.resolve(SNAPSHOT_TMP_FILE);
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+            new CompactContextWriter(out).writeContext(memory);
+            out.flush();
+            fos.getChannel().force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        journal.truncate(0);
+        journal.position(0);
+        journal.force(true);
+        synchronized (syncMonitor) {
+            durableLsn = appendedLsn;
+        }
+    }
+
+    /**
+     * Force entries of context directory to storage, so replacement
+     * of snapshot survives power loss before journal is truncated.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    void forceDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Get context directory.
+     *
+     * @return directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Get durability of mutations.
+     *
+     * @return durability
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Force journal to storage and release it.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed && !journal.isOpen()) {
+                return;
+            }
+            closed = true;
+        }
+        synchronized (syncMonitor) {
+            try {
+                if (journal.isOpen()) {
+                    journal.force(false);
+                    durableLsn = appendedLsn;
+                }
+            } finally {
+                journalLock.release();
+                journal.close();
+            }
+        }
+    }
+
+    private Object writeReplace() {
+        return copy();
+    }
+
+    private synchronized Object putLogged(String key, Object value) {
+        append(PUT, key, value);
+        Object oldVal = memory.put(key, value);
+        afterAppend();
+        return oldVal;
+    }
+
+    private synchronized Object removeLogged(String key) {
+        append(REMOVE, key, null);
+        Object oldVal = memory.remove(key);
+        afterAppend();
+        return oldVal;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        checkNullKV(key, value);
+        Object oldVal;
+        long lsn;
+        synchronized (this) {
+            oldVal = putLogged(key, value);
+            lsn = appendedLsn;
+        }
+        awaitDurable(lsn);
+        return oldVal;
+    }
+
+    @Override
+    public synchronized Object get(String key) {
+        checkNullKey(key);
+        return memory.get(key);
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        checkNullKV(key, value);
+        Object curVal;
+        long lsn = 0;
+        synchronized (this) {
+            curVal = memory.get(key);
+            if (curVal == null) {
+                putLogged(key, value);
+                lsn = appendedLsn;
+            }
+        }
+        awaitDurable(lsn);
+        return curVal;
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        checkNullKV(key, value);
+        Object curVal;
+        long lsn = 0;
+        synchronized (this) {
+            curVal = memory.get(key);
+            if (curVal == null && !memory.containsKey(key)) {
+                putLogged(key, value);
+                lsn = appendedLsn;
+            }
+        }
+        awaitDurable(lsn);
+        return curVal;
+    }
+
+    @Override
+    public synchronized Object getOrDefault(String key, Object defaultValue) {
+        checkNullKey(key);
+        return memory.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public synchronized Object getOrCompute(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        return memory.getOrCompute(key, function);
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(function);
+        Object value;
+        long lsn = 0;
+        synchronized (this) {
+            if (memory.containsKey(key)) {
+                return memory.get(key);
+            }
+            value = function.apply(key);
+            checkNullValue(value);
+            putLogged(key, value);
+            lsn = appendedLsn;
+        }
+        awaitDurable(lsn);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(valueType);
+        Objects.requireNonNull(function);
+        T value;
+        long lsn = 0;
+        synchronized (this) {
+            Object curVal = memory.get(key);
+            if (valueType.isInstance(curVal)) {
+                return (T) curVal;
+            }
+            value = function.apply(key);
+            checkNullValue(value);
+            putLogged(key, value);
+            lsn = appendedLsn;
+        }
+        awaitDurable(lsn);
+        return value;
+    }
+
+    @Override
+    public Object remove(String key) {
+        checkNullKey(key);
+        Object oldVal = null;
+        long lsn = 0;
+        synchronized (this) {
+            if (memory.containsKey(key)) {
+                oldVal = removeLogged(key);
+                lsn = appendedLsn;
+            }
+        }
+        awaitDurable(lsn);
+        return oldVal;
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        checkNullKey(key);
+        long lsn;
+        synchronized (this) {
+            if (!memory.containsKey(key) || memory.get(key) != value) {
+                return false;
+            }
+            removeLogged(key);
+            lsn = appendedLsn;
+        }
+        awaitDurable(lsn);
+        return true;
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(function);
+        Object oldVal;
+        long lsn;
+        synchronized (this) {
+            if (!memory.containsKey(key)) {
+                return function.apply(key);
+            }
+            oldVal = removeLogged(key);
+            lsn = appendedLsn;
+        }
+        awaitDurable(lsn);
+        return oldVal;
+    }
+
+    @Override
+    public synchronized boolean containsKey(String key) {
+        checkNullKey(key);
+        return memory.containsKey(key);
+    }
+
+    @Override
+    public synchronized boolean containsValue(Object value) {
+        checkNullValue(value);
+        return memory.containsValue(value);
+    }
+
+    @Override
+    public synchronized int size() {
+        return memory.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return memory.isEmpty();
+    }
+
+    @Override
+    public Context clear() {
+        long lsn;
+        synchronized (this) {
+            append(CLEAR, null, null);
+            memory.clear();
+            afterAppend();
+            lsn = appendedLsn;
+        }
+        awaitDurable(lsn);
+        return this;
+    }
+
+    @Override
+    public synchronized Context.Keys keys() {
+        SeparatedKeys keys = new SeparatedKeys(memory.size());
+        for (String key : memory.keys()) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Override
+    public synchronized Context.Values values() {
+        SeparatedValues values = new SeparatedValues(memory.size());
+        for (Object value : memory.values()) {
+            values.add(value);
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized Context.Entries entries() {
+        SeparatedEntries entries = new SeparatedEntries(memory.size());
+        for (Entry entry : memory.entries()) {
+            entries.add(new SeparatedEntry(entry.getKey(), entry.getValue()));
+        }
+        return entries;
+    }
+
+    /**
+     * Footprint of in-memory mappings, journal buffers are not included.
+     */
+    @Override
+    public synchronized long getStructureFootprint() {
+        return memory.getStructureFootprint();
+    }
+
+    @Override
+    public synchronized long getPayloadFootprint() {
+        return memory.getPayloadFootprint();
+    }
+
+    @Override
+    public ValueSizer getValueSizer() {
+        return memory.getValueSizer();
+    }
+
+    @Override
+    public synchronized void setValueSizer(ValueSizer valueSizer) {
+        memory.setValueSizer(valueSizer);
+    }
+
+    /**
+     * Copy is an in-memory context, that is not journaled.
+     */
+    @Override
+    public synchronized Context copy() {
+        return memory.copy();
+    }
+
+    /**
+     * Copy is an in-memory context, that is not journaled.
+     */
+    @Override
+    public synchronized Context copy(BiPredicate<String, Object> criteria) {
+        return memory.copy(criteria);
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        Objects.requireNonNull(criteria);
+        long lsn = 0;
+        synchronized (this) {
+            for (Entry entry : entries()) {
+                if (!criteria.test(entry.getKey(), entry.getValue())) {
+                    removeLogged(entry.getKey());
+                    lsn = appendedLsn;
+                }
+            }
+        }
+        awaitDurable(lsn);
+        return this;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return memory.toString();
+    }
+}
@@ -1,9 +1,13 @@
 package org.nolab.util.context.impl;
 
 import org.nolab.util.context.Context;
+import org.nolab.util.context.MemoryFootprint;
+import org.nolab.util.context.ValueSizers;
+import org.nolab.util.context.impl.io.CompactContextReader;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Map;
 import java.util.Objects;
 import java.util.function.BiPredicate;
@@ -14,13 +18,19 @@ import java.util.function.Supplier;
  * Context, based on encapsulated {@link Map <String, Object>}.
  * Has a {@link LinkedIterator}.
  */
-public class MapBasedLIContext extends AbstractLIContext {
+public class MapBasedLIContext extends AbstractLIContext implements MemoryFootprint {
 
-    private static final long serialVersionUID = -267705991293185000L;
+    private static final long serialVersionUID = 4920170335615428106L;
 
     private static final int DEFAULT_CAPACITY = 16;
 
-    private final Map<String, Object> map;
+    /**
+     * Estimated size of context with map and suppliers references and of empty map.
+     */
+    private static final long FOOTPRINT = ValueSizers.align(ValueSizers.OBJECT_HEADER + LI_CONTEXT_FIELDS
+            + 3 * ValueSizers.REFERENCE) + HASH_MAP_FOOTPRINT;
+
+    private transient Map<String, Object> map;
     private final Supplier<Map<String, Object>> defaultMapSupplier;
     private final IntFunction<Map<String, Object>> capacityMapSupplier;
 
@@ -191,17 +201,46 @@ public class MapBasedLIContext extends AbstractLIContext {
         node.remove();
     }
 
+    private void writeObject(ObjectOutputStream s) throws IOException {
+        write(s);
+    }
+
     private void readObject(ObjectInputStream s)
             throws IOException, ClassNotFoundException {
         s.defaultReadObject();
+        CompactContextReader reader = new CompactContextReader(s);
+        int sz = reader.readSize();
+        map = createMap(sz);
+        head = new IterNode(null, null);
         size = 0;
-        for (Map.Entry<String, Object> mapEntry : map.entrySet()) {
-            IterNode node = (IterNode) mapEntry.getValue();
-            addNodeToHead(node);
-            size++;
+        reader.readEntries(sz, this::addNewNode);
+    }
+
+    /**
+     * Create empty map with one of suppliers.
+     */
+    private Map<String, Object> createMap(int capacity) {
+        if (capacityMapSupplier != null) {
+            return capacityMapSupplier.apply(capacity);
+        } else {
+            return defaultMapSupplier.get();
         }
     }
 
+    /**
+     * Rebuild encapsulated map with capacity, sufficient for current mappings.
+     */
+    public void trimToSize() {
+        Map<String, Object> trimmed = createMap(map.size());
+        trimmed.putAll(map);
+        map = trimmed;
+    }
+
+    @Override
+    public long getStructureFootprint() {
+        return FOOTPRINT + (size + 1) * NODE_FOOTPRINT + size * MAP_ENTRY_FOOTPRINT;
+    }
+
     @Override
     public Context clear() {
         map.clear();
@@ -1,7 +1,15 @@
 package org.nolab.util.context.impl;
 
 import org.nolab.util.context.Context;
-
+import org.nolab.util.context.MemoryFootprint;
+import org.nolab.util.context.ValueSizer;
+import org.nolab.util.context.ValueSizers;
+import org.nolab.util.context.impl.io.CompactContextReader;
+import org.nolab.util.context.impl.io.CompactContextWriter;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.*;
 import java.util.function.*;
 
@@ -10,13 +18,19 @@ import java.util.function.*;
  * Has a {@link SeparatedIterator}.
  * Not thread-safe.
  */
-public class MapBasedSIContext extends AbstractContext {
+public class MapBasedSIContext extends AbstractContext implements MemoryFootprint {
 
-    private static final long serialVersionUID = 7126896132763235914L;
+    private static final long serialVersionUID = -3048519720375510253L;
 
     private static final int DEFAULT_CAPACITY = 16;
 
-    private final Map<String, Object> map;
+    /**
+     * Estimated size of context with map and suppliers references and of empty map.
+     */
+    private static final long FOOTPRINT = ValueSizers.align(ValueSizers.OBJECT_HEADER + CONTEXT_FIELDS
+            + 3 * ValueSizers.REFERENCE) + HASH_MAP_FOOTPRINT;
+
+    private transient Map<String, Object> map;
     private final Supplier<Map<String, Object>> defaultMapSupplier;
     private final IntFunction<Map<String, Object>> capacityMapSupplier;
 
@@ -131,7 +145,7 @@ public class MapBasedSIContext extends AbstractContext {
             if (map.containsKey(key)) {
                 throw new IllegalArgumentException("Key duplication: " + key);
             }
-            map.put(key, value);
+            putAccounted(key, value);
         }
     }
 
@@ -169,6 +183,91 @@ public class MapBasedSIContext extends AbstractContext {
         this(false, false, null, capacityMapSupplier, source);
     }
 
+    private void writeObject(ObjectOutputStream s) throws IOException {
+        s.defaultWriteObject();
+        CompactContextWriter writer = new CompactContextWriter(s);
+        writer.writeSize(map.size());
+        for (Map.Entry<String, Object> mapEntry : map.entrySet()) {
+            writer.writeEntry(mapEntry.getKey(), mapEntry.getValue());
+        }
+    }
+
+    private void readObject(ObjectInputStream s)
+            throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        CompactContextReader reader = new CompactContextReader(s);
+        int sz = reader.readSize();
+        map = createMap(sz);
+        reader.readEntries(sz, this::putAccounted);
+    }
+
+    /**
+     * Put mapping into map and account it.
+     */
+    private Object putAccounted(String key, Object value) {
+        int sz = map.size();
+        Object oldVal = map.put(key, value);
+        if (map.size() != sz) {
+            payloadFootprint += sizeOf(key, value);
+        } else {
+            ValueSizer sizer = valueSizer();
+            payloadFootprint += sizer.sizeOf(value) - sizer.sizeOf(oldVal);
+        }
+        return oldVal;
+    }
+
+    /**
+     * Remove mapping from map and account it.
+     */
+    private Object removeAccounted(String key) {
+        int sz = map.size();
+        Object oldVal = map.remove(key);
+        if (map.size() != sz) {
+            payloadFootprint -= sizeOf(key, oldVal);
+        }
+        return oldVal;
+    }
+
+    /**
+     * Rebuild encapsulated map with capacity, sufficient for current mappings.
+     */
+    public void trimToSize() {
+        Map<String, Object> trimmed = createMap(map.size());
+        trimmed.putAll(map);
+        map = trimmed;
+    }
+
+    @Override
+    public long getStructureFootprint() {
+        return FOOTPRINT + map.size() * MAP_ENTRY_FOOTPRINT;
+    }
+
+    @Override
+    public long getPayloadFootprint() {
+        return payloadFootprint;
+    }
+
+    @Override
+    public ValueSizer getValueSizer() {
+        return valueSizer();
+    }
+
+    @Override
+    public void setValueSizer(ValueSizer valueSizer) {
+        changeValueSizer(valueSizer);
+    }
+
+    /**
+     * Create empty map with one of suppliers.
+     */
+    private Map<String, Object> createMap(int capacity) {
+        if (capacityMapSupplier != null) {
+            return capacityMapSupplier.apply(capacity);
+        } else {
+            return defaultMapSupplier.get();
+        }
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -191,7 +290,7 @@ public class MapBasedSIContext extends AbstractContext {
     @Override
     public Object put(String key, Object value) {
         checkNullKV(key, value);
-        return map.put(key, value);
+        return putAccounted(key, value);
     }
 
     @Override
@@ -203,7 +302,11 @@ public class MapBasedSIContext extends AbstractContext {
     @Override
     public Object putIfAbsent(String key, Object value) {
         checkNullKV(key, value);
-        return map.putIfAbsent(key, value);
+        Object curVal = map.get(key);
+        if (curVal == null) {
+            putAccounted(key, value);
+        }
+        return curVal;
     }
 
     @Override
@@ -212,7 +315,7 @@ public class MapBasedSIContext extends AbstractContext {
         if (map.containsKey(key)) {
             return map.get(key);
         }
-        return map.put(key, value);
+        return putAccounted(key, value);
     }
 
     @Override
@@ -243,7 +346,7 @@ public class MapBasedSIContext extends AbstractContext {
         }
         Object newVal = function.apply(key);
         checkNullValue(newVal);
-        map.put(key, newVal);
+        putAccounted(key, newVal);
         return newVal;
     }
 
@@ -258,14 +361,14 @@ public class MapBasedSIContext extends AbstractContext {
         }
         T newVal = function.apply(key);
         checkNullValue(newVal);
-        map.put(key, newVal);
+        putAccounted(key, newVal);
         return newVal;
     }
 
     @Override
     public Object remove(String key) {
         checkNullKey(key);
-        return map.remove(key);
+        return removeAccounted(key);
     }
 
     @Override
@@ -274,7 +377,7 @@ public class MapBasedSIContext extends AbstractContext {
         Object val = map.get(key);
         boolean same = val == value;
         if (same) {
-            map.remove(key);
+            removeAccounted(key);
         }
         return same;
     }
@@ -284,7 +387,7 @@ public class MapBasedSIContext extends AbstractContext {
         checkNullKey(key);
         Objects.requireNonNull(function);
         if (map.containsKey(key)) {
-            return map.remove(key);
+            return removeAccounted(key);
         }
         return function.apply(key);
     }
@@ -334,6 +437,7 @@ public class MapBasedSIContext extends AbstractContext {
     @Override
     public Context clear() {
         map.clear();
+        payloadFootprint = 0;
         return this;
     }
 
@@ -379,7 +483,7 @@ public class MapBasedSIContext extends AbstractContext {
             String key = entry.getKey();
             Object value = entry.getValue();
             if (criteria.test(key, value)) {
-                copy.map.put(key, value);
+                copy.putAccounted(key, value);
             }
         }
         return copy;
@@ -396,7 +500,7 @@ public class MapBasedSIContext extends AbstractContext {
             }
         }
         for (String key : keysToRemove) {
-            map.remove(key);
+            removeAccounted(key);
         }
         return this;
     }
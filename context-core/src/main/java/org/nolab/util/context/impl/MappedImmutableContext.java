@@ -0,0 +1,504 @@
+package org.nolab.util.context.impl;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.context.ImmutableContext;
+import org.nolab.util.context.impl.io.CompactContextReader;
+import org.nolab.util.context.impl.io.CompactContextWriter;
+import org.nolab.util.context.impl.mapb.CapacityMapSuppliers;
+import org.nolab.util.context.shells.BaseImmutableContextShell;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ConcurrentModificationException;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Immutable context, backed by file, mapped into memory.
+ * File is written by {@link #write(Context, Path)} and opened
+ * by {@link #open(Path)}. Opening does not read mappings:
+ * key lookup is done in hash index of the file and value is
+ * decoded from mapped memory on each access.
+ * <p>File layout: header, entries, open addressing hash index.
+ * Each entry is UTF-8 key and value, encoded by {@link CompactContextWriter}.
+ * Each index slot contains key hash and 64-bit entry offset.
+ * File is mapped by segments of 1GB, so its size is not limited
+ * by capacity of single buffer; entry never crosses segment boundary,
+ * so size of entry is limited by 1GB.
+ * <p>Several processes may open the same file and share its pages.
+ * File must not be modified while it is opened.
+ * Null keys not allowed.
+ * Thread-safe.
+ */
+public class MappedImmutableContext extends AbstractContext implements ImmutableContext {
+
+    private static final long serialVersionUID = -2195806630719408873L;
+
+    private static final int MAGIC = 0x4354584D;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 16;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final int MIN_SEGMENT_SHIFT = 8;
+
+    /**
+     * Key length, that marks unused tail of segment.
+     */
+    private static final int PADDING = -1;
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * Path to mapped file. Only path is serialized,
+     * deserialized instance maps the same file.
+     */
+    private final String path;
+
+    private transient ByteBuffer[] segments;
+    private transient int segmentShift;
+    private transient int segmentMask;
+    private transient int size;
+    private transient int mask;
+    private transient long indexOffset;
+
+    private MappedImmutableContext(String path, ByteBuffer[] segments) throws IOException {
+        super(false, true);
+        this.path = path;
+        init(segments);
+    }
+
+    /**
+     * Map file, written by {@link #write(Context, Path)}.
+     *
+     * @param path path to file
+     * @return context, backed by file
+     * @throws IOException if an I/O error occurs or file has invalid format
+     */
+    public static MappedImmutableContext open(Path path) throws IOException {
+        String absolute = path.toAbsolutePath().toString();
+        return new MappedImmutableContext(absolute, map(absolute));
+    }
+
+    /**
+     * Write all mappings of context into file with layout, suitable
+     * for {@link #open(Path)}. File is written into sibling temporary file,
+     * forced to storage and atomically moved to specified path, so existing
+     * file is replaced as a whole and contexts, which already map it, keep
+     * reading old content.
+     *
+     * @param context source context
+     * @param path path to file
+     * @throws IOException if an I/O error occurs, value is not serializable
+     *         or entry size exceeds 1GB
+     * @throws IllegalArgumentException if context contains {@code null} key
+     * @throws ConcurrentModificationException if context was modified during writing
+     */
+    public static void write(Context context, Path path) throws IOException {
+        write(context, path, SEGMENT_SHIFT);
+    }
+
+    /**
+     * Write file with segments of {@code 2^segmentShift} bytes.
+     */
+    static void write(Context context, Path path, int segmentShift) throws IOException {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(path);
+        if (segmentShift < MIN_SEGMENT_SHIFT || segmentShift > SEGMENT_SHIFT) {
+            throw new IllegalArgumentException("Invalid segment shift: " + segmentShift);
+        }
+        long segmentSize = 1L << segmentShift;
+        int size = context.size();
+        int[] hashes = new int[size];
+        long[] offsets = new long[size];
+        int count = 0;
+        int tableLength = tableLength(size);
+
+        ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+        CompactContextWriter valueWriter = new CompactContextWriter(new DataOutputStream(valueBytes), false);
+        Path tmp = path.resolveSibling(path.getFileName() + TMP_SUFFIX);
+        boolean moved = false;
+        try {
+            try (FileOutputStream fos = new FileOutputStream(tmp.toFile())) {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+                out.write(new byte[HEADER_SIZE]);
+                long position = HEADER_SIZE;
+                for (Entry entry : context.entries()) {
+                    String key = entry.getKey();
+                    if (key == null) {
+                        throw new IllegalArgumentException(NULL_KEYS_NOT_SUPPORTED);
+                    }
+                    if (count == size) {
+                        throw new ConcurrentModificationException();
+                    }
+                    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                    valueBytes.reset();
+                    valueWriter.writeValue(entry.getValue());
+                    long entrySize = 8L + keyBytes.length + valueBytes.size();
+                    if (entrySize > segmentSize) {
+                        throw new IOException("Entry size exceeds " + segmentSize + " bytes: " + key);
+                    }
+                    long remaining = segmentSize - (position & (segmentSize - 1));
+                    if (entrySize > remaining) {
+                        if (remaining >= 4) {
+                            out.writeInt(PADDING);
+                            writeZeros(out, remaining - 4);
+                        } else {
+                            writeZeros(out, remaining);
+                        }
+                        position += remaining;
+                    }
+                    hashes[count] = key.hashCode();
+                    offsets[count] = position;
+                    count++;
+                    out.writeInt(keyBytes.length);
+                    out.write(keyBytes);
+                    out.writeInt(valueBytes.size());
+                    valueBytes.writeTo(out);
+                    position += entrySize;
+                }
+                if (count != size) {
+                    throw new ConcurrentModificationException();
+                }
+
+                int alignment = (int) (-position & (SLOT_SIZE - 1));
+                writeZeros(out, alignment);
+                long indexOffset = position + alignment;
+                int[] tableHashes = new int[tableLength];
+                long[] tableOffsets = new long[tableLength];
+                for (int i = 0; i < size; i++) {
+                    int slot = spread(hashes[i]) & (tableLength - 1);
+                    while (tableOffsets[slot] != 0) {
+                        slot = (slot + 1) & (tableLength - 1);
+                    }
+                    tableHashes[slot] = hashes[i];
+                    tableOffsets[slot] = offsets[i];
+                }
+                for (int i = 0; i < tableLength; i++) {
+                    out.writeInt(tableHashes[i]);
+                    out.writeInt(0);
+                    out.writeLong(tableOffsets[i]);
+                }
+                out.flush();
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(tableLength)
+                        .putLong(indexOffset).putInt(segmentShift);
+                header.clear();
+                FileChannel channel = fos.getChannel();
+                long written = 0;
+                while (header.hasRemaining()) {
+                    written += channel.write(header, written);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            moved = true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    private static void writeZeros(DataOutputStream out, long count) throws IOException {
+        byte[] zeros = new byte[(int) Math.min(count, 8192)];
+        for (long left = count; left > 0; left -= zeros.length) {
+            out.write(zeros, 0, (int) Math.min(left, zeros.length));
+        }
+    }
+
+    private static int tableLength(int size) {
+        long length = 1;
+        while (length < (long) size * 2) {
+            length <<= 1;
+        }
+        if (length > 1 << 30) {
+            throw new IllegalArgumentException("Too many mappings: " + size);
+        }
+        return (int) length;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static ByteBuffer[] map(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                // read whole header
+            }
+            int segmentShift = header.getInt(24);
+            if (header.hasRemaining()
+                    || header.getInt(0) != MAGIC || header.getInt(4) != VERSION
+                    || segmentShift < MIN_SEGMENT_SHIFT || segmentShift > SEGMENT_SHIFT) {
+                throw new StreamCorruptedException("Invalid mapped context file: " + path);
+            }
+            ByteBuffer[] segments = new ByteBuffer[(int) ((fileSize - 1 >>> segmentShift) + 1)];
+            for (int i = 0; i < segments.length; i++) {
+                long start = (long) i << segmentShift;
+                long length = Math.min(1L << segmentShift, fileSize - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            }
+            return segments;
+        }
+    }
+
+    private void init(ByteBuffer[] segments) throws IOException {
+        ByteBuffer header = segments[0];
+        int segmentShift = header.getInt(24);
+        long fileSize = ((long) (segments.length - 1) << segmentShift)
+                + segments[segments.length - 1].capacity();
+        int tableLength = header.getInt(12);
+        long indexOffset = header.getLong(16);
+        if (Integer.bitCount(tableLength) != 1
+                || indexOffset < HEADER_SIZE
+                || (indexOffset & (SLOT_SIZE - 1)) != 0
+                || indexOffset + (long) tableLength * SLOT_SIZE > fileSize) {
+            throw new StreamCorruptedException("Invalid mapped context file: " + path);
+        }
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.size = header.getInt(8);
+        this.mask = tableLength - 1;
+        this.indexOffset = indexOffset;
+    }
+
+    private ByteBuffer segment(long position) {
+        return segments[(int) (position >>> segmentShift)];
+    }
+
+    /**
+     * Find offset of entry with given key.
+     *
+     * @param key key for lookup
+     * @return entry offset or {@code 0} if there is no such entry
+     */
+    private long findEntry(String key) {
+        int hash = key.hashCode();
+        byte[] keyBytes = null;
+        int slot = spread(hash) & mask;
+        while (true) {
+            long position = indexOffset + (long) slot * SLOT_SIZE;
+            ByteBuffer segment = segment(position);
+            int local = (int) position & segmentMask;
+            long offset = segment.getLong(local + 8);
+            if (offset == 0) {
+                return 0;
+            }
+            if (segment.getInt(local) == hash) {
+                if (keyBytes == null) {
+                    keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                }
+                if (keyEquals(offset, keyBytes)) {
+                    return offset;
+                }
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(long offset, byte[] keyBytes) {
+        ByteBuffer segment = segment(offset);
+        int local = (int) offset & segmentMask;
+        if (segment.getInt(local) != keyBytes.length) {
+            return false;
+        }
+        int start = local + 4;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (segment.get(start + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String keyAt(long offset) {
+        ByteBuffer segment = segment(offset);
+        int local = (int) offset & segmentMask;
+        byte[] keyBytes = new byte[segment.getInt(local)];
+        int start = local + 4;
+        for (int i = 0; i < keyBytes.length; i++) {
+            keyBytes[i] = segment.get(start + i);
+        }
+        return new String(keyBytes, StandardCharsets.UTF_8);
+    }
+
+    private Object valueAt(long offset) {
+        ByteBuffer segment = segment(offset);
+        int local = (int) offset & segmentMask;
+        try {
+            return CompactContextReader.readValue(segment, local + 8 + segment.getInt(local));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Get offset of entry, that starts at or after specified position,
+     * skipping unused tail of segment. Entries are iterated by count,
+     * so position must precede existing entry.
+     */
+    private long skipPadding(long position) {
+        int local = (int) position & segmentMask;
+        int remaining = segmentMask + 1 - local;
+        if (remaining < 4 || segment(position).getInt(local) == PADDING) {
+            return position + remaining;
+        }
+        return position;
+    }
+
+    private long nextEntry(long offset) {
+        ByteBuffer segment = segment(offset);
+        int local = (int) offset & segmentMask;
+        int valuePosition = local + 4 + segment.getInt(local);
+        return offset + (valuePosition + 4 + segment.getInt(valuePosition) - local);
+    }
+
+    /**
+     * Get path of mapped file.
+     *
+     * @return absolute path
+     */
+    public Path getPath() {
+        return Paths.get(path);
+    }
+
+    @Override
+    public Object get(String key) {
+        checkNullKey(key);
+        long offset = findEntry(key);
+        return offset == 0 ? null : valueAt(offset);
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        checkNullKey(key);
+        long offset = findEntry(key);
+        return offset == 0 ? defaultValue : valueAt(offset);
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(function);
+        long offset = findEntry(key);
+        return offset == 0 ? function.apply(key) : valueAt(offset);
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        checkNullKey(key);
+        return findEntry(key) != 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        checkNullValue(value);
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < size; i++) {
+            offset = skipPadding(offset);
+            if (Objects.equals(value, valueAt(offset))) {
+                return true;
+            }
+            offset = nextEntry(offset);
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Context.Keys keys() {
+        SeparatedKeys keys = new SeparatedKeys(size);
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < size; i++) {
+            offset = skipPadding(offset);
+            keys.add(keyAt(offset));
+            offset = nextEntry(offset);
+        }
+        return keys;
+    }
+
+    @Override
+    public Context.Values values() {
+        SeparatedValues values = new SeparatedValues(size);
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < size; i++) {
+            offset = skipPadding(offset);
+            values.add(valueAt(offset));
+            offset = nextEntry(offset);
+        }
+        return values;
+    }
+
+    @Override
+    public Context.Entries entries() {
+        SeparatedEntries entries = new SeparatedEntries(size);
+        long offset = HEADER_SIZE;
+        for (int i = 0; i < size; i++) {
+            offset = skipPadding(offset);
+            entries.add(new SeparatedEntry(keyAt(offset), valueAt(offset)));
+            offset = nextEntry(offset);
+        }
+        return entries;
+    }
+
+    /**
+     * Copy shares mapped file with this instance.
+     */
+    @Override
+    public ImmutableContext copy() {
+        try {
+            return new MappedImmutableContext(path, segments);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Copy is separated from mapped file and contains decoded values.
+     */
+    @Override
+    public ImmutableContext copy(BiPredicate<String, Object> criteria) {
+        Objects.requireNonNull(criteria);
+        Context copy = new MapBasedLIContext(false, true, null, CapacityMapSuppliers.HASH_MAP, size);
+        forEach(criteria, copy::put);
+        return new BaseImmutableContextShell(copy);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Context {");
+        for (Entry entry : entries()) {
+            sb.append(entry.getKey()).append("=").append(entry.getValue()).append("; ");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        init(map(path));
+    }
+}
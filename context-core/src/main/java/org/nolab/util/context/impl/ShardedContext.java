@@ -0,0 +1,550 @@
+package org.nolab.util.context.impl;
+
+import org.nolab.util.context.Context;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * Thread-safe context, composed of several shards. Every key is routed
+ * by its hash code to one shard. Shards are any {@link Context} implementations,
+ * each shard is guarded by its own read-write lock, so operations
+ * on keys of different shards do not contend.
+ * <p>Operations over whole context combine shards according to
+ * {@link Consistency}. Functions and criteria are run under shard locks
+ * and must not use this context.
+ * Null keys not allowed.
+ */
+public class ShardedContext extends AbstractContext {
+
+    private static final long serialVersionUID = -7806315092261539548L;
+
+    /**
+     * Consistency of operations over whole context.
+     */
+    public enum Consistency {
+
+        /**
+         * Shards are locked one by one, so result of whole-context operation
+         * may reflect concurrent modifications partially, as if they were
+         * done between processing of shards. Whole-context operations
+         * never block all shards at once.
+         */
+        WEAK,
+
+        /**
+         * All shards are locked in the same order before whole-context
+         * operation, so it is atomic with regard to other operations.
+         */
+        ATOMIC
+    }
+
+    public static final int DEFAULT_SHARD_COUNT = 16;
+
+    private final Context[] shards;
+    private final Consistency consistency;
+    private transient ReentrantReadWriteLock[] locks;
+
+    /**
+     * Constructor with full parameters set.
+     *
+     * @param supportNullValues null values option
+     * @param shardCount number of shards
+     * @param shardFactory function, that creates shard by its index
+     * @param consistency consistency of whole-context operations
+     * @throws IllegalArgumentException if {@code shardCount} is not positive
+     * @throws NullPointerException if {@code shardFactory}, {@code consistency}
+     * or any created shard is {@code null}
+     */
+    public ShardedContext(boolean supportNullValues, int shardCount,
+                          IntFunction<? extends Context> shardFactory, Consistency consistency) {
+        super(false, supportNullValues);
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Invalid shard count: " + shardCount);
+        }
+        Objects.requireNonNull(shardFactory);
+        this.consistency = Objects.requireNonNull(consistency);
+        this.shards = new Context[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = Objects.requireNonNull(shardFactory.apply(i));
+        }
+        initLocks();
+    }
+
+    /**
+     * @see #ShardedContext(boolean, int, IntFunction, Consistency)
+     */
+    public ShardedContext(int shardCount, IntFunction<? extends Context> shardFactory,
+                          Consistency consistency) {
+        this(true, shardCount, shardFactory, consistency);
+    }
+
+    /**
+     * Context with {@link #DEFAULT_SHARD_COUNT} hash context shards
+     * and weak consistency.
+     */
+    public ShardedContext() {
+        this(true, DEFAULT_SHARD_COUNT, i -> new HashContext(), Consistency.WEAK);
+    }
+
+    private ShardedContext(boolean supportNullValues, Context[] shards, Consistency consistency) {
+        super(false, supportNullValues);
+        this.shards = shards;
+        this.consistency = consistency;
+        initLocks();
+    }
+
+    private void initLocks() {
+        locks = new ReentrantReadWriteLock[shards.length];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Get number of shards.
+     *
+     * @return number of shards
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Get consistency of whole-context operations.
+     *
+     * @return consistency
+     */
+    public Consistency getConsistency() {
+        return consistency;
+    }
+
+    private int shardIndex(String key) {
+        int h = key.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    /**
+     * Lock all shards for whole-context operation, if consistency is atomic.
+     */
+    private void lockAll(boolean write) {
+        if (consistency == Consistency.ATOMIC) {
+            for (ReentrantReadWriteLock lock : locks) {
+                (write ? lock.writeLock() : lock.readLock()).lock();
+            }
+        }
+    }
+
+    private void unlockAll(boolean write) {
+        if (consistency == Consistency.ATOMIC) {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                (write ? locks[i].writeLock() : locks[i].readLock()).unlock();
+            }
+        }
+    }
+
+    /**
+     * Lock single shard during whole-context operation,
+     * if consistency is weak.
+     */
+    private void lockShard(int index, boolean write) {
+        if (consistency == Consistency.WEAK) {
+            (write ? locks[index].writeLock() : locks[index].readLock()).lock();
+        }
+    }
+
+    private void unlockShard(int index, boolean write) {
+        if (consistency == Consistency.WEAK) {
+            (write ? locks[index].writeLock() : locks[index].readLock()).unlock();
+        }
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        checkNullKV(key, value);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].put(key, value);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object get(String key) {
+        checkNullKey(key);
+        int i = shardIndex(key);
+        locks[i].readLock().lock();
+        try {
+            return shards[i].get(key);
+        } finally {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfAbsent(String key, Object value) {
+        checkNullKV(key, value);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].putIfAbsent(key, value);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object putIfKeyAbsent(String key, Object value) {
+        checkNullKV(key, value);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].putIfKeyAbsent(key, value);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrDefault(String key, Object defaultValue) {
+        checkNullKey(key);
+        int i = shardIndex(key);
+        locks[i].readLock().lock();
+        try {
+            return shards[i].getOrDefault(key, defaultValue);
+        } finally {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrCompute(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(function);
+        int i = shardIndex(key);
+        locks[i].readLock().lock();
+        try {
+            return shards[i].getOrCompute(key, function);
+        } finally {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    @Override
+    public Object getOrComputeAndPut(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(function);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].getOrComputeAndPut(key, function);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> T getOrComputeAndPut(String key, Class<T> valueType, Function<String, T> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(valueType);
+        Objects.requireNonNull(function);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].getOrComputeAndPut(key, valueType, function);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object remove(String key) {
+        checkNullKey(key);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].remove(key);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean removeExactly(String key, Object value) {
+        checkNullKey(key);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].removeExactly(key, value);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Object removeOrCompute(String key, Function<String, Object> function) {
+        checkNullKey(key);
+        Objects.requireNonNull(function);
+        int i = shardIndex(key);
+        locks[i].writeLock().lock();
+        try {
+            return shards[i].removeOrCompute(key, function);
+        } finally {
+            locks[i].writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(String key) {
+        checkNullKey(key);
+        int i = shardIndex(key);
+        locks[i].readLock().lock();
+        try {
+            return shards[i].containsKey(key);
+        } finally {
+            locks[i].readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        checkNullValue(value);
+        lockAll(false);
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                lockShard(i, false);
+                try {
+                    if (shards[i].containsValue(value)) {
+                        return true;
+                    }
+                } finally {
+                    unlockShard(i, false);
+                }
+            }
+            return false;
+        } finally {
+            unlockAll(false);
+        }
+    }
+
+    @Override
+    public int size() {
+        lockAll(false);
+        try {
+            int size = 0;
+            for (int i = 0; i < shards.length; i++) {
+                lockShard(i, false);
+                try {
+                    size += shards[i].size();
+                } finally {
+                    unlockShard(i, false);
+                }
+            }
+            return size;
+        } finally {
+            unlockAll(false);
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        lockAll(false);
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                lockShard(i, false);
+                try {
+                    if (!shards[i].isEmpty()) {
+                        return false;
+                    }
+                } finally {
+                    unlockShard(i, false);
+                }
+            }
+            return true;
+        } finally {
+            unlockAll(false);
+        }
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof Context)) {
+            return false;
+        }
+        Context cobj = (Context) obj;
+        Entries entries = entries();
+        int size = 0;
+        for (Entry entry : entries) {
+            if (!Objects.equals(entry.getValue(), cobj.get(entry.getKey()))
+                    || (entry.getValue() == null && !cobj.containsKey(entry.getKey()))) {
+                return false;
+            }
+            size++;
+        }
+        return size == cobj.size();
+    }
+
+    @Override
+    public Context clear() {
+        lockAll(true);
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                lockShard(i, true);
+                try {
+                    shards[i].clear();
+                } finally {
+                    unlockShard(i, true);
+                }
+            }
+        } finally {
+            unlockAll(true);
+        }
+        return this;
+    }
+
+    @Override
+    public Keys keys() {
+        return collect(Context::keys, key -> key, SeparatedKeys::new);
+    }
+
+    @Override
+    public Values values() {
+        return collect(Context::values, value -> value, SeparatedValues::new);
+    }
+
+    @Override
+    public Entries entries() {
+        return collect(Context::entries,
+                entry -> new SeparatedEntry(entry.getKey(), entry.getValue()), SeparatedEntries::new);
+    }
+
+    /**
+     * Copy has the same number of shards and consistency,
+     * its shards are copies of shards of this context.
+     */
+    @Override
+    public Context copy() {
+        Context[] copies = new Context[shards.length];
+        forEachShardIndex(i -> copies[i] = shards[i].copy());
+        return new ShardedContext(supportNullValues, copies, consistency);
+    }
+
+    /**
+     * Copy has the same number of shards and consistency,
+     * its shards are copies of shards of this context.
+     */
+    @Override
+    public Context copy(BiPredicate<String, Object> criteria) {
+        Objects.requireNonNull(criteria);
+        Context[] copies = new Context[shards.length];
+        forEachShardIndex(i -> copies[i] = shards[i].copy(criteria));
+        return new ShardedContext(supportNullValues, copies, consistency);
+    }
+
+    @Override
+    public Context filter(BiPredicate<String, Object> criteria) {
+        Objects.requireNonNull(criteria);
+        lockAll(true);
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                lockShard(i, true);
+                try {
+                    shards[i].filter(criteria);
+                } finally {
+                    unlockShard(i, true);
+                }
+            }
+        } finally {
+            unlockAll(true);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Context {");
+        for (Entry entry : entries()) {
+            sb.append(entry.getKey()).append("=").append(entry.getValue()).append("; ");
+        }
+        sb.append("}");
+        return sb.toString();
+    }
+
+    /**
+     * Copy elements of every shard according to consistency into iterator.
+     * Elements of each shard are copied under its lock into array, sized
+     * by shard, so iterator is created with total number of elements.
+     */
+    @SuppressWarnings("unchecked")
+    private <E, R, I extends SeparatedIterator<R>> I collect(Function<Context, Iterable<E>> elements,
+                                                            Function<E, R> copy, IntFunction<I> factory) {
+        Object[][] parts = new Object[shards.length][];
+        int[] total = new int[1];
+        forEachShardIndex(i -> {
+            Object[] part = new Object[shards[i].size()];
+            int count = 0;
+            for (E element : elements.apply(shards[i])) {
+                part[count++] = copy.apply(element);
+            }
+            parts[i] = part;
+            total[0] += count;
+        });
+        I result = factory.apply(total[0]);
+        for (Object[] part : parts) {
+            for (Object element : part) {
+                result.add((R) element);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read every shard by index according to consistency.
+     */
+    private void forEachShardIndex(IntConsumer action) {
+        lockAll(false);
+        try {
+            for (int i = 0; i < shards.length; i++) {
+                lockShard(i, false);
+                try {
+                    action.accept(i);
+                } finally {
+                    unlockShard(i, false);
+                }
+            }
+        } finally {
+            unlockAll(false);
+        }
+    }
+
+    private void writeObject(ObjectOutputStream s) throws IOException {
+        for (ReentrantReadWriteLock lock : locks) {
+            lock.readLock().lock();
+        }
+        try {
+            s.defaultWriteObject();
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].readLock().unlock();
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        initLocks();
+    }
+}
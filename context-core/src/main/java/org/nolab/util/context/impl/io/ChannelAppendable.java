@@ -0,0 +1,96 @@
+package org.nolab.util.context.impl.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Appendable, that encodes characters in chunks of fixed size
+ * and writes them into channel. {@link #finish()} must be called
+ * after last character.
+ * Not thread-safe.
+ */
+final class ChannelAppendable implements Appendable {
+
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars = CharBuffer.allocate(ChannelLineReader.BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(ChannelLineReader.BUFFER_SIZE);
+
+    ChannelAppendable(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+    }
+
+    /**
+     * Check, that character can be encoded by charset of this appendable.
+     */
+    boolean canEncode(char c) {
+        return encoder.canEncode(c);
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+        return append(csq, 0, csq.length());
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+        for (int i = start; i < end; i++) {
+            append(csq.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+        if (!chars.hasRemaining()) {
+            encode(false);
+        }
+        chars.put(c);
+        return this;
+    }
+
+    /**
+     * Encode and write all appended characters.
+     *
+     * @throws IOException if an I/O error occurs or characters are unmappable
+     */
+    void finish() throws IOException {
+        encode(true);
+        while (encoder.flush(bytes).isOverflow()) {
+            write();
+        }
+        write();
+    }
+
+    private void encode(boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (!result.isOverflow()) {
+                break;
+            }
+            write();
+        }
+        chars.compact();
+    }
+
+    private void write() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,106 @@
+package org.nolab.util.context.impl.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reader of text lines from channel. Bytes are read and decoded
+ * in chunks of fixed size, so only current line is held in memory.
+ * Lines are terminated by {@code \n}, {@code \r} or {@code \r\n}.
+ * Channel must be blocking.
+ * Not thread-safe.
+ */
+final class ChannelLineReader {
+
+    static final int BUFFER_SIZE = 8192;
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder line = new StringBuilder();
+
+    private boolean eof = false;
+    private boolean finished = false;
+    private boolean skipLf = false;
+    private int lineNumber = 0;
+
+    ChannelLineReader(ReadableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        chars.flip();
+    }
+
+    /**
+     * Read next line without terminator.
+     *
+     * @return line or {@code null} if end of channel is reached
+     * @throws IOException if an I/O error occurs or input is malformed
+     */
+    String readLine() throws IOException {
+        line.setLength(0);
+        boolean read = false;
+        while (true) {
+            while (chars.hasRemaining()) {
+                char c = chars.get();
+                if (skipLf) {
+                    skipLf = false;
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+                if (c == '\n' || c == '\r') {
+                    skipLf = c == '\r';
+                    lineNumber++;
+                    return line.toString();
+                }
+                line.append(c);
+                read = true;
+            }
+            if (!fill()) {
+                if (read) {
+                    lineNumber++;
+                    return line.toString();
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Get number of last line, returned by {@link #readLine()}.
+     *
+     * @return line number, starting from 1
+     */
+    int getLineNumber() {
+        return lineNumber;
+    }
+
+    private boolean fill() throws IOException {
+        chars.clear();
+        while (chars.position() == 0 && !finished) {
+            if (!eof && channel.read(bytes) < 0) {
+                eof = true;
+            }
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, eof);
+            bytes.compact();
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (eof && result.isUnderflow() && decoder.flush(chars).isUnderflow()) {
+                finished = true;
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining();
+    }
+}
@@ -0,0 +1,307 @@
+package org.nolab.util.context.impl.io;
+
+import org.nolab.util.context.Context;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+import static org.nolab.util.context.impl.io.CompactFormat.*;
+
+/**
+ * Reader of context mappings, written by {@link CompactContextWriter}.
+ * <p>Mappings must be read in the same order as they were written,
+ * because key references are resolved with per-stream dictionary.
+ * Not thread-safe.
+ */
+public class CompactContextReader {
+
+    private final DataInput in;
+    private final List<String> dictionary = new ArrayList<>();
+
+    /**
+     * Create reader over specified input.
+     *
+     * @param in underlying input
+     * @throws NullPointerException if {@code in} is {@code null}
+     */
+    public CompactContextReader(DataInput in) {
+        this.in = Objects.requireNonNull(in);
+    }
+
+    /**
+     * Read number of mappings, followed by mappings, and put them
+     * into specified acceptor.
+     *
+     * @param acceptor context, accepting mappings
+     * @return acceptor
+     * @throws IOException if an I/O error occurs or data is corrupted
+     * @throws ClassNotFoundException if class of serialized value cannot be found
+     */
+    public Context readContext(Context acceptor) throws IOException, ClassNotFoundException {
+        Objects.requireNonNull(acceptor);
+        readEntries(acceptor::put);
+        return acceptor;
+    }
+
+    /**
+     * Read number of mappings, followed by mappings, and pass them
+     * to specified acceptor.
+     *
+     * @param acceptor mappings acceptor
+     * @return number of mappings read
+     * @throws IOException if an I/O error occurs or data is corrupted
+     * @throws ClassNotFoundException if class of serialized value cannot be found
+     */
+    public int readEntries(BiConsumer<String, Object> acceptor)
+            throws IOException, ClassNotFoundException {
+        int size = readSize();
+        readEntries(size, acceptor);
+        return size;
+    }
+
+    /**
+     * Read specified number of mappings and pass them to specified acceptor.
+     *
+     * @param count number of mappings
+     * @param acceptor mappings acceptor
+     * @throws IOException if an I/O error occurs or data is corrupted
+     * @throws ClassNotFoundException if class of serialized value cannot be found
+     */
+    public void readEntries(int count, BiConsumer<String, Object> acceptor)
+            throws IOException, ClassNotFoundException {
+        Objects.requireNonNull(acceptor);
+        for (int i = 0; i < count; i++) {
+            String key = readKey();
+            acceptor.accept(key, readValue());
+        }
+    }
+
+    /**
+     * Read number of mappings.
+     *
+     * @return number of mappings, that follow
+     * @throws IOException if an I/O error occurs or data is corrupted
+     */
+    public int readSize() throws IOException {
+        int size = readVarInt();
+        if (size < 0) {
+            throw new StreamCorruptedException("Invalid size: " + size);
+        }
+        return size;
+    }
+
+    /**
+     * Read key.
+     *
+     * @return key, may be {@code null}
+     * @throws IOException if an I/O error occurs or data is corrupted
+     */
+    public String readKey() throws IOException {
+        int code = readVarInt();
+        switch (code) {
+            case KEY_NULL:
+                return null;
+            case KEY_REMEMBERED:
+                String key = readString();
+                dictionary.add(key);
+                return key;
+            case KEY_LITERAL:
+                return readString();
+            default:
+                int index = code - KEY_REFERENCE_BASE;
+                if (index < 0 || index >= dictionary.size()) {
+                    throw new StreamCorruptedException("Invalid key reference: " + index);
+                }
+                return dictionary.get(index);
+        }
+    }
+
+    /**
+     * Read type-tagged value.
+     *
+     * @return value, may be {@code null}
+     * @throws IOException if an I/O error occurs or data is corrupted
+     * @throws ClassNotFoundException if class of serialized value cannot be found
+     */
+    public Object readValue() throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString();
+            case INTEGER:
+                return unZigZag(readVarInt());
+            case LONG:
+                return unZigZag(readVarLong());
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case CHARACTER:
+                return in.readChar();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case BYTES:
+                return readBytes();
+            case SERIAL_INLINE:
+                if (!(in instanceof ObjectInput)) {
+                    throw new StreamCorruptedException("Inline serialized value in non-object input");
+                }
+                return ((ObjectInput) in).readObject();
+            case SERIAL_BYTES:
+                try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(readBytes()))) {
+                    return ois.readObject();
+                }
+            default:
+                throw new StreamCorruptedException("Invalid value tag: " + tag);
+        }
+    }
+
+    /**
+     * Read type-tagged value at specified position of buffer.
+     * Buffer is read by absolute reads only, so it may be shared;
+     * only serialized value is read through object stream.
+     *
+     * @param buffer buffer, containing value
+     * @param position position of type tag
+     * @return value, may be {@code null}
+     * @throws IOException if data is corrupted
+     * @throws ClassNotFoundException if class of serialized value cannot be found
+     * @throws IndexOutOfBoundsException if value exceeds limit of buffer
+     */
+    public static Object readValue(ByteBuffer buffer, int position) throws IOException, ClassNotFoundException {
+        byte tag = buffer.get(position++);
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return new String(readBytes(buffer, position), StandardCharsets.UTF_8);
+            case INTEGER:
+                return unZigZag(readVarInt(buffer, position));
+            case LONG:
+                return unZigZag(readVarLong(buffer, position));
+            case FALSE:
+                return Boolean.FALSE;
+            case TRUE:
+                return Boolean.TRUE;
+            case BYTE:
+                return buffer.get(position);
+            case SHORT:
+                return buffer.getShort(position);
+            case CHARACTER:
+                return buffer.getChar(position);
+            case FLOAT:
+                return buffer.getFloat(position);
+            case DOUBLE:
+                return buffer.getDouble(position);
+            case BYTES:
+                return readBytes(buffer, position);
+            case SERIAL_INLINE:
+                throw new StreamCorruptedException("Inline serialized value in non-object input");
+            case SERIAL_BYTES:
+                try (ObjectInputStream ois = new ObjectInputStream(
+                        new ByteArrayInputStream(readBytes(buffer, position)))) {
+                    return ois.readObject();
+                }
+            default:
+                throw new StreamCorruptedException("Invalid value tag: " + tag);
+        }
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int position) throws IOException {
+        int length = readVarInt(buffer, position);
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid length: " + length);
+        }
+        while ((buffer.get(position++) & 0x80) != 0) {
+            // skip length
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + i);
+        }
+        return bytes;
+    }
+
+    private static int readVarInt(ByteBuffer buffer, int position) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable-length int");
+    }
+
+    private static long readVarLong(ByteBuffer buffer, int position) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = buffer.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable-length long");
+    }
+
+    private byte[] readBytes() throws IOException {
+        int length = readVarInt();
+        if (length < 0) {
+            throw new StreamCorruptedException("Invalid length: " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private String readString() throws IOException {
+        return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private int readVarInt() throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable-length int");
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new StreamCorruptedException("Malformed variable-length long");
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
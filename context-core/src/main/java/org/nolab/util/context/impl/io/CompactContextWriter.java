@@ -0,0 +1,202 @@
+package org.nolab.util.context.impl.io;
+
+import org.nolab.util.context.Context;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.nolab.util.context.impl.io.CompactFormat.*;
+
+/**
+ * Writer of context mappings in compact binary format.
+ * <p>Keys are written as length-prefixed UTF-8. Each key is remembered
+ * in per-stream dictionary and is written as short reference when
+ * it appears again, so several contexts with same keys, written by one
+ * writer, share key bytes.
+ * <p>{@link String}, boxed primitives and {@code byte[]} values are written
+ * with type-tagged fast paths. Other values are written with java
+ * serialization: inline, if underlying output is {@link ObjectOutput},
+ * or as length-prefixed serialized bytes otherwise.
+ * <p>Data, written by this writer, must be read by {@link CompactContextReader}
+ * in the same order.
+ * Not thread-safe.
+ */
+public class CompactContextWriter {
+
+    private final DataOutput out;
+    private final Map<String, Integer> dictionary;
+
+    /**
+     * Create writer with key dictionary.
+     *
+     * @param out underlying output
+     * @throws NullPointerException if {@code out} is {@code null}
+     */
+    public CompactContextWriter(DataOutput out) {
+        this(out, true);
+    }
+
+    /**
+     * Create writer with or without key dictionary.
+     * Writer without dictionary produces self-contained entries,
+     * that may be read in any order.
+     *
+     * @param out underlying output
+     * @param keyDictionary key dictionary option
+     * @throws NullPointerException if {@code out} is {@code null}
+     */
+    public CompactContextWriter(DataOutput out, boolean keyDictionary) {
+        this.out = Objects.requireNonNull(out);
+        this.dictionary = keyDictionary ? new HashMap<>() : null;
+    }
+
+    /**
+     * Write number of mappings, followed by all mappings of specified context.
+     *
+     * @param context context to write
+     * @throws IOException if an I/O error occurs or value is not serializable
+     */
+    public void writeContext(Context context) throws IOException {
+        writeSize(context.size());
+        for (Context.Entry entry : context.entries()) {
+            writeEntry(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Write number of mappings, that will follow.
+     *
+     * @param size number of mappings
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeSize(int size) throws IOException {
+        writeVarInt(size);
+    }
+
+    /**
+     * Write single mapping.
+     *
+     * @param key key
+     * @param value value
+     * @throws IOException if an I/O error occurs or value is not serializable
+     */
+    public void writeEntry(String key, Object value) throws IOException {
+        writeKey(key);
+        writeValue(value);
+    }
+
+    /**
+     * Write key, possibly as reference to the same key, written before.
+     *
+     * @param key key, may be {@code null}
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeKey(String key) throws IOException {
+        if (key == null) {
+            writeVarInt(KEY_NULL);
+            return;
+        }
+        if (dictionary != null) {
+            Integer index = dictionary.get(key);
+            if (index != null) {
+                writeVarInt(KEY_REFERENCE_BASE + index);
+                return;
+            }
+            if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+                dictionary.put(key, dictionary.size());
+                writeVarInt(KEY_REMEMBERED);
+                writeString(key);
+                return;
+            }
+        }
+        writeVarInt(KEY_LITERAL);
+        writeString(key);
+    }
+
+    /**
+     * Write type-tagged value.
+     *
+     * @param value value, may be {@code null}
+     * @throws IOException if an I/O error occurs or value is not serializable
+     */
+    public void writeValue(Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString((String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(INTEGER);
+            writeVarInt(zigZag((Integer) value));
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            writeVarLong(zigZag((Long) value));
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Byte) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (value instanceof Character) {
+            out.writeByte(CHARACTER);
+            out.writeChar((Character) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+            out.writeByte(BYTES);
+            writeVarInt(bytes.length);
+            out.write(bytes);
+        } else if (out instanceof ObjectOutput) {
+            out.writeByte(SERIAL_INLINE);
+            ((ObjectOutput) out).writeObject(value);
+        } else {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(value);
+            }
+            out.writeByte(SERIAL_BYTES);
+            writeVarInt(bos.size());
+            out.write(bos.toByteArray());
+        }
+    }
+
+    private void writeString(String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte(((int) value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
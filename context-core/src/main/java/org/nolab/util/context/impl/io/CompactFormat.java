@@ -0,0 +1,50 @@
+package org.nolab.util.context.impl.io;
+
+/**
+ * Constants of compact binary format, shared by
+ * {@link CompactContextWriter} and {@link CompactContextReader}.
+ * <p>Every key is prefixed with a code: {@link #KEY_NULL},
+ * {@link #KEY_REMEMBERED}, {@link #KEY_LITERAL} or a reference
+ * to previously remembered key, equal to its dictionary index
+ * plus {@link #KEY_REFERENCE_BASE}.
+ * <p>Every value is prefixed with one byte type tag.
+ */
+final class CompactFormat {
+
+    static final int KEY_NULL = 0;
+    static final int KEY_REMEMBERED = 1;
+    static final int KEY_LITERAL = 2;
+    static final int KEY_REFERENCE_BASE = 3;
+
+    /**
+     * Maximal number of keys, remembered in dictionary of one stream.
+     */
+    static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INTEGER = 2;
+    static final byte LONG = 3;
+    static final byte FALSE = 4;
+    static final byte TRUE = 5;
+    static final byte BYTE = 6;
+    static final byte SHORT = 7;
+    static final byte CHARACTER = 8;
+    static final byte FLOAT = 9;
+    static final byte DOUBLE = 10;
+    static final byte BYTES = 11;
+
+    /**
+     * Value written by {@link java.io.ObjectOutput#writeObject(Object)}
+     * of the same stream.
+     */
+    static final byte SERIAL_INLINE = 12;
+
+    /**
+     * Value serialized separately and written as length-prefixed bytes.
+     */
+    static final byte SERIAL_BYTES = 13;
+
+    private CompactFormat() {
+    }
+}
@@ -0,0 +1,339 @@
+package org.nolab.util.context.impl.io;
+
+import org.nolab.util.context.Context;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Streaming reader and writer of contexts in JSON lines format:
+ * every line is a JSON object, each member of object is a mapping.
+ * Blank lines are skipped. Writer puts one mapping per line.
+ * <p>Input is decoded in chunks and every mapping is put into
+ * target context as soon as it is parsed, so no intermediate
+ * map is created. Output is encoded in chunks.
+ * <p>Only scalar values are supported. Strings, booleans and {@code null}
+ * are read as is. Integral numbers are read as {@link Integer}, {@link Long}
+ * or {@link BigInteger}, other numbers as {@link Double}.
+ * {@link Number} and {@link Boolean} values are written as JSON numbers
+ * and booleans (except not finite floating point numbers), other values
+ * are written as strings by {@link String#valueOf(Object)}.
+ * Input and output are UTF-8.
+ */
+public final class JsonLinesContextFormat {
+
+    private JsonLinesContextFormat() {
+    }
+
+    /**
+     * Read JSON lines from channel and put mappings into context.
+     * Channel is not closed.
+     *
+     * @param channel blocking source channel
+     * @param acceptor target context
+     * @return number of read mappings
+     * @throws IOException if an I/O error occurs or input is malformed
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static int read(ReadableByteChannel channel, Context acceptor) throws IOException {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(acceptor);
+        ChannelLineReader reader = new ChannelLineReader(channel, StandardCharsets.UTF_8);
+        int count = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            count += new LineParser(line, reader.getLineNumber()).parseObject(acceptor);
+        }
+        return count;
+    }
+
+    /**
+     * Write all mappings of context into appendable, one mapping per line.
+     *
+     * @param context source context
+     * @param out target appendable
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static void write(Context context, Appendable out) throws IOException {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(out);
+        for (Context.Entry entry : context.entries()) {
+            out.append('{');
+            writeString(out, String.valueOf(entry.getKey()));
+            out.append(':');
+            writeValue(out, entry.getValue());
+            out.append("}\n");
+        }
+    }
+
+    /**
+     * Write all mappings of context into channel, one mapping per line.
+     * Channel is not closed.
+     *
+     * @param context source context
+     * @param channel blocking target channel
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static void write(Context context, WritableByteChannel channel) throws IOException {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(channel);
+        ChannelAppendable out = new ChannelAppendable(channel, StandardCharsets.UTF_8);
+        write(context, out);
+        out.finish();
+    }
+
+    private static void writeValue(Appendable out, Object value) throws IOException {
+        if (value == null || value instanceof Boolean
+                || value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte
+                || value instanceof BigInteger || value instanceof BigDecimal) {
+            out.append(String.valueOf(value));
+        } else if ((value instanceof Double || value instanceof Float)
+                && !Double.isNaN(((Number) value).doubleValue())
+                && !Double.isInfinite(((Number) value).doubleValue())) {
+            out.append(value.toString());
+        } else {
+            writeString(out, String.valueOf(value));
+        }
+    }
+
+    private static void writeString(Appendable out, String string) throws IOException {
+        out.append('"');
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\b':
+                    out.append("\\b");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append("\\u00");
+                        out.append(Character.forDigit(c >> 4, 16));
+                        out.append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parser of single line.
+     */
+    private static class LineParser {
+
+        private final String line;
+        private final int lineNumber;
+        private int pos = 0;
+
+        LineParser(String line, int lineNumber) {
+            this.line = line;
+            this.lineNumber = lineNumber;
+        }
+
+        int parseObject(Context acceptor) throws IOException {
+            skipWhitespace();
+            if (pos == line.length()) {
+                return 0;
+            }
+            expect('{');
+            int count = 0;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    String key = parseString();
+                    skipWhitespace();
+                    expect(':');
+                    skipWhitespace();
+                    acceptor.put(key, parseValue());
+                    count++;
+                    skipWhitespace();
+                    char c = next();
+                    if (c == '}') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw error("Expected ',' or '}'");
+                    }
+                }
+            }
+            skipWhitespace();
+            if (pos != line.length()) {
+                throw error("Unexpected content after object");
+            }
+            return count;
+        }
+
+        private Object parseValue() throws IOException {
+            char c = peek();
+            switch (c) {
+                case '"':
+                    return parseString();
+                case 't':
+                    parseLiteral("true");
+                    return Boolean.TRUE;
+                case 'f':
+                    parseLiteral("false");
+                    return Boolean.FALSE;
+                case 'n':
+                    parseLiteral("null");
+                    return null;
+                case '{':
+                case '[':
+                    throw error("Nested values are not supported");
+                default:
+                    return parseNumber();
+            }
+        }
+
+        private Object parseNumber() throws IOException {
+            int start = pos;
+            boolean integral = true;
+            while (pos < line.length()) {
+                char c = line.charAt(pos);
+                if (c == '.' || c == 'e' || c == 'E') {
+                    integral = false;
+                } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                    break;
+                }
+                pos++;
+            }
+            String number = line.substring(start, pos);
+            try {
+                if (!integral) {
+                    return Double.parseDouble(number);
+                }
+                BigInteger value = new BigInteger(number);
+                if (value.bitLength() < 32) {
+                    return value.intValue();
+                } else if (value.bitLength() < 64) {
+                    return value.longValue();
+                } else {
+                    return value;
+                }
+            } catch (NumberFormatException e) {
+                throw error("Invalid value '" + number + "'");
+            }
+        }
+
+        private void parseLiteral(String literal) throws IOException {
+            if (!line.startsWith(literal, pos)) {
+                throw error("Invalid value");
+            }
+            pos += literal.length();
+        }
+
+        private String parseString() throws IOException {
+            expect('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                c = next();
+                switch (c) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append(c);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > line.length()) {
+                            throw error("Malformed \\uxxxx encoding");
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(line.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Malformed \\uxxxx encoding");
+                        }
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("Invalid escape '\\" + c + "'");
+                }
+            }
+        }
+
+        private void skipWhitespace() {
+            while (pos < line.length()) {
+                char c = line.charAt(pos);
+                if (c != ' ' && c != '\t' && c != '\r' && c != '\n') {
+                    break;
+                }
+                pos++;
+            }
+        }
+
+        private char peek() throws IOException {
+            if (pos == line.length()) {
+                throw error("Unexpected end of line");
+            }
+            return line.charAt(pos);
+        }
+
+        private char next() throws IOException {
+            char c = peek();
+            pos++;
+            return c;
+        }
+
+        private void expect(char expected) throws IOException {
+            if (next() != expected) {
+                throw error("Expected '" + expected + "'");
+            }
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at line " + lineNumber + ", column " + pos);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package org.nolab.util.context.impl.io;
+
+import org.nolab.util.context.Context;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * Streaming reader and writer of contexts in properties format,
+ * compatible with {@link java.util.Properties#load(java.io.Reader)}
+ * and {@link java.util.Properties#store(java.io.Writer, String)}.
+ * <p>Input is decoded in chunks and every mapping is put into
+ * target context as soon as it is parsed, so no intermediate
+ * map is created. Output is encoded in chunks.
+ * <p>Values are read as strings. Values are written as {@link String#valueOf(Object)},
+ * mappings with {@code null} values are skipped.
+ */
+public final class PropertiesContextFormat {
+
+    private PropertiesContextFormat() {
+    }
+
+    /**
+     * Read UTF-8 properties from channel into context.
+     *
+     * @see #read(ReadableByteChannel, Charset, Context)
+     */
+    public static int read(ReadableByteChannel channel, Context acceptor) throws IOException {
+        return read(channel, StandardCharsets.UTF_8, acceptor);
+    }
+
+    /**
+     * Read properties from channel and put them into context.
+     * Channel is not closed.
+     *
+     * @param channel blocking source channel
+     * @param charset charset of source
+     * @param acceptor target context
+     * @return number of read mappings
+     * @throws IOException if an I/O error occurs or input is malformed
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static int read(ReadableByteChannel channel, Charset charset, Context acceptor)
+            throws IOException {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(charset);
+        Objects.requireNonNull(acceptor);
+        ChannelLineReader reader = new ChannelLineReader(channel, charset);
+        StringBuilder line = new StringBuilder();
+        int count = 0;
+        while (readLogicalLine(reader, line)) {
+            int len = line.length();
+            int keyEnd = 0;
+            while (keyEnd < len) {
+                char c = line.charAt(keyEnd);
+                if (c == '\\') {
+                    keyEnd += 2;
+                } else if (c == '=' || c == ':' || isWhitespace(c)) {
+                    break;
+                } else {
+                    keyEnd++;
+                }
+            }
+            keyEnd = Math.min(keyEnd, len);
+            int valueStart = skipWhitespace(line, keyEnd);
+            if (valueStart < len && (line.charAt(valueStart) == '=' || line.charAt(valueStart) == ':')) {
+                valueStart = skipWhitespace(line, valueStart + 1);
+            }
+            String key = unescape(line, 0, keyEnd, reader);
+            acceptor.put(key, unescape(line, valueStart, len, reader));
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean readLogicalLine(ChannelLineReader reader, StringBuilder line)
+            throws IOException {
+        line.setLength(0);
+        String natural;
+        while (true) {
+            natural = reader.readLine();
+            if (natural == null) {
+                return false;
+            }
+            int start = skipWhitespace(natural, 0);
+            if (start == natural.length()) {
+                continue;
+            }
+            char first = natural.charAt(start);
+            if (first == '#' || first == '!') {
+                continue;
+            }
+            line.append(natural, start, natural.length());
+            break;
+        }
+        while (endsWithContinuation(line)) {
+            line.setLength(line.length() - 1);
+            natural = reader.readLine();
+            if (natural == null) {
+                break;
+            }
+            line.append(natural, skipWhitespace(natural, 0), natural.length());
+        }
+        return true;
+    }
+
+    private static boolean endsWithContinuation(CharSequence line) {
+        int backslashes = 0;
+        for (int i = line.length() - 1; i >= 0 && line.charAt(i) == '\\'; i--) {
+            backslashes++;
+        }
+        return backslashes % 2 == 1;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    private static int skipWhitespace(CharSequence line, int start) {
+        int i = start;
+        while (i < line.length() && isWhitespace(line.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String unescape(CharSequence line, int start, int end, ChannelLineReader reader)
+            throws IOException {
+        StringBuilder sb = new StringBuilder(end - start);
+        int i = start;
+        while (i < end) {
+            char c = line.charAt(i++);
+            if (c != '\\' || i == end) {
+                sb.append(c);
+                continue;
+            }
+            c = line.charAt(i++);
+            switch (c) {
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (i + 4 > end) {
+                        throw new IOException("Malformed \\uxxxx encoding at line " + reader.getLineNumber());
+                    }
+                    int code = 0;
+                    for (int j = 0; j < 4; j++) {
+                        int digit = Character.digit(line.charAt(i++), 16);
+                        if (digit < 0) {
+                            throw new IOException("Malformed \\uxxxx encoding at line " + reader.getLineNumber());
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write all mappings of context in properties format into appendable.
+     * Non-ASCII characters are written as is.
+     *
+     * @param context source context
+     * @param out target appendable
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static void write(Context context, Appendable out) throws IOException {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(out);
+        writeEntries(context, out, null);
+    }
+
+    /**
+     * Write all mappings of context in UTF-8 properties format into channel.
+     *
+     * @see #write(Context, WritableByteChannel, Charset)
+     */
+    public static void write(Context context, WritableByteChannel channel) throws IOException {
+        write(context, channel, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write all mappings of context in properties format into channel.
+     * Characters, that cannot be encoded by charset, are written
+     * as {@code \}{@code uxxxx}. Channel is not closed.
+     *
+     * @param context source context
+     * @param channel blocking target channel
+     * @param charset charset of target
+     * @throws IOException if an I/O error occurs
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public static void write(Context context, WritableByteChannel channel, Charset charset)
+            throws IOException {
+        Objects.requireNonNull(context);
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(charset);
+        ChannelAppendable out = new ChannelAppendable(channel, charset);
+        writeEntries(context, out, out);
+        out.finish();
+    }
+
+    private static void writeEntries(Context context, Appendable out, ChannelAppendable encoding)
+            throws IOException {
+        for (Context.Entry entry : context.entries()) {
+            Object value = entry.getValue();
+            if (value == null) {
+                continue;
+            }
+            writeEscaped(out, String.valueOf(entry.getKey()), true, encoding);
+            out.append('=');
+            writeEscaped(out, String.valueOf(value), false, encoding);
+            out.append('\n');
+        }
+    }
+
+    private static void writeEscaped(Appendable out, String string, boolean key,
+                                     ChannelAppendable encoding) throws IOException {
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            switch (c) {
+                case ' ':
+                    if (key || i == 0) {
+                        out.append('\\');
+                    }
+                    out.append(c);
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\f':
+                    out.append("\\f");
+                    break;
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                case '\\':
+                    out.append('\\').append(c);
+                    break;
+                default:
+                    if (c < 0x20 || (encoding != null && !encoding.canEncode(c))) {
+                        out.append("\\u");
+                        String hex = Integer.toHexString(c);
+                        for (int j = hex.length(); j < 4; j++) {
+                            out.append('0');
+                        }
+                        out.append(hex);
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.nolab.util.context.impl;
+
+import org.junit.Test;
+import org.nolab.util.context.Context;
+
+import java.util.Collections;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ContextPool}.
+ */
+public class ContextPoolTestCase {
+
+    @Test
+    public void testReuse() {
+        ContextPool<HashContext> pool = new ContextPool<>(() -> new HashContext(8), HashContext::reset, 1, 2);
+        HashContext context = pool.acquire();
+        context.put("key", "value");
+        pool.release(context);
+        assertEquals(1, pool.getPooledCount());
+        HashContext reused = pool.acquire();
+        assertSame(context, reused);
+        assertTrue(reused.isEmpty());
+        assertNull(reused.get("key"));
+        assertEquals(0, pool.getPooledCount());
+        assertNotSame(reused, pool.acquire());
+    }
+
+    @Test
+    public void testStripeCapacity() {
+        ContextPool<HashContext> pool = new ContextPool<>(HashContext::new, HashContext::reset, 1, 2);
+        pool.release(new HashContext());
+        pool.release(new HashContext());
+        pool.release(new HashContext());
+        assertEquals(2, pool.getPooledCount());
+    }
+
+    @Test
+    public void testApply() {
+        ContextPool<HashContext> pool = ContextPool.ofHashContexts(8);
+        assertEquals(Integer.valueOf(1), pool.apply(context -> {
+            context.put("key", 1);
+            return context.get("key", Integer.class);
+        }));
+        assertEquals(1, pool.getPooledCount());
+        assertTrue(pool.apply(Context::isEmpty));
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception {
+        ContextPool<HashContext> pool = ContextPool.ofHashContexts(8);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Callable<Boolean> task = () -> {
+                for (int i = 0; i < 1000; i++) {
+                    boolean clean = pool.apply(context -> {
+                        boolean empty = context.isEmpty();
+                        context.put("key", Thread.currentThread().getName());
+                        return empty && context.size() == 1;
+                    });
+                    if (!clean) {
+                        return false;
+                    }
+                }
+                return true;
+            };
+            for (Future<Boolean> future : executor.invokeAll(Collections.nCopies(4, task))) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidStripes() {
+        new ContextPool<>(HashContext::new, HashContext::reset, 0, 1);
+    }
+}
@@ -0,0 +1,71 @@
+package org.nolab.util.context.impl;
+
+import org.junit.Test;
+import org.nolab.util.context.AbstractImmutableContextTestCase;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.impl.mapb.CapacityMapSuppliers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FrozenContextTestCase extends AbstractImmutableContextTestCase<FrozenContext> {
+
+    @Override
+    protected FrozenContext getTestableContext() {
+        return FrozenContext.freeze(new HashContext());
+    }
+
+    @Override
+    protected FrozenContext getTestableContext(int capacity) {
+        return getTestableContext();
+    }
+
+    @Override
+    protected FrozenContext getTestableContext(Map<String, Object> source) {
+        return FrozenContext.freeze(new MapBasedSIContext(false, true, HashMap::new, null, source));
+    }
+
+    @Test
+    public void testLargeContext() {
+        Context source = new HashContext();
+        for (int i = 0; i < 100000; i++) {
+            source.put("key" + i, i % 3 == 0 ? "value" + i : (Object) (long) i);
+        }
+        FrozenContext context = FrozenContext.freeze(source);
+        assertEquals(source, context);
+        assertTrue(context.equals(source));
+        assertFalse(context.containsKey("key100000"));
+        assertEquals("value99999", context.get("key99999"));
+        assertEquals(99998L, context.get("key99998"));
+    }
+
+    @Test
+    public void testCollidingKeys() {
+        Context source = new HashContext();
+        String[] blocks = {"Aa", "BB"};
+        for (int i = 0; i < 1024; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 10; bit++) {
+                key.append(blocks[(i >> bit) & 1]);
+            }
+            source.put(key.toString(), i);
+        }
+        FrozenContext context = FrozenContext.freeze(source);
+        assertEquals(1024, context.size());
+        assertEquals(source, context);
+        assertFalse(context.containsKey("AaAa"));
+    }
+
+    @Test
+    public void testNullValues() {
+        Context source = new MapBasedLIContext(false, true, null, CapacityMapSuppliers.HASH_MAP, 16);
+        source.put(key1, null);
+        FrozenContext context = FrozenContext.freeze(source);
+        assertTrue(context.containsKey(key1));
+        assertNull(context.get(key1));
+        assertEquals(value2, context.getOrDefault(key2, value2));
+        assertNull(context.getOrDefault(key1, value2));
+    }
+}
@@ -1,9 +1,16 @@
 package org.nolab.util.context.impl;
 
 import org.nolab.util.context.AbstractContextTestCase;
+import org.nolab.util.context.ValueSizers;
 
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
+import static org.junit.Assert.*;
+
 public class HashContextTestCase extends AbstractContextTestCase<HashContext> {
 
     @Override
@@ -22,4 +29,138 @@ public class HashContextTestCase extends AbstractContextTestCase<HashContext> {
         context.resize(2, 0.5f, 2, 0.5f);
         return context;
     }
+
+    @Test
+    public void testEnsureCapacity() {
+        HashContext context = getTestableContext();
+        context.ensureCapacity(100);
+        put12345(context);
+        context.ensureCapacity(2);
+        assertFull12345WithSize(context);
+        for (char c = 'a'; c <= 'z'; c++) {
+            context.put(String.valueOf(c), c);
+        }
+        assertEquals(31, context.size());
+        assertEquals('q', context.get("q"));
+    }
+
+    @Test
+    public void testFootprint() {
+        HashContext context = new HashContext(64);
+        long structure = context.getStructureFootprint();
+        assertEquals(0, context.getPayloadFootprint());
+        put12345(context);
+        long payload = context.getPayloadFootprint();
+        assertTrue(payload > 0);
+        assertTrue(context.getStructureFootprint() > structure);
+        assertEquals(context.getStructureFootprint() + payload, context.getFootprint());
+        context.put(key1, "long string value");
+        assertTrue(context.getPayloadFootprint() > payload);
+        context.put(key1, value1);
+        assertEquals(payload, context.getPayloadFootprint());
+        context.setValueSizer(ValueSizers.SHALLOW);
+        assertEquals(ValueSizers.SHALLOW, context.getValueSizer());
+        assertEquals(10 * ValueSizers.align(ValueSizers.OBJECT_HEADER), context.getPayloadFootprint());
+        context.setValueSizer(ValueSizers.ESTIMATING);
+        assertEquals(payload, context.getPayloadFootprint());
+        context.remove(key1);
+        assertTrue(context.getPayloadFootprint() < payload);
+        context.clear();
+        assertEquals(0, context.getPayloadFootprint());
+        assertEquals(structure, context.getStructureFootprint());
+    }
+
+    @Test
+    public void testTrimToSize() {
+        HashContext context = new HashContext(64);
+        put12345(context);
+        long footprint = context.getStructureFootprint();
+        context.trimToSize();
+        assertTrue(context.getStructureFootprint() < footprint);
+        assertFull12345WithSize(context);
+        for (char c = 'a'; c <= 'z'; c++) {
+            context.put(String.valueOf(c), c);
+        }
+        assertEquals(31, context.size());
+        assertEquals('q', context.get("q"));
+    }
+
+    @Test
+    public void testReset() {
+        HashContext context = getTestableContext(8);
+        put12345(context);
+        context.reset();
+        assertTrue(context.isEmpty());
+        assertEquals(0, context.getPayloadFootprint());
+        assertNull(context.get(key1));
+        assertFalse(context.containsKey(key5));
+        assertFalse(context.keys().iterator().hasNext());
+        put12345(context);
+        assertFull12345WithSize(context);
+        context.remove(key3);
+        context.reset();
+        context.put(key1, value1);
+        assertContainsOnly1(context);
+    }
+
+    @Test
+    public void testNegativeHashCodes() {
+        HashContext context = getTestableContext(3);
+        String key = "polygenelubricants";
+        assertTrue(key.hashCode() < 0);
+        context.put(key, value1);
+        context.put("GydZG_", value2);
+        assertEquals(value1, context.get(key));
+        assertEquals(value2, context.remove("GydZG_"));
+        assertEquals(1, context.size());
+    }
+
+    @Test
+    public void testCollidingKeys() {
+        HashContext context = getTestableContext();
+        List<String> keys = collidingKeys(8);
+        for (int i = 0; i < keys.size(); i++) {
+            context.put(keys.get(i), i);
+        }
+        assertEquals(256, context.size());
+        assertTrue(context.isTreeified(keys.get(0)));
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i, context.get(keys.get(i)));
+        }
+        for (int i = 0; i < keys.size(); i += 2) {
+            assertEquals(i, context.remove(keys.get(i)));
+        }
+        assertEquals(128, context.size());
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i % 2 == 0 ? null : i, context.get(keys.get(i)));
+        }
+        for (int i = 1; i < keys.size() - 4; i += 2) {
+            context.remove(keys.get(i));
+        }
+        assertEquals(2, context.size());
+        assertFalse(context.isTreeified(keys.get(0)));
+        assertEquals(keys.size() - 1, context.get(keys.get(keys.size() - 1)));
+        context.reset();
+        assertNull(context.get(keys.get(keys.size() - 1)));
+        context.put(keys.get(0), 0);
+        assertEquals(0, context.get(keys.get(0)));
+        assertEquals(1, context.size());
+    }
+
+    /**
+     * Build keys with the same hash code from blocks "Aa" and "BB".
+     */
+    private static List<String> collidingKeys(int blocks) {
+        List<String> keys = new ArrayList<>();
+        keys.add("");
+        for (int i = 0; i < blocks; i++) {
+            List<String> next = new ArrayList<>();
+            for (String key : keys) {
+                next.add(key + "Aa");
+                next.add(key + "BB");
+            }
+            keys = next;
+        }
+        return keys;
+    }
 }
@@ -0,0 +1,196 @@
+package org.nolab.util.context.impl;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nolab.util.context.AbstractContextTestCase;
+import org.nolab.util.context.impl.JournaledContext.Durability;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JournaledContextTestCase extends AbstractContextTestCase<JournaledContext> {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<JournaledContext> opened = new ArrayList<>();
+
+    @After
+    public void closeAll() throws IOException {
+        for (JournaledContext context : opened) {
+            context.close();
+        }
+    }
+
+    private JournaledContext open(Path directory, Durability durability, long compactionThreshold) {
+        try {
+            JournaledContext context = JournaledContext.open(directory, durability, compactionThreshold);
+            opened.add(context);
+            return context;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path newDirectory() {
+        try {
+            return folder.newFolder().toPath();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected JournaledContext getTestableContext() {
+        return open(newDirectory(), Durability.ASYNC, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    @Override
+    protected JournaledContext getTestableContext(int capacity) {
+        return getTestableContext();
+    }
+
+    @Override
+    protected JournaledContext getTestableContext(Map<String, Object> source) {
+        JournaledContext context = getTestableContext();
+        context.copyFrom(source);
+        return context;
+    }
+
+    @Test
+    public void testRecovery() throws IOException {
+        for (Durability durability : Durability.values()) {
+            Path directory = newDirectory();
+            JournaledContext context = open(directory, durability, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+            put12345(context);
+            context.put("removed", value1);
+            context.remove("removed");
+            context.close();
+
+            JournaledContext recovered = open(directory, durability, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+            assertFull12345WithSize(recovered);
+            recovered.clear();
+            recovered.put(key1, value1);
+            recovered.close();
+
+            recovered = open(directory, durability, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+            assertContainsOnly1(recovered);
+        }
+    }
+
+    @Test
+    public void testTornJournal() throws IOException {
+        Path directory = newDirectory();
+        JournaledContext context = open(directory, Durability.SYNC, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+        put12345(context);
+        context.close();
+
+        Path journal = directory.resolve(JournaledContext.JOURNAL_FILE);
+        long size = Files.size(journal);
+        Files.write(journal, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        JournaledContext recovered = open(directory, Durability.SYNC, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+        assertFull12345WithSize(recovered);
+        assertEquals(size, Files.size(journal));
+        recovered.put("after", value2);
+        recovered.close();
+
+        recovered = open(directory, Durability.SYNC, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+        assertEquals(value2, recovered.get("after"));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Path directory = newDirectory();
+        JournaledContext context = open(directory, Durability.ASYNC, 256);
+        for (int i = 0; i < 1000; i++) {
+            context.put("key" + (i % 10), i);
+        }
+        assertTrue(Files.size(directory.resolve(JournaledContext.JOURNAL_FILE)) < 256);
+        assertTrue(Files.exists(directory.resolve(JournaledContext.SNAPSHOT_FILE)));
+        context.close();
+
+        JournaledContext recovered = open(directory, Durability.ASYNC, 256);
+        assertEquals(10, recovered.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(990 + i, recovered.get("key" + i));
+        }
+    }
+
+    @Test
+    public void testGroupCommit() throws Exception {
+        Path directory = newDirectory();
+        JournaledContext context = open(directory, Durability.GROUP, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    context.put(thread + "-" + i, i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        context.close();
+
+        JournaledContext recovered = open(directory, Durability.GROUP, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+        assertEquals(400, recovered.size());
+    }
+
+    @Test
+    public void testClosedAndLocked() throws IOException {
+        Path directory = newDirectory();
+        JournaledContext context = open(directory, Durability.ASYNC, JournaledContext.DEFAULT_COMPACTION_THRESHOLD);
+        try {
+            JournaledContext.open(directory);
+            fail();
+        } catch (IOException e) {
+        }
+        context.put(key1, value1);
+        context.close();
+        assertEquals(value1, context.get(key1));
+        try {
+            context.put(key2, value2);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testCompactForcesDirectoryBeforeTruncation() throws IOException {
+        Path directory = newDirectory();
+        Path journal = directory.resolve(JournaledContext.JOURNAL_FILE);
+        Path snapshot = directory.resolve(JournaledContext.SNAPSHOT_FILE);
+        List<Long> journalSizes = new ArrayList<>();
+        JournaledContext context = new JournaledContext(directory, Durability.ASYNC,
+                JournaledContext.DEFAULT_COMPACTION_THRESHOLD) {
+            @Override
+            void forceDirectory() throws IOException {
+                assertTrue(Files.exists(snapshot));
+                assertFalse(Files.exists(directory.resolve(JournaledContext.SNAPSHOT_FILE + ".tmp")));
+                journalSizes.add(Files.size(journal));
+                super.forceDirectory();
+            }
+        };
+        opened.add(context);
+        context.put(key1, value1);
+        context.sync();
+        context.compact();
+        assertEquals(1, journalSizes.size());
+        assertTrue(journalSizes.get(0) > 0);
+        assertEquals(0, Files.size(journal));
+    }
+}
@@ -1,10 +1,15 @@
 package org.nolab.util.context.impl;
 
 import org.nolab.util.context.AbstractContextTestCase;
+import org.nolab.util.context.ValueSizers;
 import org.nolab.util.context.impl.mapb.*;
 
+import org.junit.Test;
+
 import java.util.Map;
 
+import static org.junit.Assert.*;
+
 /**
  * Tests for {@link MapBasedSIContext}.
  */
@@ -32,4 +37,30 @@ public class MapBasedSIContextTestCase extends AbstractContextTestCase<MapBasedS
                 CapacityMapSuppliers.HASH_MAP,
                 source);
     }
+
+    @Test
+    public void testFootprint() {
+        MapBasedSIContext context = getTestableContext();
+        long structure = context.getStructureFootprint();
+        put12345(context);
+        long payload = context.getPayloadFootprint();
+        assertTrue(payload > 0);
+        assertTrue(context.getStructureFootprint() > structure);
+        context.putIfAbsent("6", 6);
+        context.remove("6");
+        assertEquals(payload, context.getPayloadFootprint());
+        context.put(key1, null);
+        context.putIfAbsent(key1, value1);
+        assertEquals(payload, context.getPayloadFootprint());
+        context.setValueSizer(ValueSizers.SHALLOW);
+        assertEquals(10 * ValueSizers.align(ValueSizers.OBJECT_HEADER), context.getPayloadFootprint());
+        context.setValueSizer(ValueSizers.ESTIMATING);
+        assertEquals(payload, context.getPayloadFootprint());
+        assertEquals(payload, ((MapBasedSIContext) context.copy()).getPayloadFootprint());
+        context.trimToSize();
+        assertFull12345WithSize(context);
+        context.clear();
+        assertEquals(0, context.getPayloadFootprint());
+        assertEquals(structure, context.getStructureFootprint());
+    }
 }
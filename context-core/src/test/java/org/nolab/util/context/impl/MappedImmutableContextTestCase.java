@@ -0,0 +1,140 @@
+package org.nolab.util.context.impl;
+
+import org.junit.Test;
+import org.nolab.util.context.AbstractImmutableContextTestCase;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.Context.Entry;
+import org.nolab.util.context.impl.mapb.CapacityMapSuppliers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class MappedImmutableContextTestCase extends AbstractImmutableContextTestCase<MappedImmutableContext> {
+
+    private static MappedImmutableContext writeAndOpen(Context source) {
+        try {
+            Path path = Files.createTempFile("mapped-context", ".bin");
+            path.toFile().deleteOnExit();
+            MappedImmutableContext.write(source, path);
+            return MappedImmutableContext.open(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    protected MappedImmutableContext getTestableContext() {
+        return writeAndOpen(new HashContext());
+    }
+
+    @Override
+    protected MappedImmutableContext getTestableContext(int capacity) {
+        return getTestableContext();
+    }
+
+    @Override
+    protected MappedImmutableContext getTestableContext(Map<String, Object> source) {
+        return writeAndOpen(new MapBasedSIContext(false, true, HashMap::new, null, source));
+    }
+
+    @Test
+    public void testLargeContext() {
+        Context source = new MapBasedLIContext(CapacityMapSuppliers.HASH_MAP);
+        for (int i = 0; i < 10000; i++) {
+            source.put("key" + i, i % 3 == 0 ? "value" + i : (Object) (long) i);
+        }
+        MappedImmutableContext context = writeAndOpen(source);
+        assertEquals(source, context);
+        assertTrue(context.equals(source));
+        assertFalse(context.containsKey("key10000"));
+        assertEquals("value9999", context.get("key9999"));
+        assertEquals(9998L, context.get("key9998"));
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        Path path = Files.createTempFile("mapped-context", ".bin");
+        path.toFile().deleteOnExit();
+        Files.write(path, new byte[]{1, 2, 3});
+        try {
+            MappedImmutableContext.open(path);
+            fail();
+        } catch (IOException e) {
+        }
+    }
+
+    @Test
+    public void testReplaceMappedFile() throws IOException {
+        Path path = Files.createTempFile("mapped-context", ".bin");
+        path.toFile().deleteOnExit();
+        Context source = new HashContext();
+        source.put("key", "old");
+        MappedImmutableContext.write(source, path);
+        MappedImmutableContext opened = MappedImmutableContext.open(path);
+
+        source.put("key", "new");
+        source.put("other", 1);
+        MappedImmutableContext.write(source, path);
+        assertEquals("old", opened.get("key"));
+        assertEquals(1, opened.size());
+        assertEquals(source, MappedImmutableContext.open(path));
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".tmp")));
+    }
+
+    @Test
+    public void testSegmentedFile() throws IOException {
+        Path path = Files.createTempFile("mapped-context", ".bin");
+        path.toFile().deleteOnExit();
+        Context source = new MapBasedLIContext(CapacityMapSuppliers.HASH_MAP);
+        StringBuilder padded = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            padded.append('x');
+            source.put("key" + i, i % 2 == 0 ? padded.toString() : (Object) (-i));
+        }
+        source.put("long", Long.MIN_VALUE);
+        source.put("byte", (byte) -1);
+        source.put("short", (short) -2);
+        source.put("char", '\u044f');
+        source.put("float", 1.5f);
+        source.put("double", -2.5);
+        source.put("true", true);
+        source.put("bytes", new byte[]{1, 2, 3});
+        source.put("serial", new ArrayList<>(Arrays.asList(1, "two")));
+        MappedImmutableContext.write(source, path, 8);
+        assertTrue(Files.size(path) > 256 * 10);
+
+        MappedImmutableContext context = MappedImmutableContext.open(path);
+        assertEquals(source.size(), context.size());
+        for (Entry entry : source.entries()) {
+            if (entry.getValue() instanceof byte[]) {
+                assertArrayEquals((byte[]) entry.getValue(), (byte[]) context.get(entry.getKey()));
+            } else {
+                assertEquals(entry.getValue(), context.get(entry.getKey()));
+            }
+        }
+        int keys = 0;
+        for (String key : context.keys()) {
+            assertTrue(source.containsKey(key));
+            keys++;
+        }
+        assertEquals(source.size(), keys);
+        assertTrue(context.containsValue("xxxxx"));
+        assertFalse(context.containsKey("key100"));
+
+        source.put("huge", padded.append(padded).append(padded).toString());
+        try {
+            MappedImmutableContext.write(source, path, 8);
+            fail();
+        } catch (IOException e) {
+        }
+        assertEquals(source.size() - 1, MappedImmutableContext.open(path).size());
+    }
+}
@@ -0,0 +1,95 @@
+package org.nolab.util.context.impl;
+
+import org.junit.Test;
+import org.nolab.util.context.AbstractSynchronizedThreadContextTestCase;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.impl.ShardedContext.Consistency;
+import org.nolab.util.context.impl.mapb.CapacityMapSuppliers;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ShardedContextTestCase extends AbstractSynchronizedThreadContextTestCase<ShardedContext> {
+
+    private static Context shard() {
+        return new MapBasedLIContext(false, true, null, CapacityMapSuppliers.HASH_MAP, 16);
+    }
+
+    @Override
+    protected ShardedContext getTestableContext() {
+        return new ShardedContext(4, i -> shard(), Consistency.WEAK);
+    }
+
+    @Override
+    protected ShardedContext getTestableContext(int capacity) {
+        return getTestableContext();
+    }
+
+    @Override
+    protected ShardedContext getTestableContext(Map<String, Object> source) {
+        ShardedContext context = getTestableContext();
+        context.copyFrom(source);
+        return context;
+    }
+
+    @Test
+    public void testShards() {
+        ShardedContext context = new ShardedContext(3, i -> new HashContext(), Consistency.ATOMIC);
+        assertEquals(3, context.getShardCount());
+        assertEquals(Consistency.ATOMIC, context.getConsistency());
+        for (int i = 0; i < 100; i++) {
+            context.put("key" + i, i);
+        }
+        assertEquals(100, context.size());
+        assertEquals(42, context.get("key42"));
+        assertFalse(context.removeExactly("key42", null));
+        int count = 0;
+        for (Context.Entry entry : context.entries()) {
+            assertEquals(entry.getValue(), context.get(entry.getKey()));
+            count++;
+        }
+        assertEquals(100, count);
+        Context copy = context.copy((k, v) -> (Integer) v < 50);
+        assertEquals(50, copy.size());
+        assertTrue(copy instanceof ShardedContext);
+        context.filter((k, v) -> (Integer) v % 2 == 0);
+        assertEquals(50, context.size());
+        assertFalse(context.containsKey("key43"));
+        context.clear();
+        assertTrue(context.isEmpty());
+    }
+
+    @Test
+    public void testAtomicSnapshot() throws Exception {
+        ShardedContext context = new ShardedContext(8, i -> shard(), Consistency.ATOMIC);
+        String[] keys = {key1, key2, key3, key4, key5};
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2000; i++) {
+                context.clear();
+                for (String key : keys) {
+                    context.put(key, key);
+                }
+            }
+        });
+        writer.setUncaughtExceptionHandler((t, e) -> error.set(e));
+        writer.start();
+        while (writer.isAlive()) {
+            Context snapshot = context.copy();
+            int size = snapshot.size();
+            for (int i = 0; i < keys.length; i++) {
+                assertEquals(i < size, snapshot.containsKey(keys[i]));
+            }
+        }
+        writer.join();
+        assertNull(error.get());
+        assertEquals(5, context.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidShardCount() {
+        new ShardedContext(0, i -> shard(), Consistency.WEAK);
+    }
+}
@@ -0,0 +1,100 @@
+package org.nolab.util.context.impl.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.impl.MapBasedSIContext;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public class CompactContextCodecTestCase {
+
+    private static Context sample() {
+        Context context = new MapBasedSIContext(HashMap::new, HashMap::new);
+        context.put("string", "value \u0436\u043a");
+        context.put("int", Integer.MIN_VALUE);
+        context.put("negative", -1);
+        context.put("long", Long.MAX_VALUE);
+        context.put("true", true);
+        context.put("false", false);
+        context.put("byte", (byte) -7);
+        context.put("short", (short) 300);
+        context.put("char", 'q');
+        context.put("float", 1.5f);
+        context.put("double", -2.25);
+        context.put("big", new BigDecimal("12345.678"));
+        return context;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Context source = sample();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        new CompactContextWriter(new DataOutputStream(bos)).writeContext(source);
+
+        CompactContextReader reader = new CompactContextReader(
+                new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        Context result = reader.readContext(new MapBasedSIContext(HashMap::new, HashMap::new));
+        Assert.assertEquals(source, result);
+    }
+
+    @Test
+    public void testObjectStreamRoundTrip() throws Exception {
+        Context source = sample();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+            new CompactContextWriter(oos).writeContext(source);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            Context result = new CompactContextReader(ois).readContext(new MapBasedSIContext(HashMap::new, HashMap::new));
+            Assert.assertEquals(source, result);
+        }
+    }
+
+    @Test
+    public void testNullsAndBytes() throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        CompactContextWriter writer = new CompactContextWriter(new DataOutputStream(bos));
+        writer.writeEntry(null, null);
+        writer.writeEntry("bytes", new byte[]{1, 2, 3});
+
+        CompactContextReader reader = new CompactContextReader(
+                new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+        Assert.assertNull(reader.readKey());
+        Assert.assertNull(reader.readValue());
+        Assert.assertEquals("bytes", reader.readKey());
+        Assert.assertTrue(Arrays.equals(new byte[]{1, 2, 3}, (byte[]) reader.readValue()));
+    }
+
+    @Test
+    public void testKeyDictionary() throws Exception {
+        Context source = sample();
+        ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+        CompactContextWriter writer = new CompactContextWriter(new DataOutputStream(dictionary));
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        CompactContextWriter plainWriter = new CompactContextWriter(new DataOutputStream(plain), false);
+        for (int i = 0; i < 10; i++) {
+            writer.writeContext(source);
+            plainWriter.writeContext(source);
+        }
+        Assert.assertTrue(dictionary.size() < plain.size());
+
+        CompactContextReader reader = new CompactContextReader(
+                new DataInputStream(new ByteArrayInputStream(dictionary.toByteArray())));
+        CompactContextReader plainReader = new CompactContextReader(
+                new DataInputStream(new ByteArrayInputStream(plain.toByteArray())));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(source, reader.readContext(new MapBasedSIContext(HashMap::new, HashMap::new)));
+            Assert.assertEquals(source, plainReader.readContext(new MapBasedSIContext(HashMap::new, HashMap::new)));
+        }
+    }
+
+    @Test(expected = NotSerializableException.class)
+    public void testNotSerializable() throws Exception {
+        new CompactContextWriter(new DataOutputStream(new ByteArrayOutputStream()))
+                .writeValue(new Object());
+    }
+}
@@ -0,0 +1,86 @@
+package org.nolab.util.context.impl.io;
+
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.impl.MapBasedLIContext;
+import org.nolab.util.context.impl.mapb.CapacityMapSuppliers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class JsonLinesContextFormatTestCase {
+
+    private static Context newContext() {
+        return new MapBasedLIContext(false, true, null, CapacityMapSuppliers.HASH_MAP, 16);
+    }
+
+    private static Context read(String source) throws IOException {
+        Context context = newContext();
+        JsonLinesContextFormat.read(Channels.newChannel(
+                new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))), context);
+        return context;
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        Context context = read("{\"string\": \"a\\\"b\\u0436\\n\", \"int\": -5}\n"
+                + "\n"
+                + "  {\"long\":12345678901, \"big\": 123456789012345678901234567890}\r\n"
+                + "{\"double\": 1.5e3, \"true\": true, \"false\": false, \"null\": null}\n"
+                + "{}");
+        assertEquals(8, context.size());
+        assertEquals("a\"b\u0436\n", context.get("string"));
+        assertEquals(-5, context.get("int"));
+        assertEquals(12345678901L, context.get("long"));
+        assertEquals(new BigInteger("123456789012345678901234567890"), context.get("big"));
+        assertEquals(1500.0, context.get("double"));
+        assertEquals(Boolean.TRUE, context.get("true"));
+        assertEquals(Boolean.FALSE, context.get("false"));
+        assertTrue(context.containsKey("null"));
+        assertNull(context.get("null"));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Context source = newContext();
+        source.put("string", "quote \" slash \\ tab \t \u0001 \u0436");
+        source.put("int", 7);
+        source.put("long", Long.MIN_VALUE);
+        source.put("double", -0.25);
+        source.put("boolean", true);
+        source.put("null", null);
+        for (int i = 0; i < 2000; i++) {
+            source.put("key" + i, "value" + i);
+        }
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        JsonLinesContextFormat.write(source, Channels.newChannel(bos));
+        Context context = newContext();
+        int count = JsonLinesContextFormat.read(
+                Channels.newChannel(new ByteArrayInputStream(bos.toByteArray())), context);
+        assertEquals(source.size(), count);
+        assertEquals(source, context);
+
+        StringBuilder sb = new StringBuilder();
+        JsonLinesContextFormat.write(source, sb);
+        assertEquals(new String(bos.toByteArray(), StandardCharsets.UTF_8), sb.toString());
+    }
+
+    @Test
+    public void testMalformed() {
+        String[] malformed = {"[1]", "{\"a\" 1}", "{\"a\": {\"b\": 1}}", "{\"a\": 1", "{\"a\": tru}", "{\"a\": 1} x"};
+        for (String line : malformed) {
+            try {
+                read(line);
+                fail(line);
+            } catch (IOException e) {
+            }
+        }
+    }
+}
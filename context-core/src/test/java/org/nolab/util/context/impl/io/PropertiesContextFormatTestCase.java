@@ -0,0 +1,101 @@
+package org.nolab.util.context.impl.io;
+
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.impl.MapBasedLIContext;
+import org.nolab.util.context.impl.mapb.CapacityMapSuppliers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class PropertiesContextFormatTestCase {
+
+    private static final String SOURCE = "# comment\n"
+            + "  ! another comment\n"
+            + "\n"
+            + "plain=value\r\n"
+            + "colon : value with spaces  \r"
+            + "space value\n"
+            + "escaped\\ key\\=x = \\tunicode \\u0436\n"
+            + "multi = first, \\\n"
+            + "        second, \\\n"
+            + "        third\n"
+            + "trailing\\\\\n"
+            + "empty=\n"
+            + "last=no newline";
+
+    private static Context newContext() {
+        return new MapBasedLIContext(false, true, null, CapacityMapSuppliers.HASH_MAP, 16);
+    }
+
+    private static Context read(byte[] bytes) throws IOException {
+        Context context = newContext();
+        PropertiesContextFormat.read(Channels.newChannel(new ByteArrayInputStream(bytes)), context);
+        return context;
+    }
+
+    @Test
+    public void testReadLikeProperties() throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(SOURCE));
+
+        Context context = newContext();
+        int count = PropertiesContextFormat.read(
+                Channels.newChannel(new ByteArrayInputStream(SOURCE.getBytes(StandardCharsets.UTF_8))), context);
+
+        assertEquals(properties.size(), count);
+        assertEquals(properties.size(), context.size());
+        for (String name : properties.stringPropertyNames()) {
+            assertEquals(name, properties.getProperty(name), context.get(name));
+        }
+    }
+
+    @Test
+    public void testLongInput() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append("key").append(i).append("=\u0436value").append(i).append('\n');
+        }
+        Context context = read(sb.toString().getBytes(StandardCharsets.UTF_8));
+        assertEquals(5000, context.size());
+        assertEquals("\u0436value4999", context.get("key4999"));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        Context source = newContext();
+        source.put(" key with = and : ", " value\twith\nspecials # ! \\ \u0436");
+        source.put("number", 5);
+        source.put("skipped", null);
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        PropertiesContextFormat.write(source, Channels.newChannel(bos), StandardCharsets.ISO_8859_1);
+        Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(bos.toByteArray()));
+        assertEquals(2, properties.size());
+        assertEquals(source.get(" key with = and : "), properties.getProperty(" key with = and : "));
+
+        bos.reset();
+        PropertiesContextFormat.write(source, Channels.newChannel(bos));
+        Context context = read(bos.toByteArray());
+        assertEquals(2, context.size());
+        assertEquals(source.get(" key with = and : "), context.get(" key with = and : "));
+        assertEquals("5", context.get("number"));
+
+        StringBuilder sb = new StringBuilder();
+        PropertiesContextFormat.write(source, sb);
+        assertEquals(new String(bos.toByteArray(), StandardCharsets.UTF_8), sb.toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedUnicode() throws IOException {
+        read("key=\\u00zz".getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,31 @@
+package org.nolab.util.context.multithread;
+
+import org.nolab.util.context.*;
+import org.nolab.util.context.shells.BiasedSyncContextShell;
+
+import java.util.Map;
+
+/**
+ * Tests for context implementations, encapsulated in {@link BiasedSyncContextShell}.
+ *
+ * @param <C> implementation
+ */
+public abstract class AbstractBiasedSyncContextShellTestCase<C extends Context>
+        extends AbstractSynchronizedThreadContextTestCase<BiasedSyncContextShell>
+        implements ContextImplementationProvider<C> {
+
+    @Override
+    protected BiasedSyncContextShell getTestableContext() {
+        return new BiasedSyncContextShell(getContext());
+    }
+
+    @Override
+    protected BiasedSyncContextShell getTestableContext(int capacity) {
+        return new BiasedSyncContextShell(getContext(capacity));
+    }
+
+    @Override
+    protected BiasedSyncContextShell getTestableContext(Map<String, Object> source) {
+        return new BiasedSyncContextShell(getContext(source));
+    }
+}
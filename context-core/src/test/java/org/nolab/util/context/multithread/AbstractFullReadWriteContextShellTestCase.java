@@ -0,0 +1,31 @@
+package org.nolab.util.context.multithread;
+
+import org.nolab.util.context.*;
+import org.nolab.util.context.shells.FullReadWriteContextShell;
+
+import java.util.Map;
+
+/**
+ * Tests for context implementations, encapsulated in {@link FullReadWriteContextShell}.
+ *
+ * @param <C> implementation
+ */
+public abstract class AbstractFullReadWriteContextShellTestCase<C extends Context>
+        extends AbstractSynchronizedThreadContextTestCase<FullReadWriteContextShell>
+        implements ContextImplementationProvider<C> {
+
+    @Override
+    protected FullReadWriteContextShell getTestableContext() {
+        return new FullReadWriteContextShell(getContext());
+    }
+
+    @Override
+    protected FullReadWriteContextShell getTestableContext(int capacity) {
+        return new FullReadWriteContextShell(getContext(capacity));
+    }
+
+    @Override
+    protected FullReadWriteContextShell getTestableContext(Map<String, Object> source) {
+        return new FullReadWriteContextShell(getContext(source));
+    }
+}
@@ -0,0 +1,31 @@
+package org.nolab.util.context.multithread;
+
+import org.nolab.util.context.*;
+import org.nolab.util.context.shells.FullStampedContextShell;
+
+import java.util.Map;
+
+/**
+ * Tests for context implementations, encapsulated in {@link FullStampedContextShell}.
+ *
+ * @param <C> implementation
+ */
+public abstract class AbstractFullStampedContextShellTestCase<C extends Context>
+        extends AbstractSynchronizedThreadContextTestCase<FullStampedContextShell>
+        implements ContextImplementationProvider<C> {
+
+    @Override
+    protected FullStampedContextShell getTestableContext() {
+        return new FullStampedContextShell(getContext());
+    }
+
+    @Override
+    protected FullStampedContextShell getTestableContext(int capacity) {
+        return new FullStampedContextShell(getContext(capacity));
+    }
+
+    @Override
+    protected FullStampedContextShell getTestableContext(Map<String, Object> source) {
+        return new FullStampedContextShell(getContext(source));
+    }
+}
@@ -0,0 +1,8 @@
+package org.nolab.util.context.multithread;
+
+import org.nolab.util.context.impl.HashContext;
+
+public class HashContextBISCSTestCase extends
+        AbstractBiasedSyncContextShellTestCase<HashContext>
+        implements HashContextProvider {
+}
@@ -0,0 +1,13 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.util.function.Function;
+
+public class BaseReadWriteContextShellTestCase extends AbstractContextShellTestCase<BaseReadWriteContextShell> {
+
+    @Override
+    protected Function<Context, BaseReadWriteContextShell> getShellConstructor() {
+        return BaseReadWriteContextShell::new;
+    }
+}
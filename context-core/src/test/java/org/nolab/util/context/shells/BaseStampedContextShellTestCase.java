@@ -0,0 +1,13 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.util.function.Function;
+
+public class BaseStampedContextShellTestCase extends AbstractContextShellTestCase<BaseStampedContextShell> {
+
+    @Override
+    protected Function<Context, BaseStampedContextShell> getShellConstructor() {
+        return BaseStampedContextShell::new;
+    }
+}
@@ -1,13 +1,107 @@
 package org.nolab.util.context.shells;
 
+import org.junit.Test;
 import org.nolab.util.context.Context;
+import org.nolab.util.context.test.ContextTI;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+import static org.junit.Assert.*;
+
 public class BaseSyncContextShellTestCase extends AbstractContextShellTestCase<BaseSyncContextShell> {
 
     @Override
     protected Function<Context, BaseSyncContextShell> getShellConstructor() {
         return BaseSyncContextShell::new;
     }
+
+    @Test
+    public void testComputeOutsideLock() throws Exception {
+        BaseSyncContextShell context = new BaseSyncContextShell(new ContextTI(4));
+        context.setComputeOutsideLock(true);
+        assertTrue(context.isComputeOutsideLock());
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, Object> slow = k -> {
+            calls.incrementAndGet();
+            computing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return value1;
+        };
+        AtomicReference<Object> first = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        Thread thr1 = new Thread(() -> first.set(context.getOrComputeAndPut(key1, slow)));
+        thr1.start();
+        assertTrue(computing.await(10, TimeUnit.SECONDS));
+        Thread thr2 = new Thread(() -> second.set(context.getOrComputeAndPut(key1, slow)));
+        thr2.start();
+        context.put(key2, value2);
+        assertEquals(value2, context.get(key2));
+        assertFalse(context.containsKey(key1));
+        awaitWaiting(thr2);
+        release.countDown();
+        thr1.join();
+        thr2.join();
+        assertEquals(value1, first.get());
+        assertEquals(value1, second.get());
+        assertEquals(1, calls.get());
+        assertEquals(value1, context.get(key1));
+    }
+
+    @Test
+    public void testFailedComputationRetried() throws Exception {
+        BaseSyncContextShell context = new BaseSyncContextShell(new ContextTI(4));
+        context.setComputeOutsideLock(true);
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        Thread thr1 = new Thread(() -> {
+            try {
+                context.getOrComputeAndPut(key1, k -> {
+                    computing.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw failure;
+                });
+            } catch (Throwable e) {
+                firstFailure.set(e);
+            }
+        });
+        thr1.start();
+        assertTrue(computing.await(10, TimeUnit.SECONDS));
+        Thread thr2 = new Thread(() -> second.set(context.getOrComputeAndPut(key1, k -> value2)));
+        thr2.start();
+        awaitWaiting(thr2);
+        release.countDown();
+        thr1.join();
+        thr2.join();
+        assertSame(failure, firstFailure.get());
+        assertEquals(value2, second.get());
+        assertEquals(value2, context.get(key1));
+    }
+
+    /**
+     * Await, until thread waits for computation of other thread.
+     */
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (thread.getState() != Thread.State.WAITING) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
 }
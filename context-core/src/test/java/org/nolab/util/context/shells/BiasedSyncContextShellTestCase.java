@@ -0,0 +1,77 @@
+package org.nolab.util.context.shells;
+
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.test.ContextTI;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class BiasedSyncContextShellTestCase extends AbstractContextShellTestCase<BiasedSyncContextShell> {
+
+    @Override
+    protected Function<Context, BiasedSyncContextShell> getShellConstructor() {
+        return BiasedSyncContextShell::new;
+    }
+
+    @Test
+    public void testInflation() throws Exception {
+        BiasedSyncContextShell context = new BiasedSyncContextShell(new ContextTI(4));
+        assertNull(context.getOwner());
+        put12345(context);
+        assertSame(Thread.currentThread(), context.getOwner());
+        assertFalse(context.isInflated());
+        long inflations = BiasedSyncContextShell.getInflationCount();
+        Thread other = new Thread(() -> context.remove(key5));
+        other.start();
+        other.join();
+        assertTrue(context.isInflated());
+        assertTrue(BiasedSyncContextShell.getInflationCount() > inflations);
+        assertSame(Thread.currentThread(), context.getOwner());
+        context.put(key5, value5);
+        assertFull12345WithSize(context);
+    }
+
+    @Test
+    public void testNestedOwnerOperations() {
+        BiasedSyncContextShell context = new BiasedSyncContextShell(new ContextTI(4));
+        context.put(key1, value1);
+        assertEquals(value2, context.getOrComputeAndPut(key2, k -> context.containsKey(key1) ? value2 : null));
+        assertFalse(context.isInflated());
+        assertEquals(2, context.size());
+    }
+
+    @Test
+    public void testInflationParksDuringLongOwnerOperation() throws Exception {
+        BiasedSyncContextShell context = new BiasedSyncContextShell(new ContextTI(4));
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread owner = new Thread(() -> context.getOrComputeAndPut(key1, k -> {
+            computing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return value1;
+        }));
+        owner.start();
+        computing.await();
+        Thread other = new Thread(() -> context.get(key1));
+        other.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (other.getState() != Thread.State.TIMED_WAITING) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+        assertTrue(other.isAlive());
+        release.countDown();
+        owner.join();
+        other.join();
+        assertTrue(context.isInflated());
+        assertEquals(value1, context.get(key1));
+    }
+}
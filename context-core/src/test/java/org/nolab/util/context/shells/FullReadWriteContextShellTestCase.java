@@ -0,0 +1,13 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.util.function.Function;
+
+public class FullReadWriteContextShellTestCase extends AbstractContextShellTestCase<FullReadWriteContextShell> {
+
+    @Override
+    protected Function<Context, FullReadWriteContextShell> getShellConstructor() {
+        return FullReadWriteContextShell::new;
+    }
+}
@@ -0,0 +1,13 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.util.function.Function;
+
+public class FullStampedContextShellTestCase extends AbstractContextShellTestCase<FullStampedContextShell> {
+
+    @Override
+    protected Function<Context, FullStampedContextShell> getShellConstructor() {
+        return FullStampedContextShell::new;
+    }
+}
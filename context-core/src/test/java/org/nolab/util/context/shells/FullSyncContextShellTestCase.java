@@ -1,13 +1,127 @@
 package org.nolab.util.context.shells;
 
+import org.junit.Test;
 import org.nolab.util.context.Context;
+import org.nolab.util.context.test.ContextTI;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 
+import static org.junit.Assert.*;
+
 public class FullSyncContextShellTestCase extends AbstractContextShellTestCase<FullSyncContextShell> {
 
     @Override
     protected Function<Context, FullSyncContextShell> getShellConstructor() {
         return FullSyncContextShell::new;
     }
+
+    @Test
+    public void testComputeOutsideLock() throws Exception {
+        FullSyncContextShell context = new FullSyncContextShell(new ContextTI(4));
+        context.setComputeOutsideLock(true);
+        assertTrue(context.isComputeOutsideLock());
+        context.put(key2, value2);
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Function<String, Object> slow = k -> {
+            calls.incrementAndGet();
+            computing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return value1;
+        };
+        AtomicReference<Object> first = new AtomicReference<>();
+        AtomicReference<Object> second = new AtomicReference<>();
+        Thread thr1 = new Thread(() -> first.set(context.getOrComputeAndPut(key1, slow)));
+        Thread thr2 = new Thread(() -> {
+            try {
+                computing.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            second.set(context.getOrComputeAndPut(key1, slow));
+        });
+        thr1.start();
+        thr2.start();
+        assertTrue(computing.await(10, TimeUnit.SECONDS));
+        assertEquals(value2, context.get(key2));
+        context.put(key3, value3);
+        assertFalse(context.containsKey(key1));
+        release.countDown();
+        thr1.join();
+        thr2.join();
+        assertEquals(value1, first.get());
+        assertEquals(value1, second.get());
+        assertEquals(1, calls.get());
+        assertEquals(value1, context.get(key1));
+    }
+
+    @Test
+    public void testComputeOutsideLockSemantics() {
+        FullSyncContextShell context = new FullSyncContextShell(new ContextTI(4));
+        context.setComputeOutsideLock(true);
+        assertEquals(value1, context.getOrCompute(key1, k -> value1));
+        assertFalse(context.containsKey(key1));
+        context.put(key1, value1);
+        assertEquals(value1, context.getOrComputeAndPut(key1, k -> value2));
+        assertEquals(value2, context.getOrComputeAndPut(key2, Integer.class, k -> value2));
+        assertEquals(value1, context.removeOrCompute(key1, k -> value3));
+        assertEquals(value3, context.removeOrCompute(key1, k -> value3));
+        assertEquals(value2, context.removeOrCompute(key2, Integer.class, k -> value3));
+        assertTrue(context.isEmpty());
+        try {
+            context.getOrComputeAndPut(key1, k -> context.getOrComputeAndPut(key1, k2 -> value1));
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        assertFalse(context.containsKey(key1));
+    }
+
+    @Test
+    public void testSnapshotIteration() {
+        FullSyncContextShell context = new FullSyncContextShell(new ContextTI(8));
+        context.setSnapshotIteration(true);
+        assertTrue(context.isSnapshotIteration());
+        put12345(context);
+        Context.Entries entries = context.entries();
+        int count = 0;
+        for (Context.Entry entry : entries) {
+            assertEquals(context.get(entry.getKey()), entry.getValue());
+            context.remove(entry.getKey());
+            count++;
+        }
+        assertEquals(5, count);
+        assertTrue(context.isEmpty());
+        count = 0;
+        for (Context.Entry ignored : entries) {
+            count++;
+        }
+        assertEquals(5, count);
+        assertFalse(context.keys().iterator().hasNext());
+
+        context.put(key1, value1);
+        context.put(key2, value2);
+        Context acceptor = new ContextTI(4);
+        context.copyTo(acceptor);
+        assertEquals(2, acceptor.size());
+        assertEquals(value1, acceptor.get(key1));
+        Map<String, Object> map = new HashMap<>();
+        context.drainTo(map, (k, v) -> k.equals(key2));
+        assertEquals(1, map.size());
+        assertEquals(value2, map.get(key2));
+        assertContainsOnly1(context);
+        context.drainTo(acceptor);
+        assertTrue(context.isEmpty());
+        assertFalse(context.values().iterator().hasNext());
+    }
 }
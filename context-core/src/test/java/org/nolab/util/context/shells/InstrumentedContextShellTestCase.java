@@ -0,0 +1,90 @@
+package org.nolab.util.context.shells;
+
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.LatencyHistogram;
+import org.nolab.util.context.shells.InstrumentedContextShell.Operation;
+import org.nolab.util.context.test.ContextTI;
+
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class InstrumentedContextShellTestCase extends AbstractContextShellTestCase<InstrumentedContextShell> {
+
+    @Override
+    protected Function<Context, InstrumentedContextShell> getShellConstructor() {
+        return InstrumentedContextShell::new;
+    }
+
+    @Test
+    public void testMetrics() {
+        InstrumentedContextShell context = new InstrumentedContextShell(
+                new FullSyncContextShell(new ContextTI(8)), true, 1);
+        put12345(context);
+        assertEquals(value1, context.get(key1));
+        assertNull(context.getOrDefault("absent", null));
+        assertEquals(value1, context.getOrComputeAndPut(key1, k -> value2));
+        assertEquals(value2, context.getOrComputeAndPut("computed", k -> value2));
+        int count = 0;
+        for (String ignored : context.keys()) {
+            count++;
+        }
+        assertEquals(6, count);
+        context.copy();
+
+        assertEquals(5, context.getCount(Operation.PUT));
+        assertEquals(2, context.getCount(Operation.GET));
+        assertEquals(2, context.getCount(Operation.GET_OR_COMPUTE_AND_PUT));
+        assertEquals(1, context.getCount(Operation.ITERATION));
+        assertEquals(1, context.getCount(Operation.COPY));
+        assertEquals(0, context.getCount(Operation.REMOVE));
+        assertEquals(5, context.getLatency(Operation.PUT).getCount());
+        assertEquals(1, context.getLatency(Operation.ITERATION).getCount());
+        assertEquals(1, context.getComputeTime().getCount());
+        assertEquals(10, context.getMonitorWait().getCount());
+        assertEquals(10, context.getMonitorHold().getCount());
+
+        context.resetMetrics();
+        assertEquals(0, context.getCount(Operation.PUT));
+        assertEquals(0, context.getLatency(Operation.PUT).getCount());
+        assertEquals(0, context.getMonitorHold().getCount());
+    }
+
+    @Test
+    public void testSampling() {
+        InstrumentedContextShell context = new InstrumentedContextShell(new ContextTI(8), false, 1 << 20);
+        for (int i = 0; i < 100; i++) {
+            context.put(key1, i);
+        }
+        assertEquals(100, context.getCount(Operation.PUT));
+        assertTrue(context.getLatency(Operation.PUT).getCount() < 100);
+        assertEquals(0, context.getMonitorWait().getCount());
+        try {
+            context.setSamplingInterval(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void testLatencyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000);
+        }
+        histogram.record(-1);
+        assertEquals(1001, histogram.getCount());
+        assertEquals(1000000, histogram.getMax());
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 500000 && median <= 500000 * 1.125);
+        assertEquals(1000000, histogram.getValueAtPercentile(100));
+        assertEquals(0, histogram.getValueAtPercentile(0));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+}
@@ -0,0 +1,13 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.util.function.Function;
+
+public class LockSafeReadWriteContextShellTestCase extends AbstractContextShellTestCase<LockSafeReadWriteContextShell> {
+
+    @Override
+    protected Function<Context, LockSafeReadWriteContextShell> getShellConstructor() {
+        return LockSafeReadWriteContextShell::new;
+    }
+}
@@ -0,0 +1,13 @@
+package org.nolab.util.context.shells;
+
+import org.nolab.util.context.Context;
+
+import java.util.function.Function;
+
+public class LockSafeStampedContextShellTestCase extends AbstractContextShellTestCase<LockSafeStampedContextShell> {
+
+    @Override
+    protected Function<Context, LockSafeStampedContextShell> getShellConstructor() {
+        return LockSafeStampedContextShell::new;
+    }
+}
@@ -0,0 +1,84 @@
+package org.nolab.util.context.shells;
+
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.context.ContextAccessProfiler;
+import org.nolab.util.context.test.ContextTI;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+public class ProfilingContextShellTestCase extends AbstractContextShellTestCase<ProfilingContextShell> {
+
+    @Override
+    protected Function<Context, ProfilingContextShell> getShellConstructor() {
+        return ProfilingContextShell::new;
+    }
+
+    @Test
+    public void testProfile() {
+        ProfilingContextShell context = new ProfilingContextShell(new ContextTI(8),
+                new ContextAccessProfiler(2, 256, 16, 1));
+        put12345(context);
+        for (int i = 0; i < 10; i++) {
+            context.get(key1);
+        }
+        for (int i = 0; i < 5; i++) {
+            context.containsKey(key2);
+        }
+        context.get(key3);
+        context.put(key4, value5);
+        context.put(key4, value4);
+        context.remove(key5);
+        context.getOrComputeAndPut("computed", k -> value1);
+
+        ContextAccessProfiler.Snapshot snapshot = context.getProfiler().snapshot();
+        assertEquals(17, snapshot.getReads());
+        assertEquals(9, snapshot.getWrites());
+        assertEquals(17.0 / 9, snapshot.getReadWriteRatio(), 1e-9);
+        Map<String, Long> hotReads = snapshot.getHotReadKeys();
+        assertEquals(2, hotReads.size());
+        Iterator<Map.Entry<String, Long>> iterator = hotReads.entrySet().iterator();
+        Map.Entry<String, Long> first = iterator.next();
+        assertEquals(key1, first.getKey());
+        assertTrue(first.getValue() >= 10);
+        assertEquals(key2, iterator.next().getKey());
+        assertEquals(key4, snapshot.getHotWriteKeys().keySet().iterator().next());
+        assertEquals(2, snapshot.getUnreadKeys().size());
+        assertTrue(snapshot.getUnreadKeys().contains(key4));
+        assertTrue(snapshot.getUnreadKeys().contains("computed"));
+        assertFalse(snapshot.getUnreadKeys().contains(key5));
+        assertFalse(snapshot.getUnreadKeys().contains(key1));
+
+        context.getProfiler().reset();
+        snapshot = context.getProfiler().snapshot();
+        assertEquals(0, snapshot.getReads());
+        assertTrue(snapshot.getHotReadKeys().isEmpty());
+        assertTrue(snapshot.getUnreadKeys().isEmpty());
+    }
+
+    @Test
+    public void testSampledUnreadKeys() {
+        ContextAccessProfiler profiler = new ContextAccessProfiler(2, 256, 16, 2);
+        ProfilingContextShell context = new ProfilingContextShell(new ContextTI(8), profiler);
+        for (int i = 0; i < 1000 && !profiler.snapshot().getUnreadKeys().contains(key1); i++) {
+            context.put(key1, value1);
+        }
+        assertTrue(profiler.snapshot().getUnreadKeys().contains(key1));
+        context.get(key1);
+        assertFalse(profiler.snapshot().getUnreadKeys().contains(key1));
+    }
+
+    @Test
+    public void testClearForgetsUnreadKeys() {
+        ProfilingContextShell context = new ProfilingContextShell(new ContextTI(8));
+        put12345(context);
+        assertEquals(5, context.getProfiler().snapshot().getUnreadKeys().size());
+        context.clear();
+        assertTrue(context.isEmpty());
+        assertTrue(context.getProfiler().snapshot().getUnreadKeys().isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package org.nolab.util.taskexe;
+
+import org.nolab.util.taskexe.exceptions.TaskCancelledException;
+
+/**
+ * Shared flag of cancellation for group of tasks.
+ * Cancellation of whole group costs single volatile write,
+ * tasks notice it, when they check token.
+ * <p>Token may have parent token: it is cancelled,
+ * if it or any of its ancestors is cancelled.
+ * Thread-safe.
+ */
+public class CancellationToken {
+
+    private final CancellationToken parent;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Create token without parent.
+     */
+    public CancellationToken() {
+        this(null);
+    }
+
+    /**
+     * Create token with specified parent.
+     *
+     * @param parent parent token or {@code null}
+     */
+    public CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Get parent token.
+     *
+     * @return parent token or {@code null}
+     */
+    public CancellationToken getParent() {
+        return parent;
+    }
+
+    /**
+     * Cancel this token and all its descendants.
+     * No effect if token is already cancelled.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Return {@code true} if this token or any of its ancestors is cancelled.
+     *
+     * @return {@code true} if cancelled or {@code false} otherwise
+     */
+    public boolean isCancelled() {
+        for (CancellationToken token = this; token != null; token = token.parent) {
+            if (token.cancelled) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Throw exception, if this token is cancelled.
+     *
+     * @throws TaskCancelledException if token is cancelled
+     */
+    public void throwIfCancelled() {
+        if (isCancelled()) {
+            throw new TaskCancelledException();
+        }
+    }
+}
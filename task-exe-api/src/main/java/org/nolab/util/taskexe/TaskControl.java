@@ -3,7 +3,11 @@ package org.nolab.util.taskexe;
 import org.nolab.util.context.Context;
 import org.nolab.util.taskexe.exceptions.UselessWaitingException;
 
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Interface, that provides monitoring and control actions over
@@ -217,4 +221,111 @@ public interface TaskControl {
      * to previous.
      */
     void cancelTask();
+
+    /**
+     * Registration of action, called on stage of task.
+     */
+    interface Registration {
+
+        /**
+         * Cancel registration, so action is not called,
+         * if it was not called yet. Cancelled registration
+         * does not retain action until task reaches stage.
+         *
+         * @return {@code true} if action will not be called
+         *         or {@code false} if it was already called
+         */
+        boolean cancel();
+    }
+
+    /**
+     * Register action, that is called once with this control,
+     * when task reaches specified stage. For stage, that has next stages,
+     * action is also called, if task reaches any of next stages,
+     * even if specified stage is skipped. For final stage action
+     * is called only if task finishes in this stage.
+     * If task already reached stage, action is called immediately.
+     * Action is executed by specified executor; exceptions,
+     * thrown by action, are ignored. Registration does not block
+     * and does not occupy thread; it may be cancelled by returned
+     * {@link Registration}, if action is no more needed.
+     *
+     * @param stage expected stage
+     * @param action action to call
+     * @param executor executor of action
+     * @return registration of action
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    Registration onStage(TaskStage stage, Consumer<? super TaskControl> action, Executor executor);
+
+    /**
+     * Register action, that is called once with this control,
+     * when task reaches specified stage. Action is called
+     * by thread, that updates stage, or by current thread,
+     * if stage is already reached.
+     * @see #onStage(TaskStage, Consumer, Executor)
+     *
+     * @param stage expected stage
+     * @param action action to call
+     * @return registration of action
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    default Registration onStage(TaskStage stage, Consumer<? super TaskControl> action) {
+        return onStage(stage, action, Runnable::run);
+    }
+
+    /**
+     * Register action, that is called once with this control,
+     * when task reaches any final stage.
+     * If task is already finished, action is called immediately.
+     * Action is executed by specified executor; exceptions,
+     * thrown by action, are ignored.
+     *
+     * @param action action to call
+     * @param executor executor of action
+     * @return registration of action
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    Registration whenFinished(Consumer<? super TaskControl> action, Executor executor);
+
+    /**
+     * Register action, that is called once with this control,
+     * when task reaches any final stage. Action is called
+     * by thread, that finishes task, or by current thread,
+     * if task is already finished.
+     * @see #whenFinished(Consumer, Executor)
+     *
+     * @param action action to call
+     * @return registration of action
+     * @throws NullPointerException if specified action is {@code null}
+     */
+    default Registration whenFinished(Consumer<? super TaskControl> action) {
+        return whenFinished(action, Runnable::run);
+    }
+
+    /**
+     * Get future, that is completed, when task finishes:
+     * with this control, if task is complete, exceptionally
+     * with cause of failure, if task is failed, or exceptionally
+     * with {@link CancellationException}, if task is cancelled.
+     * Completion of returned future does not affect task.
+     *
+     * @return future of task finish
+     */
+    default CompletableFuture<TaskControl> toCompletableFuture() {
+        CompletableFuture<TaskControl> future = new CompletableFuture<>();
+        whenFinished(taskControl -> {
+            switch (taskControl.getTaskStage()) {
+                case COMPLETE:
+                    future.complete(taskControl);
+                    break;
+                case FAILED:
+                    future.completeExceptionally(taskControl.getFailureCause());
+                    break;
+                default:
+                    future.completeExceptionally(new CancellationException());
+            }
+        });
+        return future;
+    }
 }
@@ -0,0 +1,145 @@
+package org.nolab.util.taskexe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Utility methods for groups of {@link TaskControl}.
+ * Group is awaited by single shared latch, that is counted down
+ * by {@link TaskControl#whenFinished(java.util.function.Consumer)}
+ * callbacks, so waiting thread is woken once instead of waiting
+ * for every control separately. When waiting ends, callbacks of controls,
+ * that are not finished, are cancelled, so repeated waiting for the same
+ * controls does not accumulate callbacks.
+ */
+public final class TaskControls {
+
+    private TaskControls() {
+    }
+
+    /**
+     * Await, until all specified tasks finish.
+     *
+     * @param taskControls controls of tasks
+     * @throws NullPointerException if collection or any control is {@code null}
+     * @throws InterruptedException if current thread interrupted
+     */
+    public static void awaitAll(Collection<? extends TaskControl> taskControls)
+            throws InterruptedException {
+        awaitAll(taskControls, false, 0L, null);
+    }
+
+    /**
+     * Await for specified timeout, until all specified tasks finish.
+     *
+     * @param taskControls controls of tasks
+     * @param timeout timeout to wait
+     * @param unit time unit of timeout
+     * @return {@code true} if all tasks finished
+     *         or {@code false} if timeout elapsed
+     * @throws NullPointerException if collection, any control
+     *                              or time unit is {@code null}
+     * @throws IllegalArgumentException if timeout lesser than 0
+     * @throws InterruptedException if current thread interrupted
+     */
+    public static boolean awaitAll(Collection<? extends TaskControl> taskControls, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Invalid timeout: " + timeout);
+        }
+        return awaitAll(taskControls, true, timeout, unit);
+    }
+
+    /**
+     * Await, until any of specified tasks finishes.
+     *
+     * @param taskControls controls of tasks
+     * @return control of the first finished task
+     *         or {@code null} if collection is empty
+     * @throws NullPointerException if collection or any control is {@code null}
+     * @throws InterruptedException if current thread interrupted
+     */
+    public static TaskControl awaitAny(Collection<? extends TaskControl> taskControls)
+            throws InterruptedException {
+        return awaitAny(taskControls, false, 0L, null);
+    }
+
+    /**
+     * Await for specified timeout, until any of specified tasks finishes.
+     *
+     * @param taskControls controls of tasks
+     * @param timeout timeout to wait
+     * @param unit time unit of timeout
+     * @return control of the first finished task or {@code null}
+     *         if collection is empty or timeout elapsed
+     * @throws NullPointerException if collection, any control
+     *                              or time unit is {@code null}
+     * @throws IllegalArgumentException if timeout lesser than 0
+     * @throws InterruptedException if current thread interrupted
+     */
+    public static TaskControl awaitAny(Collection<? extends TaskControl> taskControls, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("Invalid timeout: " + timeout);
+        }
+        return awaitAny(taskControls, true, timeout, unit);
+    }
+
+    private static boolean awaitAll(Collection<? extends TaskControl> taskControls,
+                                    boolean timed, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(taskControls.size());
+        return await(taskControls, latch, c -> latch.countDown(), timed, timeout, unit);
+    }
+
+    private static TaskControl awaitAny(Collection<? extends TaskControl> taskControls,
+                                        boolean timed, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        if (taskControls.isEmpty()) {
+            return null;
+        }
+        AtomicReference<TaskControl> first = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        await(taskControls, latch, c -> {
+            if (first.compareAndSet(null, c)) {
+                latch.countDown();
+            }
+        }, timed, timeout, unit);
+        return first.get();
+    }
+
+    /**
+     * Register action on finish of every control, until specified latch
+     * is counted down, and await latch. When waiting ends, registrations
+     * are cancelled, so controls, that are not finished, do not retain action.
+     *
+     * @return {@code true} if latch is counted down
+     */
+    private static boolean await(Collection<? extends TaskControl> taskControls, CountDownLatch latch,
+                                 Consumer<TaskControl> action, boolean timed, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        List<TaskControl.Registration> registrations = new ArrayList<>(taskControls.size());
+        try {
+            for (TaskControl taskControl : taskControls) {
+                if (latch.getCount() == 0) {
+                    break;
+                }
+                registrations.add(taskControl.whenFinished(action));
+            }
+            if (timed) {
+                return latch.await(timeout, unit);
+            }
+            latch.await();
+            return true;
+        } finally {
+            for (TaskControl.Registration registration : registrations) {
+                registration.cancel();
+            }
+        }
+    }
+}
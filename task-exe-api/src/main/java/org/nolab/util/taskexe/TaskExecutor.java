@@ -3,6 +3,12 @@ package org.nolab.util.taskexe;
 import org.nolab.util.context.Context;
 import org.nolab.util.taskexe.exceptions.DeniedExecutionException;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
 /**
  * Interface, that provides execution of given task with given context
  * in implementation-dependent mode with control over execution.
@@ -23,4 +29,28 @@ public interface TaskExecutor {
      * @throws DeniedExecutionException if executor denied to execute task
      */
     TaskControl execute(Task task, Context context);
+
+    /**
+     * Submit specified tasks for execution. Context for every task
+     * is got from specified function, context may be {@code null}.
+     * Returned controls are in order of tasks in collection.
+     * <p>By default every task is submitted by
+     * {@link #execute(Task, Context)}; implementations may submit
+     * batch at once. If execution of some task is denied, tasks,
+     * submitted before it, are not cancelled.
+     *
+     * @param tasks tasks to be executed
+     * @param contexts function, returning context for task
+     * @return controls over tasks execution
+     * @throws NullPointerException if any specified task or argument is {@code null}
+     * @throws DeniedExecutionException if executor denied to execute tasks
+     */
+    default List<TaskControl> executeAll(Collection<? extends Task> tasks, Function<Task, Context> contexts) {
+        Objects.requireNonNull(contexts);
+        List<TaskControl> taskControls = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            taskControls.add(execute(Objects.requireNonNull(task), contexts.apply(task)));
+        }
+        return taskControls;
+    }
 }
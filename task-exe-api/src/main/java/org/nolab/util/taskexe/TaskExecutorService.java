@@ -1,6 +1,12 @@
 package org.nolab.util.taskexe;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,6 +36,25 @@ public interface TaskExecutorService extends TaskExecutor {
      */
     int getTaskCount();
 
+    /**
+     * Get count of tasks, exists in this service in specified stage.
+     * By default counts tasks, returned by {@link #getTasks()}.
+     *
+     * @param stage task stage
+     * @return count of tasks in stage
+     * @throws NullPointerException if specified stage is {@code null}
+     */
+    default int getTaskCount(TaskControl.TaskStage stage) {
+        Objects.requireNonNull(stage);
+        int count = 0;
+        for (TaskControl taskControl : getTasks()) {
+            if (taskControl.getTaskStage() == stage) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     /**
      * Get "for-each" tool for all submitted tasks.
      * Order of tasks in "for-each" loop depends on implementation.
@@ -43,6 +68,30 @@ public interface TaskExecutorService extends TaskExecutor {
      */
     Tasks getTasks();
 
+    /**
+     * Get "for-each" tool for not more than specified number of
+     * submitted tasks. Intended for cheap monitoring of services
+     * with many tasks. Which tasks are returned depends on implementation.
+     * By default collects first tasks, returned by {@link #getTasks()}.
+     *
+     * @param limit maximal number of tasks
+     * @return iterable of submitted tasks
+     * @throws IllegalArgumentException if specified limit lesser than 0
+     */
+    default Tasks getTasks(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+        List<TaskControl> taskControls = new ArrayList<>();
+        for (TaskControl taskControl : getTasks()) {
+            if (taskControls.size() == limit) {
+                break;
+            }
+            taskControls.add(taskControl);
+        }
+        return taskControls::iterator;
+    }
+
     /**
      * Stop service to accept new tasks for execution.
      * All submitted tasks will be executed in
@@ -129,6 +178,97 @@ public interface TaskExecutorService extends TaskExecutor {
          return awaitTermination(unit.toMillis(timeout));
      }
 
+    /**
+     * Get future, that is completed, when service is terminated.
+     * Completion of returned future does not affect service.
+     * <p>By default, if service is not terminated yet,
+     * future is completed by asynchronous task, that awaits
+     * termination in {@link ForkJoinPool#commonPool()};
+     * implementations should complete it without occupying thread.
+     *
+     * @return future of termination
+     */
+    default CompletableFuture<Void> getTerminationFuture() {
+        if (isTerminated()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.runAsync(() -> {
+            try {
+                awaitTermination();
+            } catch (InterruptedException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Get sequence number of the last action in service: submission task
+     * for execution or stage moving for any task or receiving shutdown
+     * command or terminating. Sequence number increases with every action.
+     *
+     * @return sequence number of the last action
+     */
+    long getActionSequence();
+
+    /**
+     * Await any action in service.
+     * <p>
+     * To prevent action skipping between several calls and possibly
+     * endless waiting expected sequence number is specified.
+     * Waiting continues while specified sequence number is equal to
+     * sequence number of the last action. Method returns actual
+     * sequence number.
+     * <p>
+     * State change monitoring may be processed like this:
+     * <p>
+     * {@code
+     *     long sequence = taskExecutorService.getActionSequence();
+     *     while (someCondition) {
+     *         sequence = taskExecutorService.awaitAction(sequence);
+     *         someCondition = ... //any check actions
+     *     }
+     * }
+     *
+     * @param sequence expected sequence number
+     * @return actual sequence number
+     * @throws InterruptedException if current thread interrupted
+     */
+    long awaitAction(long sequence) throws InterruptedException;
+
+    /**
+     * Await any action in service for specified amount in milliseconds.
+     * <p>
+     * @see #awaitAction(long)
+     * <p>
+     *
+     * @param sequence expected sequence number
+     * @param timeout timeout to wait in milliseconds
+     * @return actual sequence number
+     * @throws IllegalArgumentException if specified timeout lesser than 0
+     * @throws InterruptedException if current thread interrupted
+     */
+    long awaitAction(long sequence, long timeout) throws InterruptedException;
+
+    /**
+     * Await any action in service for specified amount of specified
+     * time unit.
+     * <p>
+     * @see #awaitAction(long)
+     * <p>
+     *
+     * @param sequence expected sequence number
+     * @param timeout timeout to wait
+     * @param unit unit of timeout
+     * @return actual sequence number
+     * @throws IllegalArgumentException if specified timeout lesser than 0
+     * @throws NullPointerException if specified time unit is {@code null}
+     * @throws InterruptedException if current thread interrupted
+     */
+    default long awaitAction(long sequence, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        return awaitAction(sequence, unit.toMillis(timeout));
+    }
+
     /**
      * Await any action in service: submission task for execution
      * or stage moving for any task or receiving shutdown command
@@ -137,11 +277,15 @@ public interface TaskExecutorService extends TaskExecutor {
      * To prevent action skipping between several calls and possibly
      * endless waiting expected point of state is specified.
      * Waiting continues while specified state point is equal to actual.
-     * By default equality determines as {@code o1 == o2}.
      * Method returns actual state point, that must not be {@code null}.
      * If specified expected state point is {@code null}, actual point of state
      * is instantly returned.
      * <p>
+     * By default state point is boxed sequence number of
+     * {@link #awaitAction(long)} and state points are compared by
+     * {@link Object#equals(Object)}. State point of other type
+     * is never equal to actual one.
+     * <p>
      * State change monitoring may be processed like this:
      * <p>
      * {@code
@@ -156,7 +300,11 @@ public interface TaskExecutorService extends TaskExecutor {
      * @return actual point of state
      * @throws InterruptedException if current thread interrupted
      */
-     Object awaitAction(Object statePoint) throws InterruptedException;
+     default Object awaitAction(Object statePoint) throws InterruptedException {
+         return statePoint instanceof Long
+                 ? awaitAction(((Long) statePoint).longValue())
+                 : getActionSequence();
+     }
 
     /**
      * Await any action in service for specified amount in milliseconds.
@@ -170,7 +318,14 @@ public interface TaskExecutorService extends TaskExecutor {
      * @throws IllegalArgumentException if specified timeout lesser than 0
      * @throws InterruptedException if current thread interrupted
      */
-     Object awaitAction(Object statePoint, long timeout) throws InterruptedException;
+     default Object awaitAction(Object statePoint, long timeout) throws InterruptedException {
+         if (timeout < 0) {
+             throw new IllegalArgumentException("Invalid timeout: " + timeout);
+         }
+         return statePoint instanceof Long
+                 ? awaitAction(((Long) statePoint).longValue(), timeout)
+                 : getActionSequence();
+     }
 
     /**
      * Await any action in service for specified amount of specified
@@ -188,6 +343,11 @@ public interface TaskExecutorService extends TaskExecutor {
      */
      default Object awaitAction(Object statePoint, long timeout, TimeUnit unit)
              throws InterruptedException {
-         return awaitAction(statePoint, unit.toMillis(timeout));
+         if (timeout < 0) {
+             throw new IllegalArgumentException("Invalid timeout: " + timeout);
+         }
+         return statePoint instanceof Long
+                 ? awaitAction(((Long) statePoint).longValue(), timeout, unit)
+                 : getActionSequence();
      }
 }
@@ -0,0 +1,31 @@
+package org.nolab.util.taskexe.exceptions;
+
+import org.nolab.util.taskexe.CancellationToken;
+
+/**
+ * Exception thrown by {@link CancellationToken#throwIfCancelled()},
+ * when work, bound to token, is cancelled.
+ */
+public class TaskCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = -6218437053917245520L;
+
+    public TaskCancelledException() {
+    }
+
+    public TaskCancelledException(String message) {
+        super(message);
+    }
+
+    public TaskCancelledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public TaskCancelledException(Throwable cause) {
+        super(cause);
+    }
+
+    protected TaskCancelledException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
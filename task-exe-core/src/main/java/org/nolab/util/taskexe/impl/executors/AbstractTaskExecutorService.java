@@ -2,11 +2,18 @@ package org.nolab.util.taskexe.impl.executors;
 
 import org.nolab.util.context.Context;
 import org.nolab.util.taskexe.*;
+import org.nolab.util.taskexe.TaskControl.TaskStage;
 import org.nolab.util.taskexe.impl.executors.shells.TaskControlShell;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.*;
+import java.util.function.Function;
 
 /**
  * An abstract {@link TaskExecutorService} with common functional.
@@ -15,6 +22,9 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
 
     /**
      * A {@link TaskControlImpl}, bounded to task executor state.
+     * Every stage update is signalled as service action and counted
+     * in per-stage counters, reaching of final stage is counted
+     * as task finish.
      */
     protected class InnerTaskControl extends TaskControlImpl {
 
@@ -26,15 +36,17 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
         }
 
         @Override
-        public void cancelTask() {
-            super.cancelTask();
-            AbstractTaskExecutorService.this.lock.lock();
-            try {
-                AbstractTaskExecutorService.this.statePoint = new Object();
-                AbstractTaskExecutorService.this.condition.signalAll();
-            } finally {
-                AbstractTaskExecutorService.this.lock.unlock();
+        protected void stageChanged(TaskStage oldStage, TaskStage newStage) {
+            stageCounts.decrementAndGet(oldStage.ordinal());
+            stageCounts.incrementAndGet(newStage.ordinal());
+            if (oldStage == TaskStage.PENDING) {
+                pendingTasks.remove(this);
             }
+            if (!newStage.hasAfter()) {
+                unfinishedCount.decrementAndGet();
+                tryTerminate();
+            }
+            signalAction();
         }
     }
 
@@ -60,7 +72,7 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
         public void add(TaskControl taskControl) {
             int i = end + 1;
             if (i >= taskControls.length) {
-                taskControls = new TaskControl[i + 1];
+                taskControls = Arrays.copyOf(taskControls, Math.max(i + 1, taskControls.length * 2));
             }
             end = i;
             taskControls[i] = taskControl;
@@ -117,12 +129,15 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
 
     /**
      * A {@link Tasks} implementation that uses chained task controls
-     * to iterate.
+     * to iterate. Iteration is weakly consistent and does not lock:
+     * removed node keeps its reference to the next one, so iteration
+     * continues from node, that was removed while pointer was set on it.
      */
     protected static class LinkedTasks implements Iterator<TaskControl>, Tasks {
 
         private volatile TaskControlNode cur;
         private volatile TaskControlNode next;
+        private int remaining;
 
         /**
          * Construct iterator with zero node.
@@ -132,24 +147,37 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
          * @param zero zero node
          */
         public LinkedTasks(TaskControlNode zero) {
+            this(zero, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Construct iterator with zero node, that returns
+         * not more than specified number of nodes.
+         *
+         * @param zero zero node
+         * @param limit maximal number of returned nodes
+         */
+        public LinkedTasks(TaskControlNode zero, int limit) {
             cur = zero;
             next = cur.next;
+            remaining = limit;
         }
 
         @Override
         public boolean hasNext() {
-            next = cur.next;
+            next = remaining > 0 ? cur.next : null;
             return next != null;
         }
 
         @Override
         public TaskControl next() {
-            if (next == null) {
+            if (next == null || remaining <= 0) {
                 throw new NoSuchElementException();
             }
             TaskControlNode node = next;
             cur = next;
             next = cur.next;
+            remaining--;
             return new TaskControlShell(node);
         }
 
@@ -165,7 +193,79 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
     protected volatile boolean terminating = false;
     protected volatile boolean terminated = false;
 
-    protected volatile Object statePoint = new Object();
+    /**
+     * Sequence number of the last action.
+     */
+    protected final AtomicLong actionSequence = new AtomicLong();
+
+    /**
+     * Number of submitted tasks, that have not reached final stage.
+     */
+    protected final AtomicInteger unfinishedCount = new AtomicInteger();
+
+    /**
+     * Number of registered tasks per stage, indexed by stage ordinal.
+     * Unlike {@link #unfinishedCount}, sum of several counters
+     * may be inconsistent while task moves between stages.
+     */
+    protected final AtomicIntegerArray stageCounts = new AtomicIntegerArray(TaskStage.values().length);
+
+    /**
+     * Registered tasks in {@link TaskStage#PENDING} stage.
+     */
+    protected final Set<InnerTaskControl> pendingTasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Future, completed, when service is terminated.
+     */
+    protected final CompletableFuture<Void> terminationFuture = new CompletableFuture<>();
+
+    /**
+     * Number of threads, waiting for action or termination.
+     * Lock is taken to signal actions only if there are waiters.
+     */
+    protected final AtomicInteger waiterCount = new AtomicInteger();
+
+    /**
+     * Increment action sequence and signal waiters, if any.
+     * Without waiters action costs single atomic increment.
+     */
+    protected void signalAction() {
+        actionSequence.incrementAndGet();
+        if (waiterCount.get() > 0) {
+            lock.lock();
+            try {
+                condition.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * If service is terminating and all tasks are finished,
+     * mark service terminated and complete termination future
+     * out of lock. Does not signal waiters.
+     *
+     * @return {@code true} if service became terminated by this call
+     */
+    protected boolean tryTerminate() {
+        if (!terminating || unfinishedCount.get() != 0) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (!terminating || unfinishedCount.get() != 0) {
+                return false;
+            }
+            terminated = true;
+            terminating = false;
+        } finally {
+            lock.unlock();
+        }
+        terminationFuture.complete(null);
+        return true;
+    }
 
     @Override
     public boolean isTerminating() {
@@ -179,6 +279,7 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
 
     @Override
     public void awaitTermination() throws InterruptedException {
+        waiterCount.incrementAndGet();
         lock.lock();
         try {
             while (!terminated) {
@@ -186,6 +287,7 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
             }
         } finally {
             lock.unlock();
+            waiterCount.decrementAndGet();
         }
     }
 
@@ -199,64 +301,92 @@ public abstract class AbstractTaskExecutorService implements TaskExecutorService
         if (timeout < 0) {
             throw new IllegalArgumentException("Invalid timeout: " + timeout);
         }
+        waiterCount.incrementAndGet();
         lock.lock();
         try {
             long nanosTimeout = unit.toNanos(timeout);
             if (nanosTimeout < 0) {
                 nanosTimeout = Long.MAX_VALUE;
             }
-            long nanosStart = System.nanoTime();
             while (!terminated) {
-                if ((nanosTimeout = nanosTimeout - (System.nanoTime() - nanosStart)) <= 0) {
+                if (nanosTimeout <= 0) {
                     return false;
                 }
-                condition.awaitNanos(nanosTimeout);
+                nanosTimeout = condition.awaitNanos(nanosTimeout);
             }
             return true;
         } finally {
             lock.unlock();
+            waiterCount.decrementAndGet();
         }
     }
 
+    /**
+     * Returned future is dependent of inner one,
+     * so its completion does not affect service.
+     */
+    @Override
+    public CompletableFuture<Void> getTerminationFuture() {
+        return terminationFuture.thenApply(Function.identity());
+    }
+
     @Override
-    public Object awaitAction(Object statePoint) throws InterruptedException {
+    public int getTaskCount(TaskStage stage) {
+        return stageCounts.get(stage.ordinal());
+    }
+
+    @Override
+    public long getActionSequence() {
+        return actionSequence.get();
+    }
+
+    @Override
+    public long awaitAction(long sequence) throws InterruptedException {
+        long actual = actionSequence.get();
+        if (actual != sequence) {
+            return actual;
+        }
+        waiterCount.incrementAndGet();
         lock.lock();
         try {
-            while (statePoint == this.statePoint) {
+            while ((actual = actionSequence.get()) == sequence) {
                 condition.await();
             }
-            return this.statePoint;
+            return actual;
         } finally {
             lock.unlock();
+            waiterCount.decrementAndGet();
         }
     }
 
     @Override
-    public Object awaitAction(Object statePoint, long timeout) throws InterruptedException {
-        return awaitAction(statePoint, timeout, TimeUnit.MILLISECONDS);
+    public long awaitAction(long sequence, long timeout) throws InterruptedException {
+        return awaitAction(sequence, timeout, TimeUnit.MILLISECONDS);
     }
 
     @Override
-    public Object awaitAction(Object statePoint, long timeout, TimeUnit unit) throws InterruptedException {
+    public long awaitAction(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
         if (timeout < 0) {
             throw new IllegalArgumentException("Invalid timeout: " + timeout);
         }
+        long actual = actionSequence.get();
+        if (actual != sequence) {
+            return actual;
+        }
+        waiterCount.incrementAndGet();
         lock.lock();
         try {
             long nanosTimeout = unit.toNanos(timeout);
-            if (nanosTimeout < 0) {
-                nanosTimeout = Long.MAX_VALUE;
-            }
-            long nanosStart = System.nanoTime();
-            while (statePoint == this.statePoint) {
-                if ((nanosTimeout = nanosTimeout - (System.nanoTime() - nanosStart)) <= 0) {
+            while ((actual = actionSequence.get()) == sequence) {
+                if (nanosTimeout <= 0) {
                     break;
                 }
-                condition.awaitNanos(nanosTimeout);
+                nanosTimeout = condition.awaitNanos(nanosTimeout);
             }
-            return this.statePoint;
+            return actual;
         } finally {
             lock.unlock();
+            waiterCount.decrementAndGet();
         }
     }
 }
@@ -5,8 +5,9 @@ import org.nolab.util.taskexe.*;
 import org.nolab.util.taskexe.exceptions.DeniedExecutionException;
 import org.nolab.util.taskexe.impl.executors.shells.TaskControlShell;
 
-import java.util.Objects;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
 
 import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
 
@@ -52,6 +53,7 @@ public abstract class ExecutorProxyTaskExecutorService extends AbstractTaskExecu
     /**
      * Create new {@link InnerTaskControl} with given task and
      * context and add it to submitted tasks set.
+     * May be called concurrently.
      *
      * @param task task to execute
      * @param context context for execution
@@ -62,6 +64,7 @@ public abstract class ExecutorProxyTaskExecutorService extends AbstractTaskExecu
     /**
      * Do special actions with specified task control, when task
      * is terminated.
+     * May be called concurrently.
      *
      * @param taskControl task control to utilize
      */
@@ -69,98 +72,263 @@ public abstract class ExecutorProxyTaskExecutorService extends AbstractTaskExecu
 
     /**
      * Cancel all pending tasks.
+     * Only tasks in {@link TaskStage#PENDING} stage are visited.
      */
-    protected abstract void cancelAllPendingTasks();
+    protected void cancelAllPendingTasks() {
+        for (InnerTaskControl taskControl : pendingTasks) {
+            taskControl.tryUpdateTaskStage(PENDING, CANCELLED);
+        }
+    }
+
+    /**
+     * Create new {@link InnerTaskControl}s with given tasks and contexts
+     * and add them to submitted tasks set. Created controls must be
+     * either all added or none. By default calls
+     * {@link #createTaskControl(Task, Context)} for every task.
+     * May be called concurrently.
+     *
+     * @param tasks tasks to execute
+     * @param contexts contexts for execution, in order of tasks
+     * @return new task controls, in order of tasks
+     */
+    protected List<InnerTaskControl> createTaskControls(List<Task> tasks, List<Context> contexts) {
+        List<InnerTaskControl> taskControls = new ArrayList<>(tasks.size());
+        try {
+            for (int i = 0; i < tasks.size(); i++) {
+                taskControls.add(createTaskControl(tasks.get(i), contexts.get(i)));
+            }
+        } catch (RuntimeException | Error e) {
+            for (InnerTaskControl taskControl : taskControls) {
+                utilizeTaskControl(taskControl);
+            }
+            throw e;
+        }
+        return taskControls;
+    }
+
+    /**
+     * Utilize task control and exclude it from per-stage counters.
+     *
+     * @param taskControl finished task control
+     */
+    private void releaseTaskControl(InnerTaskControl taskControl) {
+        utilizeTaskControl(taskControl);
+        stageCounts.decrementAndGet(taskControl.getTaskStage().ordinal());
+    }
+
+    /**
+     * Reserve specified number of tasks in counters
+     * or throw exception, if service is terminating.
+     *
+     * @param count number of tasks
+     * @throws DeniedExecutionException if service is terminating or terminated
+     */
+    private void reserveTasks(int count) {
+        unfinishedCount.addAndGet(count);
+        if (terminating || terminated) {
+            unfinishedCount.addAndGet(-count);
+            if (tryTerminate()) {
+                signalAction();
+            }
+            throw new DeniedExecutionException();
+        }
+        stageCounts.addAndGet(PENDING.ordinal(), count);
+    }
+
+    /**
+     * Return reserved tasks, which controls were not created.
+     *
+     * @param count number of tasks
+     */
+    private void unreserveTasks(int count) {
+        stageCounts.addAndGet(PENDING.ordinal(), -count);
+        unfinishedCount.addAndGet(-count);
+    }
+
+    /**
+     * Create runnable, that executes task of specified control
+     * and releases control.
+     *
+     * @param taskControl task control
+     * @return runnable for executor
+     */
+    protected Runnable runner(InnerTaskControl taskControl) {
+        return () -> {
+            if (taskControl.tryUpdateTaskStage(PENDING, RUNNING)) {
+                Task task = taskControl.task;
+                try {
+                    //---------------------
+                    task.execute(taskControl.context);
+                    //---------------------
+                    if ((task instanceof InterruptableTask)
+                            && ((InterruptableTask) task).isInterrupted()) {
+                        taskControl.updateTaskStage(CANCELLED);
+                    } else {
+                        taskControl.updateTaskStage(COMPLETE);
+                    }
+                } catch (Throwable e) {
+                    taskControl.setFailureCause(e);
+                    taskControl.updateTaskStage(FAILED);
+                }
+            }
+            releaseTaskControl(taskControl);
+        };
+    }
+
+    /**
+     * Hand task of specified control to executor. If executor is
+     * {@link ForkJoinPool} and current thread is its worker, task
+     * is forked to local queue of worker.
+     *
+     * @param taskControl registered task control
+     * @throws RejectedExecutionException if executor rejected task
+     */
+    protected void dispatch(InnerTaskControl taskControl) {
+        if (executor instanceof ForkJoinPool && ForkJoinTask.getPool() == executor) {
+            ForkJoinTask.adapt(runner(taskControl)).fork();
+        } else {
+            executor.execute(runner(taskControl));
+        }
+    }
+
+    /**
+     * Add registered task control to pending tasks. Control is visible
+     * by {@link #getTasks()} since registration, so it may leave
+     * {@link TaskStage#PENDING} stage before it is added; such control
+     * is removed again.
+     *
+     * @param taskControl registered task control
+     */
+    private void addPendingTask(InnerTaskControl taskControl) {
+        pendingTasks.add(taskControl);
+        if (taskControl.getTaskStage() != PENDING) {
+            pendingTasks.remove(taskControl);
+        }
+    }
 
     /**
-     * Check all tasks are complete? failed or cancelled.
+     * Hand registered task controls to executor one by one.
+     * If executor rejects task, this and following tasks are cancelled
+     * and exception is thrown.
      *
-     * @return {@code true}, if all tasks finished or {@code false}
+     * @param taskControls registered task controls
+     * @throws RejectedExecutionException if executor rejected task
      */
-    protected abstract boolean checkAllTasksFinished();
+    private void dispatchAll(List<InnerTaskControl> taskControls) {
+        int count = taskControls.size();
+        int handed = 0;
+        try {
+            for (; handed < count; handed++) {
+                dispatch(taskControls.get(handed));
+            }
+        } finally {
+            for (int i = handed; i < count; i++) {
+                rejectTaskControl(taskControls.get(i));
+            }
+        }
+    }
 
+    /**
+     * Cancel task, that was not handed to executor, and release its control.
+     *
+     * @param taskControl task control
+     */
+    private void rejectTaskControl(InnerTaskControl taskControl) {
+        taskControl.tryUpdateTaskStage(PENDING, CANCELLED);
+        releaseTaskControl(taskControl);
+    }
+
+    /**
+     * Submission, start and completion of task do not take service lock:
+     * tasks are counted by atomic counters and registered by
+     * {@link #createTaskControl(Task, Context)}, that must be thread-safe.
+     * Lock is taken only to signal waiters of actions or termination.
+     */
     @Override
     public TaskControl execute(Task task, Context context) {
+        reserveTasks(1);
         InnerTaskControl taskControl;
-        lock.lock();
         try {
-            if (terminating || terminated) {
-                throw new DeniedExecutionException();
-            }
             taskControl = createTaskControl(task, context);
-            statePoint = new Object();
-            condition.signalAll();
-        } finally {
-            lock.unlock();
+        } catch (RuntimeException | Error e) {
+            unreserveTasks(1);
+            throw e;
         }
+        addPendingTask(taskControl);
+        signalAction();
         boolean error = true;
         try {
-            executor.execute(() -> {
-                boolean started = taskControl.tryUpdateTaskStage(PENDING, RUNNING);
-                if (started) {
-                    lock.lock();
-                    try {
-                        statePoint = new Object();
-                        condition.signalAll();
-                    } finally {
-                        lock.unlock();
-                    }
-                    try {
-                        //---------------------
-                        task.execute(context);
-                        //---------------------
-                        if ((task instanceof InterruptableTask)
-                                && ((InterruptableTask) task).isInterrupted()) {
-                            taskControl.updateTaskStage(CANCELLED);
-                        } else {
-                            taskControl.updateTaskStage(COMPLETE);
-                        }
-                    } catch (Throwable e) {
-                        taskControl.setFailureCause(e);
-                        taskControl.updateTaskStage(FAILED);
-                    }
-                }
-                lock.lock();
-                try {
-                    if (terminating) {
-                        terminated = checkAllTasksFinished();
-                        terminating = !terminated;
-                    }
-                    if (started || terminated) {
-                        statePoint = new Object();
-                        condition.signalAll();
-                    }
-                    utilizeTaskControl(taskControl);
-                } finally {
-                    lock.unlock();
-                }
-            });
+            dispatch(taskControl);
             error = false;
         } finally {
             if (error) {
-                lock.lock();
-                try {
-                    utilizeTaskControl(taskControl);
-                } finally {
-                    lock.unlock();
-                }
+                rejectTaskControl(taskControl);
             }
         }
         return new TaskControlShell(taskControl);
     }
 
+    /**
+     * Batch is counted, registered by {@link #createTaskControls(List, List)}
+     * and signalled as single action. If executor is {@link ForkJoinPool},
+     * batch is handed to it as single task, that forks tasks to local
+     * queue of worker; otherwise tasks are handed one by one.
+     * If executor rejects task, this and following tasks are cancelled
+     * and exception is thrown; if forking of batch fails inside pool,
+     * tasks are cancelled the same way.
+     */
+    @Override
+    public List<TaskControl> executeAll(Collection<? extends Task> tasks, Function<Task, Context> contexts) {
+        Objects.requireNonNull(contexts);
+        List<Task> taskList = new ArrayList<>(tasks);
+        List<Context> contextList = new ArrayList<>(taskList.size());
+        for (Task task : taskList) {
+            contextList.add(contexts.apply(Objects.requireNonNull(task)));
+        }
+        int count = taskList.size();
+        reserveTasks(count);
+        List<InnerTaskControl> taskControls;
+        try {
+            taskControls = createTaskControls(taskList, contextList);
+        } catch (RuntimeException | Error e) {
+            unreserveTasks(count);
+            throw e;
+        }
+        for (InnerTaskControl taskControl : taskControls) {
+            addPendingTask(taskControl);
+        }
+        signalAction();
+        if (executor instanceof ForkJoinPool && count > 1) {
+            try {
+                ((ForkJoinPool) executor).execute(ForkJoinTask.adapt(() -> dispatchAll(taskControls)));
+            } catch (RuntimeException | Error e) {
+                for (InnerTaskControl taskControl : taskControls) {
+                    rejectTaskControl(taskControl);
+                }
+                throw e;
+            }
+        } else {
+            dispatchAll(taskControls);
+        }
+        List<TaskControl> result = new ArrayList<>(count);
+        for (InnerTaskControl taskControl : taskControls) {
+            result.add(new TaskControlShell(taskControl));
+        }
+        return result;
+    }
+
     @Override
     public void shutdown() {
         lock.lock();
         try {
-            terminating = true;
-            terminated = checkAllTasksFinished();
-            terminating = !terminated;
-            statePoint = new Object();
-            condition.signalAll();
+            if (!terminated) {
+                terminating = true;
+            }
+            tryTerminate();
         } finally {
             lock.unlock();
         }
+        signalAction();
         if (tryShutdownExecutor
                 && (executor instanceof ExecutorService)) {
             ((ExecutorService) executor).shutdown();
@@ -171,15 +339,15 @@ public abstract class ExecutorProxyTaskExecutorService extends AbstractTaskExecu
     public void shutdownNow() {
         lock.lock();
         try {
-            terminating = true;
+            if (!terminated) {
+                terminating = true;
+            }
             cancelAllPendingTasks();
-            terminated = checkAllTasksFinished();
-            terminating = !terminated;
-            statePoint = new Object();
-            condition.signalAll();
+            tryTerminate();
         } finally {
             lock.unlock();
         }
+        signalAction();
         if (tryShutdownExecutor
                 && (executor instanceof ExecutorService)) {
             ((ExecutorService) executor).shutdownNow();
@@ -0,0 +1,159 @@
+package org.nolab.util.taskexe.impl.executors;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.taskexe.*;
+import org.nolab.util.taskexe.exceptions.UselessWaitingException;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
+/**
+ * A {@link SeparatedTasksExecutorService}, that executes tasks
+ * in {@link ForkJoinPool} with work stealing.
+ * <p>Task, submitted from inside of running task, is forked to local
+ * queue of worker thread, other tasks are submitted to pool.
+ * Waiting for next stage of task in worker thread of pool is managed
+ * by {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)},
+ * so pool may compensate blocked worker; if pending task is on top
+ * of local queue of waiting worker, it is executed by this worker
+ * instead of waiting.
+ */
+public class ForkJoinTaskExecutorService extends SeparatedTasksExecutorService {
+
+    /**
+     * An {@link InnerTaskControl}, that keeps forked task
+     * and waits in worker thread as managed blocker.
+     */
+    protected class ForkJoinTaskControl extends InnerTaskControl {
+
+        private volatile ForkJoinTask<?> forkJoinTask;
+
+        /**
+         * Call to super.
+         */
+        public ForkJoinTaskControl(Task task, Context context, TaskExecutor executor) {
+            super(task, context, executor);
+        }
+
+        @Override
+        public TaskStage awaitNextStage(TaskStage startStage)
+                throws UselessWaitingException, InterruptedException {
+            if (!startStage.hasAfter() || ForkJoinTask.getPool() != pool) {
+                return super.awaitNextStage(startStage);
+            }
+            ForkJoinTask<?> forkJoinTask = this.forkJoinTask;
+            if (getTaskStage() == PENDING && forkJoinTask != null && forkJoinTask.tryUnfork()) {
+                forkJoinTask.invoke();
+            }
+            StageBlocker blocker = new StageBlocker(startStage, false, 0L);
+            ForkJoinPool.managedBlock(blocker);
+            return blocker.stage;
+        }
+
+        @Override
+        public TaskStage awaitNextStage(TaskStage startStage, long timeout, TimeUnit unit)
+                throws UselessWaitingException, InterruptedException {
+            if (!startStage.hasAfter() || timeout < 0 || ForkJoinTask.getPool() != pool) {
+                return super.awaitNextStage(startStage, timeout, unit);
+            }
+            StageBlocker blocker = new StageBlocker(startStage, true, unit.toNanos(timeout));
+            ForkJoinPool.managedBlock(blocker);
+            return blocker.stage;
+        }
+
+        /**
+         * Blocker, that awaits stage after start stage.
+         */
+        private final class StageBlocker implements ForkJoinPool.ManagedBlocker {
+
+            private final TaskStage startStage;
+            private final boolean timed;
+            private final long deadline;
+            private TaskStage stage;
+
+            StageBlocker(TaskStage startStage, boolean timed, long nanos) {
+                this.startStage = startStage;
+                this.timed = timed;
+                this.deadline = timed ? System.nanoTime() + nanos : 0L;
+            }
+
+            @Override
+            public boolean block() throws InterruptedException {
+                stage = awaitAfter(startStage, timed, timed ? deadline - System.nanoTime() : 0L);
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                stage = getTaskStage();
+                return stage.isAfter(startStage) || (timed && deadline - System.nanoTime() <= 0);
+            }
+        }
+    }
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Create task executor service with specified pool.
+     * If {@code tryShutdownPool} flag is {@code true},
+     * pool is shut down with this service.
+     *
+     * @param pool pool to execute tasks
+     * @param tryShutdownPool shutdown pool flag
+     * @throws NullPointerException if specified pool is {@code null}
+     */
+    public ForkJoinTaskExecutorService(ForkJoinPool pool, boolean tryShutdownPool) {
+        super(pool, tryShutdownPool);
+        this.pool = pool;
+    }
+
+    /**
+     * Create task executor service with specified pool,
+     * that is not shut down with this service.
+     *
+     * @param pool pool to execute tasks
+     * @throws NullPointerException if specified pool is {@code null}
+     */
+    public ForkJoinTaskExecutorService(ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    /**
+     * Create task executor service with own pool
+     * with specified parallelism level.
+     *
+     * @param parallelism parallelism level of pool
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public ForkJoinTaskExecutorService(int parallelism) {
+        this(new ForkJoinPool(parallelism), true);
+    }
+
+    /**
+     * Get pool, that executes tasks.
+     *
+     * @return pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    @Override
+    protected InnerTaskControl newTaskControl(Task task, Context context) {
+        return new ForkJoinTaskControl(task, context, this);
+    }
+
+    @Override
+    protected void dispatch(InnerTaskControl taskControl) {
+        ForkJoinTask<?> forkJoinTask = ForkJoinTask.adapt(runner(taskControl));
+        ((ForkJoinTaskControl) taskControl).forkJoinTask = forkJoinTask;
+        if (ForkJoinTask.getPool() == pool) {
+            forkJoinTask.fork();
+        } else {
+            pool.execute(forkJoinTask);
+        }
+    }
+}
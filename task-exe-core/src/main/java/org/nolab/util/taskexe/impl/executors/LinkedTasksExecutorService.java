@@ -3,14 +3,17 @@ package org.nolab.util.taskexe.impl.executors;
 import org.nolab.util.context.Context;
 import org.nolab.util.taskexe.*;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 
-import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
 
 /**
  * A {@link ExecutorProxyTaskExecutorService} with linked task controls
  * iterator returned by {@link #getTasks()}.
  * Task controls are iterated in order, they were submitted.
+ * Chain of task controls is modified under its own short monitor,
+ * iteration does not lock.
  */
 public class LinkedTasksExecutorService extends ExecutorProxyTaskExecutorService {
 
@@ -35,46 +38,63 @@ public class LinkedTasksExecutorService extends ExecutorProxyTaskExecutorService
     @Override
     protected InnerTaskControl createTaskControl(Task task, Context context) {
         TaskControlNode node = new TaskControlNode(task, context, this);
-        if (++taskCount < 0) {
-            taskCount--;
-            throw new Error("Task count overflow");
+        synchronized (head) {
+            if (++taskCount < 0) {
+                taskCount--;
+                throw new Error("Task count overflow");
+            }
+            tail.next = node;
+            node.prev = tail;
+            tail = node;
         }
-        tail.next = node;
-        node.prev = tail;
-        tail = node;
         return node;
     }
 
+    /**
+     * Nodes are chained before locking, whole chain is linked
+     * under single monitor acquisition.
+     */
     @Override
-    protected void utilizeTaskControl(InnerTaskControl taskControl) {
-        TaskControlNode node = (TaskControlNode) taskControl;
-        if (node == tail) {
-            tail = node.prev;
+    protected List<InnerTaskControl> createTaskControls(List<Task> tasks, List<Context> contexts) {
+        List<InnerTaskControl> nodes = new ArrayList<>(tasks.size());
+        if (tasks.isEmpty()) {
+            return nodes;
         }
-        node.remove();
-        taskCount--;
-    }
-
-    @Override
-    protected void cancelAllPendingTasks() {
-        TaskControlNode node = head.next;
-        while (node != null) {
-            node.tryUpdateTaskStage(PENDING, CANCELLED);
-            node = node.next;
+        TaskControlNode first = null;
+        TaskControlNode last = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            TaskControlNode node = new TaskControlNode(tasks.get(i), contexts.get(i), this);
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+                node.prev = last;
+            }
+            last = node;
+            nodes.add(node);
         }
+        synchronized (head) {
+            if (taskCount + nodes.size() < 0) {
+                throw new Error("Task count overflow");
+            }
+            taskCount += nodes.size();
+            tail.next = first;
+            first.prev = tail;
+            tail = last;
+        }
+        return nodes;
     }
 
     @Override
-    protected boolean checkAllTasksFinished() {
-        TaskControlNode node = head.next;
-        while (node != null) {
-            TaskControl.TaskStage taskStage = node.getTaskStage();
-            if (taskStage != COMPLETE && taskStage != CANCELLED) {
-                return false;
+    protected void utilizeTaskControl(InnerTaskControl taskControl) {
+        TaskControlNode node = (TaskControlNode) taskControl;
+        synchronized (head) {
+            if (node == tail) {
+                tail = node.prev;
             }
-            node = node.next;
+            node.remove();
+            taskCount--;
         }
-        return true;
     }
 
     @Override
@@ -86,4 +106,12 @@ public class LinkedTasksExecutorService extends ExecutorProxyTaskExecutorService
     public Tasks getTasks() {
         return new LinkedTasks(head);
     }
+
+    @Override
+    public Tasks getTasks(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+        return new LinkedTasks(head, limit);
+    }
 }
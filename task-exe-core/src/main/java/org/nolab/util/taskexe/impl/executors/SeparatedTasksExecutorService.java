@@ -5,17 +5,19 @@ import org.nolab.util.taskexe.*;
 import org.nolab.util.taskexe.impl.executors.shells.TaskControlShell;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
-import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
 
 /**
  * A {@link ExecutorProxyTaskExecutorService} with separated task controls
  * iterator returned by {@link #getTasks()}.
+ * Task controls are registered in concurrent set,
+ * neither registration nor copying for iteration lock.
  */
 public class SeparatedTasksExecutorService extends ExecutorProxyTaskExecutorService {
 
-    private Set<InnerTaskControl> taskControls = new HashSet<>();
+    private final Set<InnerTaskControl> taskControls = ConcurrentHashMap.newKeySet();
 
     /**
      * Call to super.
@@ -31,9 +33,20 @@ public class SeparatedTasksExecutorService extends ExecutorProxyTaskExecutorServ
         super(executor);
     }
 
+    /**
+     * Create new task control, that is not registered yet.
+     *
+     * @param task task to execute
+     * @param context context for execution
+     * @return new task control
+     */
+    protected InnerTaskControl newTaskControl(Task task, Context context) {
+        return new InnerTaskControl(task, context, this);
+    }
+
     @Override
     protected InnerTaskControl createTaskControl(Task task, Context context) {
-        InnerTaskControl taskControl = new InnerTaskControl(task, context, this);
+        InnerTaskControl taskControl = newTaskControl(task, context);
         taskControls.add(taskControl);
         return taskControl;
     }
@@ -43,40 +56,30 @@ public class SeparatedTasksExecutorService extends ExecutorProxyTaskExecutorServ
         taskControls.remove(taskControl);
     }
 
-    @Override
-    protected void cancelAllPendingTasks() {
-        for (InnerTaskControl taskControl : taskControls) {
-            taskControl.tryUpdateTaskStage(PENDING, CANCELLED);
-        }
-    }
-
-    @Override
-    protected boolean checkAllTasksFinished() {
-        for (InnerTaskControl taskControl : taskControls) {
-            TaskControl.TaskStage taskStage = taskControl.getTaskStage();
-            if (taskStage != COMPLETE && taskStage != CANCELLED) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     @Override
     public int getTaskCount() {
         return taskControls.size();
     }
 
+    /**
+     * Tasks are copied without locking. Copy is weakly consistent:
+     * tasks, submitted or finished while copying, may be missed or included.
+     */
     @Override
     public Tasks getTasks() {
-        lock.lock();
-        try {
-            SeparatedTasks tasks = new SeparatedTasks(taskControls.size());
-            for (InnerTaskControl taskControl : taskControls) {
-                tasks.add(new TaskControlShell(taskControl));
-            }
-            return tasks;
-        } finally {
-            lock.unlock();
+        return getTasks(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public Tasks getTasks(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Invalid limit: " + limit);
+        }
+        SeparatedTasks tasks = new SeparatedTasks(Math.min(limit, taskControls.size()));
+        Iterator<InnerTaskControl> iterator = taskControls.iterator();
+        for (int i = 0; i < limit && iterator.hasNext(); i++) {
+            tasks.add(new TaskControlShell(iterator.next()));
         }
+        return tasks;
     }
 }
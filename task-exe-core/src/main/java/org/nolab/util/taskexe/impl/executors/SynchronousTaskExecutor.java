@@ -5,6 +5,8 @@ import org.nolab.util.taskexe.*;
 import org.nolab.util.taskexe.exceptions.UselessWaitingException;
 
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
 
@@ -19,6 +21,16 @@ public class SynchronousTaskExecutor implements TaskExecutor {
      */
     private static class PojoTaskControl implements TaskControl {
 
+        /**
+         * Registration of action, that is already called.
+         */
+        private static final Registration CALLED = () -> false;
+
+        /**
+         * Registration of action, that is never called.
+         */
+        private static final Registration NEVER_CALLED = () -> true;
+
         private final Task task;
         private final Context context;
         private final TaskExecutor executor;
@@ -79,6 +91,33 @@ public class SynchronousTaskExecutor implements TaskExecutor {
         public void cancelTask() {
             //do nothing
         }
+
+        @Override
+        public Registration onStage(TaskStage stage, Consumer<? super TaskControl> action, Executor executor) {
+            Objects.requireNonNull(stage);
+            Objects.requireNonNull(action);
+            Objects.requireNonNull(executor);
+            if (stage == finalStage || finalStage.isAfter(stage)) {
+                return fire(action, executor);
+            }
+            return NEVER_CALLED;
+        }
+
+        @Override
+        public Registration whenFinished(Consumer<? super TaskControl> action, Executor executor) {
+            Objects.requireNonNull(action);
+            return fire(action, executor);
+        }
+
+        private Registration fire(Consumer<? super TaskControl> action, Executor executor) {
+            Objects.requireNonNull(executor);
+            try {
+                executor.execute(() -> action.accept(this));
+            } catch (RuntimeException e) {
+                //ignore
+            }
+            return CALLED;
+        }
     }
 
     @Override
@@ -0,0 +1,124 @@
+package org.nolab.util.taskexe.impl.executors;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.taskexe.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A {@link TaskExecutor}, that delegates execution to another executor
+ * and delivers controls of finished tasks to queue in order of finishing.
+ * Control is delivered, when task reaches any final stage,
+ * by {@link TaskControl#whenFinished(java.util.function.Consumer)}
+ * callback, so no thread waits for separate task.
+ * <p>If queue is bounded, thread, that finishes task, waits for free
+ * space in queue, so consumer of queue limits progress of tasks;
+ * thread, that submits task, which is already finished, waits too.
+ * Thread-safe if queue is thread-safe.
+ */
+public class TaskCompletionService implements TaskExecutor {
+
+    private final TaskExecutor executor;
+    private final BlockingQueue<TaskControl> completionQueue;
+
+    /**
+     * Create completion service with specified executor and queue.
+     *
+     * @param executor executor to delegate execution
+     * @param completionQueue queue of finished tasks
+     * @throws NullPointerException if any argument is {@code null}
+     */
+    public TaskCompletionService(TaskExecutor executor, BlockingQueue<TaskControl> completionQueue) {
+        this.executor = Objects.requireNonNull(executor);
+        this.completionQueue = Objects.requireNonNull(completionQueue);
+    }
+
+    /**
+     * Create completion service with specified executor
+     * and unbounded queue.
+     *
+     * @param executor executor to delegate execution
+     * @throws NullPointerException if specified executor is {@code null}
+     */
+    public TaskCompletionService(TaskExecutor executor) {
+        this(executor, new LinkedBlockingQueue<>());
+    }
+
+    @Override
+    public TaskControl execute(Task task, Context context) {
+        TaskControl taskControl = executor.execute(task, context);
+        taskControl.whenFinished(this::deliver);
+        return taskControl;
+    }
+
+    @Override
+    public List<TaskControl> executeAll(Collection<? extends Task> tasks, Function<Task, Context> contexts) {
+        List<TaskControl> taskControls = executor.executeAll(tasks, contexts);
+        for (TaskControl taskControl : taskControls) {
+            taskControl.whenFinished(this::deliver);
+        }
+        return taskControls;
+    }
+
+    /**
+     * Put control of finished task into queue, waiting for free space
+     * of bounded queue. Waiting is not interrupted; interrupt status
+     * of current thread is kept.
+     *
+     * @param taskControl control of finished task
+     */
+    private void deliver(TaskControl taskControl) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                completionQueue.put(taskControl);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Retrieve and remove control of the next finished task,
+     * waiting if none are present yet.
+     *
+     * @return control of finished task
+     * @throws InterruptedException if current thread interrupted
+     */
+    public TaskControl take() throws InterruptedException {
+        return completionQueue.take();
+    }
+
+    /**
+     * Retrieve and remove control of the next finished task
+     * or return {@code null} if none are present.
+     *
+     * @return control of finished task or {@code null}
+     */
+    public TaskControl poll() {
+        return completionQueue.poll();
+    }
+
+    /**
+     * Retrieve and remove control of the next finished task,
+     * waiting for specified timeout if none are present yet.
+     *
+     * @param timeout timeout to wait
+     * @param unit time unit of timeout
+     * @return control of finished task or {@code null} if timeout elapsed
+     * @throws InterruptedException if current thread interrupted
+     */
+    public TaskControl poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return completionQueue.poll(timeout, unit);
+    }
+}
@@ -4,24 +4,110 @@ import org.nolab.util.context.Context;
 import org.nolab.util.taskexe.*;
 import org.nolab.util.taskexe.exceptions.UselessWaitingException;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
 
 import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
 
 /**
  * Base implementation of {@link TaskControl}.
+ * <p>Task stage is updated by atomic compare-and-set. Threads, waiting
+ * for next stage, are pushed to lock-free stack and parked; stage update
+ * unparks them only if stack is not empty, so update without waiters
+ * costs single atomic operation. Stage callbacks are kept in the same
+ * stack and are fired by stage update instead of unparking.
  */
 public class TaskControlImpl implements TaskControl {
 
-    protected final Lock lock = new ReentrantLock(true);
-    protected final Condition condition = lock.newCondition();
+    /**
+     * Node of waiters stack. Node with {@code null} thread is abandoned.
+     */
+    private static class WaitNode {
+
+        volatile Thread thread = Thread.currentThread();
+        volatile WaitNode next;
+    }
+
+    /**
+     * Node of stage callback. Callback is fired once, when
+     * node is settled by stage: either stage is expected or
+     * it is final and no more stages are possible.
+     */
+    private final class CallbackNode extends WaitNode implements Registration {
+
+        /**
+         * Expected stage or {@code null} for any final stage.
+         */
+        private final TaskStage stage;
+        private final Consumer<? super TaskControl> action;
+        private final Executor executor;
+        private final AtomicBoolean fired = new AtomicBoolean();
+
+        CallbackNode(TaskStage stage, Consumer<? super TaskControl> action, Executor executor) {
+            this.stage = stage;
+            this.action = Objects.requireNonNull(action);
+            this.executor = Objects.requireNonNull(executor);
+        }
+
+        private boolean isExpected(TaskStage actual) {
+            return stage == null ? !actual.hasAfter() : actual == stage || actual.isAfter(stage);
+        }
+
+        boolean isSettled(TaskStage actual) {
+            return !actual.hasAfter() || isExpected(actual);
+        }
+
+        /**
+         * Fire callback, if it is settled by specified stage
+         * and was not fired before. Fired node is abandoned.
+         *
+         * @param actual actual stage
+         * @return {@code true} if node was fired by this call
+         */
+        boolean tryFire(TaskStage actual) {
+            if (!isSettled(actual) || !fired.compareAndSet(false, true)) {
+                return false;
+            }
+            thread = null;
+            if (isExpected(actual)) {
+                try {
+                    executor.execute(() -> action.accept(TaskControlImpl.this));
+                } catch (RuntimeException e) {
+                    //ignore
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Abandon node, if it was not fired, and unlink it from stack.
+         */
+        @Override
+        public boolean cancel() {
+            if (!fired.compareAndSet(false, true)) {
+                return false;
+            }
+            removeWaiter(this);
+            return true;
+        }
+    }
+
+    private static final AtomicReferenceFieldUpdater<TaskControlImpl, TaskStage> STAGE =
+            AtomicReferenceFieldUpdater.newUpdater(TaskControlImpl.class, TaskStage.class, "taskStage");
+    private static final AtomicReferenceFieldUpdater<TaskControlImpl, WaitNode> WAITERS =
+            AtomicReferenceFieldUpdater.newUpdater(TaskControlImpl.class, WaitNode.class, "waiters");
 
     protected final Task task;
     protected final Context context;
     protected final TaskExecutor executor;
 
-    protected volatile TaskStage taskStage;
+    private volatile TaskStage taskStage;
+    private volatile WaitNode waiters;
     protected volatile Throwable failureCause;
 
     /**
@@ -51,13 +137,9 @@ public class TaskControlImpl implements TaskControl {
      * @param newStage new task stage
      */
     public void updateTaskStage(TaskStage newStage) {
-        lock.lock();
-        try {
-            this.taskStage = newStage;
-            condition.signalAll();
-        } finally {
-            lock.unlock();
-        }
+        TaskStage oldStage = STAGE.getAndSet(this, newStage);
+        stageChanged(oldStage, newStage);
+        signalWaiters(newStage);
     }
 
     /**
@@ -70,17 +152,137 @@ public class TaskControlImpl implements TaskControl {
      * @return {@code true} if current stage is expected, or {@code false} otherwise
      */
     public boolean tryUpdateTaskStage(TaskStage expectedStage, TaskStage newStage) {
-        lock.lock();
-        try {
-            if (taskStage == expectedStage) {
-                taskStage = newStage;
-                condition.signalAll();
-                return true;
+        if (!STAGE.compareAndSet(this, expectedStage, newStage)) {
+            return false;
+        }
+        stageChanged(expectedStage, newStage);
+        signalWaiters(newStage);
+        return true;
+    }
+
+    /**
+     * Called after every stage update, before waiters are signalled,
+     * so woken waiters observe its effects. Does nothing by default.
+     *
+     * @param oldStage previous task stage
+     * @param newStage new task stage
+     */
+    protected void stageChanged(TaskStage oldStage, TaskStage newStage) {
+    }
+
+    /**
+     * Unpark all waiters. Stack is detached, if new stage is final,
+     * otherwise waiters remove themselves, when they are satisfied.
+     *
+     * @param newStage new task stage
+     */
+    private void signalWaiters(TaskStage newStage) {
+        WaitNode node = waiters;
+        if (node == null) {
+            return;
+        }
+        boolean detached = !newStage.hasAfter();
+        if (detached) {
+            node = WAITERS.getAndSet(this, null);
+        }
+        boolean fired = false;
+        for (; node != null; node = node.next) {
+            if (node instanceof CallbackNode) {
+                fired |= ((CallbackNode) node).tryFire(newStage);
+                continue;
+            }
+            Thread thread = node.thread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        if (fired && !detached) {
+            removeAbandoned();
+        }
+    }
+
+    /**
+     * Await stage, following after specified stage.
+     * Specified stage is not checked to have next stages.
+     *
+     * @param startStage start stage
+     * @param timed {@code true} if waiting is limited by timeout
+     * @param nanos timeout in nanoseconds
+     * @return actual stage
+     * @throws InterruptedException if current thread interrupted
+     */
+    protected final TaskStage awaitAfter(TaskStage startStage, boolean timed, long nanos)
+            throws InterruptedException {
+        long deadline = timed ? System.nanoTime() + nanos : 0L;
+        WaitNode node = null;
+        boolean queued = false;
+        while (true) {
+            TaskStage stage = taskStage;
+            if (stage.isAfter(startStage)) {
+                if (queued) {
+                    removeWaiter(node);
+                }
+                return stage;
+            }
+            if (timed && nanos <= 0) {
+                if (queued) {
+                    removeWaiter(node);
+                }
+                return stage;
+            }
+            if (Thread.interrupted()) {
+                if (queued) {
+                    removeWaiter(node);
+                }
+                throw new InterruptedException();
+            }
+            if (node == null) {
+                node = new WaitNode();
+            } else if (!queued) {
+                WaitNode head = waiters;
+                node.next = head;
+                queued = WAITERS.compareAndSet(this, head, node);
+            } else if (timed) {
+                LockSupport.parkNanos(this, nanos);
+                nanos = deadline - System.nanoTime();
             } else {
-                return false;
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * Unlink node from waiters stack together with other
+     * abandoned nodes.
+     *
+     * @param node node of current thread
+     */
+    private void removeWaiter(WaitNode node) {
+        node.thread = null;
+        removeAbandoned();
+    }
+
+    /**
+     * Unlink all abandoned nodes from waiters stack.
+     */
+    private void removeAbandoned() {
+        retry:
+        while (true) {
+            WaitNode pred = null;
+            for (WaitNode q = waiters, s; q != null; q = s) {
+                s = q.next;
+                if (q.thread != null) {
+                    pred = q;
+                } else if (pred != null) {
+                    pred.next = s;
+                    if (pred.thread == null) {
+                        continue retry;
+                    }
+                } else if (!WAITERS.compareAndSet(this, q, s)) {
+                    continue retry;
+                }
             }
-        } finally {
-            lock.unlock();
+            return;
         }
     }
 
@@ -122,15 +324,7 @@ public class TaskControlImpl implements TaskControl {
     public TaskStage awaitNextStage(TaskStage startStage)
             throws UselessWaitingException, InterruptedException {
         checkStage(startStage);
-        lock.lock();
-        try {
-            while (startStage.isAfter(taskStage) || startStage == taskStage) {
-                condition.await();
-            }
-            return taskStage;
-        } finally {
-            lock.unlock();
-        }
+        return awaitAfter(startStage, false, 0L);
     }
 
     @Override
@@ -146,23 +340,59 @@ public class TaskControlImpl implements TaskControl {
         if (timeout < 0) {
             throw new IllegalArgumentException("Invalid timeout: " + timeout);
         }
-        lock.lock();
-        try {
-            long nanosTimeout = unit.toNanos(timeout);
-            if (nanosTimeout < 0) {
-                nanosTimeout = Long.MAX_VALUE;
+        return awaitAfter(startStage, true, unit.toNanos(timeout));
+    }
+
+    @Override
+    public Registration onStage(TaskStage stage, Consumer<? super TaskControl> action, Executor executor) {
+        return addCallback(new CallbackNode(Objects.requireNonNull(stage), action, executor));
+    }
+
+    @Override
+    public Registration whenFinished(Consumer<? super TaskControl> action, Executor executor) {
+        return addCallback(new CallbackNode(null, action, executor));
+    }
+
+    /**
+     * Push callback node to waiters stack or fire it, if it is
+     * already settled. Stage is checked again after push, since
+     * stage may be updated before stack is signalled.
+     *
+     * @param node callback node
+     * @return node
+     */
+    private CallbackNode addCallback(CallbackNode node) {
+        while (true) {
+            TaskStage stage = taskStage;
+            if (node.isSettled(stage)) {
+                node.tryFire(stage);
+                return node;
             }
-            long nanosStart = System.nanoTime();
-            while (!taskStage.isAfter(startStage)) {
-                if ((nanosTimeout = nanosTimeout - (System.nanoTime() - nanosStart)) <= 0) {
-                    break;
-                }
-                condition.awaitNanos(nanosTimeout);
+            WaitNode head = waiters;
+            node.next = head;
+            if (WAITERS.compareAndSet(this, head, node)) {
+                break;
+            }
+        }
+        if (node.tryFire(taskStage)) {
+            removeAbandoned();
+        }
+        return node;
+    }
+
+    /**
+     * Get number of waiting threads and callbacks, that are not abandoned.
+     *
+     * @return number of waiters
+     */
+    int getWaiterCount() {
+        int count = 0;
+        for (WaitNode node = waiters; node != null; node = node.next) {
+            if (node.thread != null) {
+                count++;
             }
-            return taskStage;
-        } finally {
-            lock.unlock();
         }
+        return count;
     }
 
     @Override
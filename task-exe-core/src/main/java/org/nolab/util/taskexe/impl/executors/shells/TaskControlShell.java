@@ -4,7 +4,10 @@ import org.nolab.util.context.Context;
 import org.nolab.util.taskexe.*;
 import org.nolab.util.taskexe.exceptions.UselessWaitingException;
 
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * A {@link TaskControl} implementation that encapsulates instance
@@ -69,4 +72,22 @@ public class TaskControlShell implements TaskControl {
     public void cancelTask() {
         original.cancelTask();
     }
+
+    /**
+     * Action is called with this shell.
+     */
+    @Override
+    public Registration onStage(TaskStage stage, Consumer<? super TaskControl> action, Executor executor) {
+        Objects.requireNonNull(action);
+        return original.onStage(stage, taskControl -> action.accept(this), executor);
+    }
+
+    /**
+     * Action is called with this shell.
+     */
+    @Override
+    public Registration whenFinished(Consumer<? super TaskControl> action, Executor executor) {
+        Objects.requireNonNull(action);
+        return original.whenFinished(taskControl -> action.accept(this), executor);
+    }
 }
@@ -3,7 +3,11 @@ package org.nolab.util.taskexe.impl.executors.shells;
 import org.nolab.util.context.Context;
 import org.nolab.util.taskexe.*;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * A {@link TaskExecutorService} implementation that encapsulates instance
@@ -27,16 +31,36 @@ public class TaskExecutorServiceShell implements TaskExecutorService {
         return original.execute(task, context);
     }
 
+    @Override
+    public List<TaskControl> executeAll(Collection<? extends Task> tasks, Function<Task, Context> contexts) {
+        return original.executeAll(tasks, contexts);
+    }
+
     @Override
     public int getTaskCount() {
         return original.getTaskCount();
     }
 
+    @Override
+    public int getTaskCount(TaskControl.TaskStage stage) {
+        return original.getTaskCount(stage);
+    }
+
     @Override
     public Tasks getTasks() {
         return original.getTasks();
     }
 
+    @Override
+    public Tasks getTasks(int limit) {
+        return original.getTasks(limit);
+    }
+
+    @Override
+    public CompletableFuture<Void> getTerminationFuture() {
+        return original.getTerminationFuture();
+    }
+
     @Override
     public void shutdown() {
         original.shutdown();
@@ -72,6 +96,26 @@ public class TaskExecutorServiceShell implements TaskExecutorService {
         return original.awaitTermination(timeout, unit);
     }
 
+    @Override
+    public long getActionSequence() {
+        return original.getActionSequence();
+    }
+
+    @Override
+    public long awaitAction(long sequence) throws InterruptedException {
+        return original.awaitAction(sequence);
+    }
+
+    @Override
+    public long awaitAction(long sequence, long timeout) throws InterruptedException {
+        return original.awaitAction(sequence, timeout);
+    }
+
+    @Override
+    public long awaitAction(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+        return original.awaitAction(sequence, timeout, unit);
+    }
+
     @Override
     public Object awaitAction(Object statePoint) throws InterruptedException {
         return original.awaitAction(statePoint);
@@ -1,12 +1,15 @@
 package org.nolab.util.taskexe.impl.tasks;
 
 import org.nolab.util.context.Context;
+import org.nolab.util.taskexe.CancellationToken;
 import org.nolab.util.taskexe.InterruptableTask;
 
 /**
  * Abstract implementation of {@link InterruptableTask} with
  * provided method for checking task interruption.
  * After finishing or interrupting task instance cannot be restarted.
+ * Task may be bound to {@link CancellationToken}: cancellation
+ * of token interrupts task at next checkpoint, as {@link #interrupt()} does.
  *
  *
  * <p>
@@ -34,12 +37,14 @@ public abstract class AbstractInterruptableTask implements InterruptableTask {
     private volatile boolean started = false;
     private volatile boolean orderedToInterrupt = false;
     private volatile boolean interrupted = false;
+    private volatile CancellationToken cancellationToken;
 
     /**
      * Point of checking interruption.
      */
     protected final void checkpoint() {
-        if (orderedToInterrupt) {
+        CancellationToken token = cancellationToken;
+        if (orderedToInterrupt || (token != null && token.isCancelled())) {
             interrupted = true;
             throw new InterruptSignal();
         }
@@ -62,6 +67,24 @@ public abstract class AbstractInterruptableTask implements InterruptableTask {
         }
     }
 
+    /**
+     * Bind task to specified cancellation token.
+     *
+     * @param cancellationToken token or {@code null} to unbind
+     */
+    public final void setCancellationToken(CancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    /**
+     * Get cancellation token, task is bound to.
+     *
+     * @return token or {@code null}
+     */
+    public final CancellationToken getCancellationToken() {
+        return cancellationToken;
+    }
+
     @Override
     public final void interrupt() {
         if (started) {
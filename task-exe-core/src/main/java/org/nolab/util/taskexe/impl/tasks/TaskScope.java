@@ -0,0 +1,316 @@
+package org.nolab.util.taskexe.impl.tasks;
+
+import org.nolab.util.context.Context;
+import org.nolab.util.taskexe.*;
+import org.nolab.util.taskexe.TaskControl.TaskStage;
+import org.nolab.util.taskexe.exceptions.TaskCancelledException;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scope of child tasks, forked to the same {@link TaskExecutor}.
+ * Intended to be used by running task like this:
+ * <p>
+ * {@code
+ *   try (TaskScope scope = new TaskScope(executor)) {
+ *       scope.fork(task1, context1);
+ *       scope.fork(task2, context2);
+ *       scope.joinAll();
+ *       //check scope.getFailureCause()
+ *   }
+ * }
+ * <p>All children share {@link CancellationToken} of scope, so whole
+ * group is cancelled by single write. Child, that is not started before
+ * cancellation, is not executed and finishes as {@link TaskStage#CANCELLED};
+ * running {@link AbstractInterruptableTask} is bound to token and
+ * interrupted at next checkpoint; other running {@link InterruptableTask}
+ * is interrupted by {@link TaskControl#cancelTask()}; other tasks may
+ * check token by {@link #getCancellationToken()}.
+ * <p>Scope is cancelled, when any child fails, when any child completes
+ * and {@link #joinAny()} returns it, or when scope is closed.
+ * Closing waits, until all children finish, so no child outlives scope.
+ * <p>Joining does not wait for every child separately: children report
+ * their finish by {@link TaskControl#whenFinished(java.util.function.Consumer)}
+ * to shared counter of scope.
+ * <p>Forked task is wrapped, so {@link TaskControl#getTask()}
+ * of returned control returns wrapper.
+ * Thread-safe.
+ */
+public class TaskScope implements AutoCloseable {
+
+    /**
+     * Wrapper of child task, that checks cancellation token
+     * and reports failure to scope.
+     */
+    private class ScopedTask implements InterruptableTask {
+
+        private final Task task;
+        private volatile boolean interrupted = false;
+
+        ScopedTask(Task task) {
+            this.task = task;
+        }
+
+        @Override
+        public void execute(Context context) throws Throwable {
+            if (token.isCancelled()) {
+                interrupted = true;
+                return;
+            }
+            if (task instanceof AbstractInterruptableTask) {
+                ((AbstractInterruptableTask) task).setCancellationToken(token);
+            }
+            try {
+                task.execute(context);
+            } catch (TaskCancelledException e) {
+                if (token.isCancelled()) {
+                    interrupted = true;
+                    return;
+                }
+                failed(e);
+                throw e;
+            } catch (Throwable e) {
+                failed(e);
+                throw e;
+            }
+            if ((task instanceof InterruptableTask)
+                    && ((InterruptableTask) task).isInterrupted()) {
+                interrupted = true;
+            }
+        }
+
+        @Override
+        public void interrupt() {
+            if (task instanceof InterruptableTask) {
+                ((InterruptableTask) task).interrupt();
+            }
+        }
+
+        @Override
+        public boolean isInterrupted() {
+            return interrupted;
+        }
+
+        /**
+         * Return {@code true} if running task must be interrupted
+         * separately, because it does not observe token.
+         */
+        boolean needsInterrupt() {
+            return (task instanceof InterruptableTask)
+                    && !(task instanceof AbstractInterruptableTask);
+        }
+    }
+
+    private final TaskExecutor executor;
+    private final CancellationToken token;
+    private final Queue<TaskControl> children = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger unfinishedCount = new AtomicInteger();
+    private final AtomicReference<Throwable> failureCause = new AtomicReference<>();
+    private final AtomicReference<TaskControl> winner = new AtomicReference<>();
+    private final Lock lock = new ReentrantLock();
+    private final Condition settled = lock.newCondition();
+    private volatile boolean closed = false;
+
+    /**
+     * Create scope, forking children to specified executor.
+     *
+     * @param executor executor for children
+     * @throws NullPointerException if specified executor is {@code null}
+     */
+    public TaskScope(TaskExecutor executor) {
+        this(executor, null);
+    }
+
+    /**
+     * Create scope, forking children to specified executor,
+     * which token is cancelled with specified parent token.
+     *
+     * @param executor executor for children
+     * @param parent parent token or {@code null}
+     * @throws NullPointerException if specified executor is {@code null}
+     */
+    public TaskScope(TaskExecutor executor, CancellationToken parent) {
+        this.executor = Objects.requireNonNull(executor);
+        this.token = new CancellationToken(parent);
+    }
+
+    /**
+     * Get cancellation token of scope.
+     *
+     * @return token
+     */
+    public CancellationToken getCancellationToken() {
+        return token;
+    }
+
+    /**
+     * Fork child task with specified context.
+     *
+     * @param task child task
+     * @param context context for child task
+     * @return control over child task
+     * @throws NullPointerException if specified task is {@code null}
+     * @throws IllegalStateException if scope is closed
+     * @throws TaskCancelledException if scope is cancelled
+     */
+    public TaskControl fork(Task task, Context context) {
+        Objects.requireNonNull(task);
+        if (closed) {
+            throw new IllegalStateException("Scope is closed");
+        }
+        token.throwIfCancelled();
+        unfinishedCount.incrementAndGet();
+        TaskControl control;
+        try {
+            control = executor.execute(new ScopedTask(task), context);
+        } catch (RuntimeException | Error e) {
+            unfinishedCount.decrementAndGet();
+            throw e;
+        }
+        children.add(control);
+        control.whenFinished(this::settled);
+        return control;
+    }
+
+    /**
+     * Await, until all forked children finish.
+     *
+     * @throws InterruptedException if current thread interrupted
+     */
+    public void joinAll() throws InterruptedException {
+        if (unfinishedCount.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (unfinishedCount.get() > 0) {
+                settled.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Await, until any forked child completes normally or all children
+     * finish. Completion of child cancels scope, so other children
+     * are cancelled.
+     *
+     * @return control over the first completed child
+     *         or {@code null} if no child completed
+     * @throws InterruptedException if current thread interrupted
+     */
+    public TaskControl joinAny() throws InterruptedException {
+        lock.lock();
+        try {
+            TaskControl first;
+            while ((first = winner.get()) == null && unfinishedCount.get() > 0) {
+                settled.await();
+            }
+            if (first != null) {
+                cancelChildren();
+            }
+            return first;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cancel scope: not started children will not be executed,
+     * running children are interrupted, if they support it.
+     */
+    public void cancel() {
+        token.cancel();
+        for (TaskControl child : children) {
+            child.cancelTask();
+        }
+    }
+
+    /**
+     * Return {@code true} if scope is cancelled.
+     *
+     * @return {@code true} if cancelled or {@code false} otherwise
+     */
+    public boolean isCancelled() {
+        return token.isCancelled();
+    }
+
+    /**
+     * Get cause of the first failure of child.
+     *
+     * @return cause of failure or {@code null} if no child failed
+     */
+    public Throwable getFailureCause() {
+        return failureCause.get();
+    }
+
+    /**
+     * Cancel scope and await, until all children finish.
+     * Children can not be forked after closing.
+     * Waiting is not interrupted; if current thread is interrupted,
+     * its interrupt status is kept. Use {@link #joinAll()}
+     * for interruptible waiting.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        cancel();
+        if (unfinishedCount.get() == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (unfinishedCount.get() > 0) {
+                settled.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failed(Throwable cause) {
+        failureCause.compareAndSet(null, cause);
+        cancelChildren();
+    }
+
+    /**
+     * Cancel token and interrupt running children, that do not observe it.
+     * Pending and token-bound children react to token itself,
+     * so they are skipped.
+     */
+    private void cancelChildren() {
+        token.cancel();
+        for (TaskControl child : children) {
+            Task task = child.getTask();
+            if (!(task instanceof ScopedTask) || ((ScopedTask) task).needsInterrupt()) {
+                child.cancelTask();
+            }
+        }
+    }
+
+    /**
+     * Callback of child finish.
+     *
+     * @param child finished child
+     */
+    private void settled(TaskControl child) {
+        if (child.getTaskStage() == TaskStage.COMPLETE) {
+            winner.compareAndSet(null, child);
+        }
+        unfinishedCount.decrementAndGet();
+        lock.lock();
+        try {
+            settled.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.nolab.util.taskexe;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nolab.util.taskexe.impl.executors.SeparatedTasksExecutorService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
+/**
+ * Tests for {@link TaskControls}.
+ */
+public class TaskControlsTestCase {
+
+    private final TaskExecutorService executor =
+            new SeparatedTasksExecutorService(Executors.newFixedThreadPool(4), true);
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, SECONDS));
+    }
+
+    @Test
+    public void testAwaitAll() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<TaskControl> taskControls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            taskControls.add(executor.execute(c -> release.await(), null));
+        }
+        taskControls.add(executor.execute(c -> {}, null));
+
+        assertFalse(TaskControls.awaitAll(taskControls, 20, MILLISECONDS));
+        release.countDown();
+        assertTrue(TaskControls.awaitAll(taskControls, 10, SECONDS));
+        TaskControls.awaitAll(taskControls);
+        for (TaskControl taskControl : taskControls) {
+            assertEquals(COMPLETE, taskControl.getTaskStage());
+        }
+        assertTrue(TaskControls.awaitAll(Collections.emptyList(), 0, SECONDS));
+    }
+
+    @Test
+    public void testAwaitAny() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        TaskControl slow = executor.execute(c -> release.await(), null);
+
+        assertNull(TaskControls.awaitAny(Collections.singletonList(slow), 20, MILLISECONDS));
+
+        List<TaskControl> taskControls = new ArrayList<>();
+        taskControls.add(slow);
+        TaskControl fast = executor.execute(c -> {}, null);
+        taskControls.add(fast);
+        assertSame(fast, TaskControls.awaitAny(taskControls, 10, SECONDS));
+        assertSame(fast, TaskControls.awaitAny(taskControls));
+
+        release.countDown();
+        assertSame(slow, TaskControls.awaitAny(Collections.singletonList(slow)));
+        assertNull(TaskControls.awaitAny(Collections.emptyList()));
+        try {
+            TaskControls.awaitAny(taskControls, -1, SECONDS);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+    }
+}
@@ -1,10 +1,19 @@
 package org.nolab.util.taskexe.impl.executors;
 
+import org.junit.Test;
+import org.nolab.util.taskexe.Task;
+import org.nolab.util.taskexe.TaskControl;
 import org.nolab.util.taskexe.TaskExecutorService;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import static org.junit.Assert.*;
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
 /**
  * Base class for testing {@link TaskExecutorService}, delegating
  * task execution to {@link ExecutorService}.
@@ -32,4 +41,31 @@ public abstract class AbstractExecutorProxyServiceTestCase<T extends TaskExecuto
     protected T getAsynchronousSingleThreadTaskExecutor() {
         return  getConstructor().apply(executorService);
     }
+
+    @Test
+    public void testExecuteAllForkJoinPool() throws Exception {
+
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        final T taskExecutorService = getConstructor().apply(pool);
+        final AtomicInteger executed = new AtomicInteger();
+        final int tasksCount = 1000;
+
+        final List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < tasksCount; i++) {
+            tasks.add(c -> executed.incrementAndGet());
+        }
+
+        try {
+            List<TaskControl> taskControls = taskExecutorService.executeAll(tasks, t -> getContext());
+            taskExecutorService.shutdown();
+            assertTrue(taskExecutorService.awaitTermination(10, TimeUnit.SECONDS));
+            assertEquals(tasksCount, executed.get());
+            for (TaskControl taskControl : taskControls) {
+                assertEquals(COMPLETE, taskControl.getTaskStage());
+            }
+            assertEquals(0, taskExecutorService.getTaskCount(PENDING));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 }
@@ -6,8 +6,12 @@ import org.nolab.util.taskexe.*;
 import org.nolab.util.taskexe.TaskControl.TaskStage;
 import org.nolab.util.taskexe.exceptions.DeniedExecutionException;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -76,6 +80,112 @@ public abstract class AbstractTaskExecutorServiceTestCase<T extends TaskExecutor
         }
     }
 
+    @Test
+    public void testTasksLimit() throws Exception {
+
+        final T taskExecutorService = getAsynchronousSingleThreadTaskExecutor();
+        final Context context = getContext();
+        final Phaser phaser = new Phaser(2);
+        final int maxTasks = 5;
+        final int limit = 3;
+
+        final Task task = c -> c.get(Phaser.class).arriveAndAwaitAdvance();
+
+        context.put(phaser);
+
+        for (int i = 0; i < maxTasks; i++) {
+            taskExecutorService.execute(task, context);
+        }
+
+        int count = 0;
+        for (TaskControl tc : taskExecutorService.getTasks(limit)) {
+            assertNotNull(tc);
+            count++;
+        }
+        assertEquals(limit, count);
+        assertFalse(taskExecutorService.getTasks(0).iterator().hasNext());
+
+        count = 0;
+        for (TaskControl ignored : taskExecutorService.getTasks(maxTasks * 2)) {
+            count++;
+        }
+        assertEquals(maxTasks, count);
+
+        try {
+            taskExecutorService.getTasks(-1);
+            fail();
+        } catch (IllegalArgumentException e) {
+        }
+
+        for (int i = 0; i < maxTasks; i++) {
+            phaser.arriveAndAwaitAdvance();
+        }
+        taskExecutorService.shutdown();
+        assertTrue(taskExecutorService.awaitTermination(10, SECONDS));
+    }
+
+    @Test
+    public void testExecuteAll() throws Exception {
+
+        final T taskExecutorService = getAsynchronousSingleThreadTaskExecutor();
+        final Context context = getContext();
+        final AtomicInteger executed = new AtomicInteger();
+        final int tasksCount = 100;
+
+        final List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < tasksCount; i++) {
+            tasks.add(c -> executed.incrementAndGet());
+        }
+
+        List<TaskControl> taskControls = taskExecutorService.executeAll(tasks, t -> context);
+        assertEquals(tasksCount, taskControls.size());
+        for (int i = 0; i < tasksCount; i++) {
+            TaskControl taskControl = taskControls.get(i);
+            assertEquals(tasks.get(i), taskControl.getTask());
+            assertEquals(context, taskControl.getContext());
+            assertEquals(COMPLETE, taskControl.awaitNextStage(RUNNING, 10, SECONDS));
+        }
+        assertEquals(tasksCount, executed.get());
+        assertTrue(taskExecutorService.executeAll(new ArrayList<>(), t -> context).isEmpty());
+
+        taskExecutorService.shutdown();
+        try {
+            taskExecutorService.executeAll(tasks, t -> context);
+            fail();
+        } catch (DeniedExecutionException e) {
+        }
+        assertTrue(taskExecutorService.awaitTermination(10, SECONDS));
+        assertEquals(tasksCount, executed.get());
+    }
+
+    @Test
+    public void testFutures() throws Exception {
+
+        final T taskExecutorService = getAsynchronousSingleThreadTaskExecutor();
+        final Context context = getContext();
+        final Phaser phaser = new Phaser(2);
+
+        final Task task = c -> c.get(Phaser.class).arriveAndAwaitAdvance();
+
+        context.put(phaser);
+
+        TaskControl taskControl = taskExecutorService.execute(task, context);
+        CompletableFuture<TaskControl> future = taskControl.toCompletableFuture();
+        CompletableFuture<Void> terminationFuture = taskExecutorService.getTerminationFuture();
+        final AtomicReference<TaskControl> finished = new AtomicReference<>();
+        taskControl.whenFinished(finished::set);
+        assertFalse(future.isDone());
+
+        phaser.arriveAndAwaitAdvance();
+        assertSame(taskControl, future.get(10, SECONDS));
+        assertSame(taskControl, finished.get());
+        assertFalse(terminationFuture.isDone());
+
+        taskExecutorService.shutdown();
+        terminationFuture.get(10, SECONDS);
+        assertTrue(taskExecutorService.isTerminated());
+    }
+
     @Test
     public void testShutdown() throws Exception {
 
@@ -377,4 +487,125 @@ public abstract class AbstractTaskExecutorServiceTestCase<T extends TaskExecutor
         assertTrue(notedActions.get() <= detectedActions.get());
         assertTrue(detectedActions.get() <= maxActions.get());
     }
+
+    @Test
+    public void testShutdownAfterFailure() throws Exception {
+
+        final T taskExecutorService = getAsynchronousSingleThreadTaskExecutor();
+        final Context context = getContext();
+        final Phaser phaser = new Phaser(2);
+
+        context.put(phaser);
+
+        TaskControl taskControl = taskExecutorService.execute(c -> {
+            c.get(Phaser.class).arriveAndAwaitAdvance();
+            throw new Exception();
+        }, context);
+        taskExecutorService.shutdown();
+        assertTrue(taskExecutorService.isTerminating());
+
+        phaser.arriveAndAwaitAdvance();
+
+        assertTrue(taskExecutorService.awaitTermination(10, SECONDS));
+        assertEquals(FAILED, taskControl.getTaskStage());
+        assertFalse(taskExecutorService.isTerminating());
+    }
+
+    @Test
+    public void testTaskCountByStage() throws Exception {
+
+        final T taskExecutorService = getAsynchronousSingleThreadTaskExecutor();
+        final Context context = getContext();
+        final Phaser phaser = new Phaser(2);
+        final CountDownLatch started = new CountDownLatch(1);
+        final int pendingTasksCount = 3;
+
+        final Task task = c -> {
+            started.countDown();
+            c.get(Phaser.class).arriveAndAwaitAdvance();
+        };
+
+        context.put(phaser);
+
+        TaskControl first = taskExecutorService.execute(task, context);
+        for (int i = 0; i < pendingTasksCount; i++) {
+            taskExecutorService.execute(task, context);
+        }
+        started.await();
+        assertEquals(1, taskExecutorService.getTaskCount(RUNNING));
+        assertEquals(pendingTasksCount, taskExecutorService.getTaskCount(PENDING));
+        assertEquals(0, taskExecutorService.getTaskCount(COMPLETE));
+
+        taskExecutorService.shutdownNow();
+        assertEquals(0, taskExecutorService.getTaskCount(PENDING));
+        assertEquals(1, taskExecutorService.getTaskCount(RUNNING));
+
+        phaser.arriveAndAwaitAdvance();
+        assertTrue(taskExecutorService.awaitTermination(10, SECONDS));
+        assertEquals(COMPLETE, first.getTaskStage());
+        assertEquals(0, taskExecutorService.getTaskCount(PENDING));
+        assertEquals(0, taskExecutorService.getTaskCount(RUNNING));
+    }
+
+    @Test
+    public void testConcurrentSubmission() throws Exception {
+
+        final T taskExecutorService = getAsynchronousSingleThreadTaskExecutor();
+        final Context context = getContext();
+        final AtomicInteger executed = new AtomicInteger();
+        final int threads = 4;
+        final int tasksPerThread = 500;
+
+        final Task task = c -> executed.incrementAndGet();
+
+        Thread[] submitters = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            submitters[i] = new Thread(() -> {
+                for (int j = 0; j < tasksPerThread; j++) {
+                    taskExecutorService.execute(task, context);
+                }
+            });
+            submitters[i].start();
+        }
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        taskExecutorService.shutdown();
+
+        assertTrue(taskExecutorService.awaitTermination(10, SECONDS));
+        assertEquals(threads * tasksPerThread, executed.get());
+    }
+
+    @Test
+    public void testActionSequence() throws Exception {
+
+        final T taskExecutorService = getAsynchronousSingleThreadTaskExecutor();
+        final Context context = getContext();
+        final Phaser phaser = new Phaser(2);
+        final long timeout = 50;
+
+        final Task task = c -> c.get(Phaser.class).arriveAndAwaitAdvance();
+
+        context.put(phaser);
+
+        long sequence = taskExecutorService.getActionSequence();
+        long start = System.currentTimeMillis();
+        assertEquals(sequence, taskExecutorService.awaitAction(sequence, timeout));
+        assertTrue(System.currentTimeMillis() - start >= timeout);
+        assertEquals(sequence, taskExecutorService.awaitAction(sequence, 0));
+
+        TaskControl taskControl = taskExecutorService.execute(task, context);
+        long next = taskExecutorService.awaitAction(sequence);
+        assertTrue(next > sequence);
+        assertEquals(taskExecutorService.getActionSequence(), taskExecutorService.awaitAction(sequence - 1));
+
+        Object statePoint = taskExecutorService.awaitAction(null);
+        assertNotNull(statePoint);
+        assertNotNull(taskExecutorService.awaitAction(new Object()));
+
+        phaser.arriveAndAwaitAdvance();
+        assertEquals(COMPLETE, taskControl.awaitNextStage(RUNNING));
+        assertNotEquals(statePoint, taskExecutorService.awaitAction(statePoint, 10, SECONDS));
+        taskExecutorService.shutdown();
+    }
 }
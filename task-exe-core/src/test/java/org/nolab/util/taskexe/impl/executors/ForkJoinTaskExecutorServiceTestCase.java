@@ -0,0 +1,103 @@
+package org.nolab.util.taskexe.impl.executors;
+
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.taskexe.Task;
+import org.nolab.util.taskexe.TaskControl;
+import org.nolab.util.taskexe.TaskControl.TaskStage;
+import org.nolab.util.taskexe.TaskExecutorService;
+import org.nolab.util.taskexe.test.ContextTI;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
+/**
+ * Tests for {@link ForkJoinTaskExecutorService}.
+ */
+public class ForkJoinTaskExecutorServiceTestCase {
+
+    /**
+     * Task, that submits two children and awaits them,
+     * until depth is exhausted.
+     */
+    private static class FanOutTask implements Task {
+
+        private final TaskExecutorService service;
+        private final AtomicInteger leaves;
+        private final int depth;
+
+        FanOutTask(TaskExecutorService service, AtomicInteger leaves, int depth) {
+            this.service = service;
+            this.leaves = leaves;
+            this.depth = depth;
+        }
+
+        @Override
+        public void execute(Context context) throws Throwable {
+            if (depth == 0) {
+                leaves.incrementAndGet();
+                return;
+            }
+            TaskControl left = service.execute(new FanOutTask(service, leaves, depth - 1), context);
+            TaskControl right = service.execute(new FanOutTask(service, leaves, depth - 1), context);
+            assertEquals(COMPLETE, awaitFinish(right));
+            assertEquals(COMPLETE, awaitFinish(left));
+        }
+    }
+
+    private static TaskStage awaitFinish(TaskControl taskControl) throws Exception {
+        TaskStage stage = taskControl.getTaskStage();
+        while (stage.hasAfter()) {
+            stage = taskControl.awaitNextStage(stage);
+        }
+        return stage;
+    }
+
+    @Test
+    public void testRecursiveFanOut() throws Exception {
+
+        final ForkJoinTaskExecutorService service = new ForkJoinTaskExecutorService(2);
+        final AtomicInteger leaves = new AtomicInteger();
+        final int depth = 10;
+
+        TaskControl root = service.execute(new FanOutTask(service, leaves, depth), new ContextTI(1));
+        assertEquals(COMPLETE, awaitFinish(root));
+        assertEquals(1 << depth, leaves.get());
+
+        service.shutdown();
+        assertTrue(service.awaitTermination(10, SECONDS));
+        assertTrue(service.getPool().isShutdown());
+    }
+
+    @Test
+    public void testExternalSubmission() throws Exception {
+
+        final ForkJoinTaskExecutorService service = new ForkJoinTaskExecutorService(4);
+        final AtomicInteger executed = new AtomicInteger();
+        final int tasksCount = 100;
+
+        List<TaskControl> taskControls = new ArrayList<>();
+        for (int i = 0; i < tasksCount; i++) {
+            taskControls.add(service.execute(c -> executed.incrementAndGet(), null));
+        }
+        for (TaskControl taskControl : taskControls) {
+            assertEquals(COMPLETE, awaitFinish(taskControl));
+        }
+        assertEquals(tasksCount, executed.get());
+
+        TaskControl failed = service.execute(c -> {
+            throw new IllegalStateException();
+        }, null);
+        assertEquals(FAILED, awaitFinish(failed));
+        assertTrue(failed.getFailureCause() instanceof IllegalStateException);
+
+        service.shutdown();
+        assertTrue(service.awaitTermination(10, SECONDS));
+        assertEquals(0, service.getTaskCount(PENDING));
+    }
+}
@@ -1,8 +1,23 @@
 package org.nolab.util.taskexe.impl.executors;
 
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.taskexe.Task;
+import org.nolab.util.taskexe.TaskControl;
+import org.nolab.util.taskexe.impl.executors.AbstractTaskExecutorService.SeparatedTasks;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
 /**
  * Tests for {@link SeparatedTasksExecutorService}.
  */
@@ -13,4 +28,66 @@ public class SeparatedTasksExecutorServiceTestCase
     protected Function<Executor, SeparatedTasksExecutorService> getConstructor() {
         return SeparatedTasksExecutorService::new;
     }
+
+    @Test
+    public void testSeparatedTasksGrowth() {
+        List<TaskControl> added = new ArrayList<>();
+        SeparatedTasks tasks = new SeparatedTasks(1);
+        for (int i = 0; i < 10; i++) {
+            TaskControl taskControl = new TaskControlImpl(c -> {}, null, null);
+            added.add(taskControl);
+            tasks.add(taskControl);
+        }
+        List<TaskControl> iterated = new ArrayList<>();
+        for (TaskControl taskControl : tasks) {
+            iterated.add(taskControl);
+        }
+        assertEquals(added, iterated);
+    }
+
+    @Test
+    public void testCancelledBeforePendingRegistration() throws Exception {
+        SeparatedTasksExecutorService service = new SeparatedTasksExecutorService(Runnable::run) {
+            @Override
+            protected InnerTaskControl createTaskControl(Task task, Context context) {
+                InnerTaskControl taskControl = super.createTaskControl(task, context);
+                taskControl.cancelTask();
+                return taskControl;
+            }
+        };
+        TaskControl taskControl = service.execute(c -> {}, null);
+        assertEquals(CANCELLED, taskControl.getTaskStage());
+        assertTrue(service.pendingTasks.isEmpty());
+        assertEquals(0, service.getTaskCount(PENDING));
+        service.shutdown();
+        assertTrue(service.awaitTermination(10, SECONDS));
+    }
+
+    @Test
+    public void testBatchDispatchFailureInForkJoinPool() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        SeparatedTasksExecutorService service = new SeparatedTasksExecutorService(pool, true) {
+            private final AtomicInteger dispatched = new AtomicInteger();
+
+            @Override
+            protected void dispatch(InnerTaskControl taskControl) {
+                if (dispatched.incrementAndGet() == 2) {
+                    throw new RejectedExecutionException();
+                }
+                super.dispatch(taskControl);
+            }
+        };
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            tasks.add(c -> {});
+        }
+        List<TaskControl> taskControls = service.executeAll(tasks, t -> null);
+        service.shutdown();
+        assertTrue(service.awaitTermination(10, SECONDS));
+        assertEquals(COMPLETE, taskControls.get(0).getTaskStage());
+        for (int i = 1; i < 4; i++) {
+            assertEquals(CANCELLED, taskControls.get(i).getTaskStage());
+        }
+        assertTrue(pool.awaitTermination(10, SECONDS));
+    }
 }
@@ -0,0 +1,95 @@
+package org.nolab.util.taskexe.impl.executors;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nolab.util.taskexe.Task;
+import org.nolab.util.taskexe.TaskControl;
+import org.nolab.util.taskexe.TaskExecutorService;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
+/**
+ * Tests for {@link TaskCompletionService}.
+ */
+public class TaskCompletionServiceTestCase {
+
+    private final TaskExecutorService executor =
+            new SeparatedTasksExecutorService(Executors.newFixedThreadPool(2), true);
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, SECONDS));
+    }
+
+    @Test
+    public void testCompletionOrder() throws Exception {
+        TaskCompletionService completionService = new TaskCompletionService(executor);
+        CountDownLatch release = new CountDownLatch(1);
+
+        TaskControl slow = completionService.execute(c -> release.await(), null);
+        TaskControl fast = completionService.execute(c -> {}, null);
+        TaskControl failed = completionService.execute(c -> {
+            throw new IllegalStateException();
+        }, null);
+
+        Set<TaskControl> finished = new HashSet<>();
+        finished.add(completionService.take());
+        finished.add(completionService.poll(10, SECONDS));
+        assertTrue(finished.contains(fast));
+        assertTrue(finished.contains(failed));
+        assertNull(completionService.poll());
+        assertNull(completionService.poll(10, MILLISECONDS));
+
+        release.countDown();
+        TaskControl last = completionService.take();
+        assertSame(slow, last);
+        assertEquals(COMPLETE, last.getTaskStage());
+        assertEquals(FAILED, failed.getTaskStage());
+    }
+
+    @Test
+    public void testExecuteAll() throws Exception {
+        TaskCompletionService completionService = new TaskCompletionService(executor);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            tasks.add(c -> {});
+        }
+        List<TaskControl> taskControls = completionService.executeAll(tasks, t -> null);
+        Set<TaskControl> finished = new HashSet<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            finished.add(completionService.poll(10, SECONDS));
+        }
+        assertEquals(new HashSet<>(taskControls), finished);
+        assertNull(completionService.poll());
+    }
+
+    @Test
+    public void testBoundedQueue() throws Exception {
+        TaskCompletionService completionService =
+                new TaskCompletionService(executor, new ArrayBlockingQueue<>(1));
+        CountDownLatch release = new CountDownLatch(1);
+        Set<TaskControl> taskControls = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            taskControls.add(completionService.execute(c -> release.await(), null));
+        }
+        release.countDown();
+        Set<TaskControl> finished = new HashSet<>();
+        for (int i = 0; i < taskControls.size(); i++) {
+            finished.add(completionService.poll(10, SECONDS));
+        }
+        assertEquals(taskControls, finished);
+        assertNull(completionService.poll());
+    }
+}
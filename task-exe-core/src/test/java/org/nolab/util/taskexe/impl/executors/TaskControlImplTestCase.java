@@ -0,0 +1,195 @@
+package org.nolab.util.taskexe.impl.executors;
+
+import org.junit.Test;
+import org.nolab.util.taskexe.TaskControl;
+import org.nolab.util.taskexe.TaskControl.TaskStage;
+import org.nolab.util.taskexe.TaskControls;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
+/**
+ * Tests for {@link TaskControlImpl}.
+ */
+public class TaskControlImplTestCase {
+
+    @Test
+    public void testStageChanged() {
+        List<String> changes = new ArrayList<>();
+        TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null) {
+            @Override
+            protected void stageChanged(TaskStage oldStage, TaskStage newStage) {
+                changes.add(oldStage + "->" + newStage);
+            }
+        };
+        assertEquals(PENDING, taskControl.getTaskStage());
+        assertFalse(taskControl.tryUpdateTaskStage(RUNNING, COMPLETE));
+        assertTrue(taskControl.tryUpdateTaskStage(PENDING, RUNNING));
+        taskControl.updateTaskStage(COMPLETE);
+        assertEquals(COMPLETE, taskControl.getTaskStage());
+        assertEquals(2, changes.size());
+        assertEquals("PENDING->RUNNING", changes.get(0));
+        assertEquals("RUNNING->COMPLETE", changes.get(1));
+    }
+
+    @Test
+    public void testWaiters() throws Exception {
+        TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null);
+        ExecutorService waiters = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TaskStage>> afterPending = new ArrayList<>();
+            List<Future<TaskStage>> afterRunning = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                afterPending.add(waiters.submit(() -> taskControl.awaitNextStage(PENDING)));
+                afterRunning.add(waiters.submit(() -> taskControl.awaitNextStage(RUNNING, 10, TimeUnit.SECONDS)));
+            }
+            assertEquals(PENDING, taskControl.awaitNextStage(PENDING, 20));
+            taskControl.tryUpdateTaskStage(PENDING, RUNNING);
+            for (Future<TaskStage> future : afterPending) {
+                assertEquals(RUNNING, future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(RUNNING, taskControl.awaitNextStage(RUNNING, 0));
+            taskControl.updateTaskStage(FAILED);
+            for (Future<TaskStage> future : afterRunning) {
+                assertEquals(FAILED, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            waiters.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInterruptedWaiter() throws Exception {
+        TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null);
+        Thread.currentThread().interrupt();
+        try {
+            taskControl.awaitNextStage(PENDING);
+            fail();
+        } catch (InterruptedException e) {
+        }
+        assertFalse(Thread.currentThread().isInterrupted());
+        taskControl.updateTaskStage(CANCELLED);
+        assertEquals(CANCELLED, taskControl.awaitNextStage(PENDING));
+    }
+
+    @Test
+    public void testCallbacks() throws Exception {
+        TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null);
+        List<String> calls = new CopyOnWriteArrayList<>();
+        taskControl.onStage(PENDING, c -> calls.add("pending"));
+        taskControl.onStage(RUNNING, c -> calls.add("running"));
+        taskControl.onStage(COMPLETE, c -> calls.add("complete"));
+        taskControl.onStage(FAILED, c -> calls.add("failed"));
+        taskControl.whenFinished(c -> calls.add("finished:" + c.getTaskStage()));
+        taskControl.whenFinished(c -> {
+            throw new IllegalStateException();
+        });
+        CompletableFuture<TaskControl> future = taskControl.toCompletableFuture();
+        assertEquals(1, calls.size());
+        assertEquals("pending", calls.get(0));
+
+        taskControl.tryUpdateTaskStage(PENDING, RUNNING);
+        assertEquals(2, calls.size());
+        assertEquals("running", calls.get(1));
+        assertFalse(future.isDone());
+
+        taskControl.updateTaskStage(COMPLETE);
+        assertEquals(4, calls.size());
+        assertTrue(calls.contains("complete"));
+        assertTrue(calls.contains("finished:COMPLETE"));
+        assertSame(taskControl, future.get(0, TimeUnit.SECONDS));
+
+        taskControl.onStage(RUNNING, c -> calls.add("late"));
+        taskControl.onStage(CANCELLED, c -> calls.add("never"));
+        assertEquals(5, calls.size());
+        assertEquals("late", calls.get(4));
+    }
+
+    @Test
+    public void testCancelRegistration() throws Exception {
+        TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null);
+        List<String> calls = new CopyOnWriteArrayList<>();
+        TaskControl.Registration cancelled = taskControl.whenFinished(c -> calls.add("cancelled"));
+        TaskControl.Registration kept = taskControl.onStage(RUNNING, c -> calls.add("running"));
+        assertEquals(2, taskControl.getWaiterCount());
+        assertTrue(cancelled.cancel());
+        assertEquals(1, taskControl.getWaiterCount());
+
+        taskControl.tryUpdateTaskStage(PENDING, RUNNING);
+        taskControl.updateTaskStage(COMPLETE);
+        assertEquals(1, calls.size());
+        assertEquals("running", calls.get(0));
+        assertFalse(kept.cancel());
+        assertFalse(taskControl.whenFinished(c -> calls.add("late")).cancel());
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    public void testRepeatedGroupWaiting() throws Exception {
+        TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null);
+        List<TaskControl> taskControls = Collections.singletonList(taskControl);
+        for (int i = 0; i < 1000; i++) {
+            assertNull(TaskControls.awaitAny(taskControls, 0, TimeUnit.MILLISECONDS));
+            assertFalse(TaskControls.awaitAll(taskControls, 0, TimeUnit.MILLISECONDS));
+        }
+        assertEquals(0, taskControl.getWaiterCount());
+        taskControl.updateTaskStage(CANCELLED);
+        assertSame(taskControl, TaskControls.awaitAny(taskControls, 0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testConcurrentCallbacks() throws Exception {
+        final int threads = 4;
+        final int callbacksPerThread = 1000;
+        ExecutorService registrars = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 10; round++) {
+                TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null);
+                AtomicInteger fired = new AtomicInteger();
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(registrars.submit(() -> {
+                        start.await();
+                        for (int j = 0; j < callbacksPerThread; j++) {
+                            taskControl.whenFinished(c -> fired.incrementAndGet());
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                taskControl.updateTaskStage(FAILED);
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+                assertEquals(threads * callbacksPerThread, fired.get());
+            }
+        } finally {
+            registrars.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailedFuture() throws Exception {
+        TaskControlImpl taskControl = new TaskControlImpl(c -> {}, null, null);
+        CompletableFuture<TaskControl> future = taskControl.toCompletableFuture();
+        IllegalStateException failure = new IllegalStateException();
+        taskControl.setFailureCause(failure);
+        taskControl.updateTaskStage(FAILED);
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertSame(failure, e.getCause());
+        }
+        TaskControlImpl cancelled = new TaskControlImpl(c -> {}, null, null);
+        cancelled.cancelTask();
+        assertTrue(cancelled.toCompletableFuture().isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,202 @@
+package org.nolab.util.taskexe.impl.tasks;
+
+import org.junit.After;
+import org.junit.Test;
+import org.nolab.util.context.Context;
+import org.nolab.util.taskexe.CancellationToken;
+import org.nolab.util.taskexe.InterruptableTask;
+import org.nolab.util.taskexe.TaskControl;
+import org.nolab.util.taskexe.TaskControls;
+import org.nolab.util.taskexe.TaskExecutorService;
+import org.nolab.util.taskexe.exceptions.TaskCancelledException;
+import org.nolab.util.taskexe.impl.executors.SeparatedTasksExecutorService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.*;
+import static org.nolab.util.taskexe.TaskControl.TaskStage.*;
+
+/**
+ * Tests for {@link TaskScope}.
+ */
+public class TaskScopeTestCase {
+
+    private final TaskExecutorService executor =
+            new SeparatedTasksExecutorService(Executors.newFixedThreadPool(2), true);
+
+    /**
+     * Task, that spins on checkpoint until interrupted.
+     */
+    private static class SpinningTask extends AbstractInterruptableTask {
+
+        private final CountDownLatch started;
+
+        SpinningTask(CountDownLatch started) {
+            this.started = started;
+        }
+
+        @Override
+        protected void doExecute(Context context) {
+            started.countDown();
+            while (true) {
+                checkpoint();
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Task, that spins until interrupted, without checking token.
+     */
+    private static class FlagTask implements InterruptableTask {
+
+        private final CountDownLatch started;
+        private volatile boolean interrupted = false;
+
+        FlagTask(CountDownLatch started) {
+            this.started = started;
+        }
+
+        @Override
+        public void execute(Context context) {
+            started.countDown();
+            while (!interrupted) {
+                Thread.yield();
+            }
+        }
+
+        @Override
+        public void interrupt() {
+            interrupted = true;
+        }
+
+        @Override
+        public boolean isInterrupted() {
+            return interrupted;
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, SECONDS));
+    }
+
+    @Test
+    public void testJoinAll() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        List<TaskControl> controls = new ArrayList<>();
+        try (TaskScope scope = new TaskScope(executor)) {
+            for (int i = 0; i < 10; i++) {
+                controls.add(scope.fork(c -> executed.incrementAndGet(), null));
+            }
+            scope.joinAll();
+            assertNull(scope.getFailureCause());
+            assertFalse(scope.isCancelled());
+        }
+        assertEquals(10, executed.get());
+        for (TaskControl control : controls) {
+            assertEquals(COMPLETE, control.getTaskStage());
+        }
+    }
+
+    @Test
+    public void testFailureCancelsSiblings() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException();
+        try (TaskScope scope = new TaskScope(executor)) {
+            TaskControl spinning = scope.fork(new SpinningTask(started), null);
+            started.await();
+            TaskControl failed = scope.fork(c -> {
+                throw failure;
+            }, null);
+            scope.joinAll();
+            assertSame(failure, scope.getFailureCause());
+            assertTrue(scope.isCancelled());
+            assertEquals(FAILED, failed.getTaskStage());
+            assertEquals(CANCELLED, spinning.getTaskStage());
+            try {
+                scope.fork(c -> {}, null);
+                fail();
+            } catch (TaskCancelledException e) {
+            }
+        }
+    }
+
+    @Test
+    public void testJoinAny() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        try (TaskScope scope = new TaskScope(executor)) {
+            TaskControl spinning = scope.fork(new SpinningTask(started), null);
+            started.await();
+            TaskControl fast = scope.fork(c -> {}, null);
+            assertSame(fast.getTask(), scope.joinAny().getTask());
+            scope.joinAll();
+            assertEquals(CANCELLED, spinning.getTaskStage());
+        }
+    }
+
+    @Test
+    public void testCloseAndParentToken() throws Exception {
+        CancellationToken parent = new CancellationToken();
+        CountDownLatch started = new CountDownLatch(1);
+        TaskScope scope = new TaskScope(executor, parent);
+        TaskControl spinning = scope.fork(new SpinningTask(started), null);
+        started.await();
+        parent.cancel();
+        assertTrue(scope.isCancelled());
+        scope.close();
+        assertEquals(CANCELLED, spinning.getTaskStage());
+        try {
+            scope.fork(c -> {}, null);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+    }
+
+    @Test
+    public void testCloseKeepsInterruptStatus() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        TaskControl spinning;
+        try (TaskScope scope = new TaskScope(executor)) {
+            spinning = scope.fork(new SpinningTask(started), null);
+            started.await();
+            Thread.currentThread().interrupt();
+        }
+        assertTrue(Thread.interrupted());
+        assertEquals(CANCELLED, spinning.getTaskStage());
+    }
+
+    @Test
+    public void testFailureInterruptsRunningSiblings() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        try (TaskScope scope = new TaskScope(executor)) {
+            TaskControl flagged = scope.fork(new FlagTask(started), null);
+            started.await();
+            scope.fork(c -> {
+                throw new IllegalStateException();
+            }, null);
+            assertTrue(TaskControls.awaitAll(Collections.singletonList(flagged), 10, SECONDS));
+            assertEquals(CANCELLED, flagged.getTaskStage());
+        }
+    }
+
+    @Test
+    public void testJoinAnyInterruptsRunningSiblings() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        try (TaskScope scope = new TaskScope(executor)) {
+            TaskControl flagged = scope.fork(new FlagTask(started), null);
+            started.await();
+            TaskControl fast = scope.fork(c -> {}, null);
+            assertSame(fast.getTask(), scope.joinAny().getTask());
+            assertTrue(TaskControls.awaitAll(Collections.singletonList(flagged), 10, SECONDS));
+            assertEquals(CANCELLED, flagged.getTaskStage());
+        }
+    }
+}